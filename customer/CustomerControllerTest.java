@@ -1,23 +1,31 @@
 package com.example.storegui.customer;
 
+import com.example.storegui.utils.DataManager;
 import javafx.application.Platform;
 import javafx.stage.Stage;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 class CustomerControllerTest {
+    // The changes made by the tests are journaled here instead of next to the real store
+    @TempDir
+    static Path storeDirectory;
+
     private CustomerController controller;
     private CustomerView view;
     private Stage primaryStage;
 
     @BeforeAll
     static void setUpApplication() throws InterruptedException {
+        DataManager.useDirectory(storeDirectory);
         CountDownLatch latch = new CountDownLatch(1);
         Platform.startup(latch::countDown);
         latch.await();
@@ -0,0 +1,128 @@
+package com.example.storegui.customer;
+
+import com.example.storegui.database.ConnectionPool;
+import com.example.storegui.database.DatabaseConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Test class for CustomerDAO, run against an in-memory H2 database in MySQL mode
+class CustomerDAOTest {
+    private static final String URL = "jdbc:h2:mem:customerDao;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool.Builder()
+                .setUrl(URL, "sa", "")
+                .setMinSize(1)
+                .setMaxSize(2)
+                .build();
+        DatabaseConnection.configure(pool);
+
+        // Same table as the MySQL storeGui schema
+        try (Connection connection = pool.borrow(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS Customer");
+            statement.execute("CREATE TABLE Customer (name VARCHAR(255), email VARCHAR(255), dob DATE)");
+        }
+    }
+
+    // This method is called after each test
+    @AfterEach
+    void tearDown() {
+        DatabaseConnection.shutdown();
+    }
+
+    // Every customer should be saved, over several batches, and counted in the result
+    @Test
+    void testSaveCustomersCommitsEveryBatch() throws SQLException {
+        assertEquals(5, CustomerDAO.saveCustomers(customers(5), 2), "Three batches should save five rows.");
+        assertEquals(5, countRows());
+        assertEquals(0, CustomerDAO.saveCustomers(List.of()), "Nothing to save should save nothing.");
+        assertEquals(5, countRows());
+    }
+
+    // A row the database rejects should roll back the batches already sent
+    @Test
+    void testSaveCustomersRollsBackOnBadRow() throws SQLException {
+        List<Customer> customers = customers(5);
+        customers.set(3, customer("x".repeat(300), 3)); // longer than the name column
+
+        assertThrows(SQLException.class, () -> CustomerDAO.saveCustomers(customers, 2));
+        assertEquals(0, countRows(), "The first batch should have been rolled back.");
+
+        // the connection should be back in auto-commit mode for the next caller
+        CustomerDAO.saveCustomer(customer("After", 9));
+        assertEquals(1, countRows());
+    }
+
+    // Rows should arrive in full pages with a last partial one, and be counted
+    @Test
+    void testStreamCustomersInPages() throws SQLException {
+        CustomerDAO.saveCustomers(customers(25));
+
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Customer> loaded = new ArrayList<>();
+        int count = CustomerDAO.streamCustomers(4, 10, page -> {
+            pageSizes.add(page.size());
+            loaded.addAll(page);
+        }, () -> false);
+
+        assertEquals(25, count);
+        assertEquals(List.of(10, 10, 5), pageSizes, "Pages should be full except the last.");
+        assertEquals("Customer 0", loaded.get(0).getName(), "The first page should start with the first row.");
+        assertEquals(25, CustomerDAO.loadAllCustomers().size());
+    }
+
+    // Cancelling during a page should stop the stream without handing over another page
+    @Test
+    void testStreamCustomersStopsWhenCancelled() throws SQLException {
+        CustomerDAO.saveCustomers(customers(25));
+
+        List<Integer> pageSizes = new ArrayList<>();
+        boolean[] cancelled = {false};
+        int count = CustomerDAO.streamCustomers(4, 10, page -> {
+            pageSizes.add(page.size());
+            cancelled[0] = true;
+        }, () -> cancelled[0]);
+
+        assertEquals(List.of(10), pageSizes, "Only the first page should be delivered.");
+        assertEquals(10, count, "Rows after the cancellation should not be read.");
+    }
+
+    private static List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            customers.add(customer("Customer " + i, i));
+        }
+        return customers;
+    }
+
+    private static Customer customer(String name, int i) {
+        return new Customer.Builder()
+                .setName(name)
+                .setEmail("customer" + i + "@example.com")
+                .setDob(LocalDate.of(1990, 1, 1).plusDays(i))
+                .build();
+    }
+
+    private int countRows() throws SQLException {
+        try (Connection connection = pool.borrow();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM Customer")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.storegui.database;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.customer.CustomerDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+
+// Test class for ConnectionPool, run against an in-memory H2 database in MySQL mode
+class ConnectionPoolTest {
+    private static final String URL = "jdbc:h2:mem:storeGui;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool.Builder()
+                .setUrl(URL, "sa", "")
+                .setMinSize(1)
+                .setMaxSize(2)
+                .setBorrowTimeoutMillis(200)
+                .build();
+
+        // Same table as the MySQL storeGui schema
+        try (Connection connection = pool.borrow(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS Customer");
+            statement.execute("CREATE TABLE Customer (name VARCHAR(255), email VARCHAR(255), dob DATE)");
+        }
+    }
+
+    // This method is called after each test
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        DatabaseConnection.shutdown();
+    }
+
+    // Closing a borrowed connection should hand the same physical connection back
+    @Test
+    void testCloseReturnsConnectionToPool() throws SQLException {
+        Connection first = pool.borrow();
+        first.close();
+        assertTrue(first.isClosed(), "Returned handle should report itself as closed.");
+
+        try (Connection second = pool.borrow()) {
+            assertFalse(second.isClosed(), "Newly borrowed handle should be open.");
+        }
+
+        ConnectionPool.PoolStats stats = pool.getStats();
+        assertEquals(1, stats.createdCount(), "Only one physical connection should have been opened.");
+        assertEquals(0, stats.borrowedConnections(), "No connections should be outstanding.");
+    }
+
+    // Borrowing beyond the maximum size should time out instead of opening more connections
+    @Test
+    void testBorrowTimesOutWhenExhausted() throws SQLException {
+        try (Connection a = pool.borrow(); Connection b = pool.borrow()) {
+            assertThrows(SQLException.class, pool::borrow, "Third borrow should time out.");
+        }
+        assertEquals(2, pool.getStats().totalConnections(), "Pool should never exceed its maximum size.");
+    }
+
+    // Using a handle after it has been returned should fail
+    @Test
+    void testHandleUnusableAfterClose() throws SQLException {
+        Connection connection = pool.borrow();
+        connection.close();
+        assertThrows(SQLException.class, connection::createStatement, "Returned handle should not be usable.");
+    }
+
+    // Connections idle for longer than the idle timeout should be closed down to the minimum size
+    @Test
+    void testIdleConnectionsEvicted() throws SQLException, InterruptedException {
+        try (ConnectionPool evicting = new ConnectionPool.Builder()
+                .setUrl(URL, "sa", "")
+                .setMinSize(1)
+                .setMaxSize(3)
+                .setIdleTimeoutMillis(50)
+                .setHousekeepingIntervalMillis(20)
+                .build()) {
+            try (Connection a = evicting.borrow(); Connection b = evicting.borrow(); Connection c = evicting.borrow()) {
+                assertEquals(3, evicting.getStats().totalConnections(), "Three connections should be open.");
+            }
+
+            assertTrue(waitFor(() -> evicting.getStats().evictedCount() == 2),
+                    "Idle connections above the minimum should be evicted.");
+            ConnectionPool.PoolStats stats = evicting.getStats();
+            assertEquals(1, stats.totalConnections(), "Pool should shrink back to its minimum size.");
+            assertEquals(1, stats.idleConnections(), "The remaining connection should be idle.");
+        }
+    }
+
+    // A connection held past the leak threshold should be reported once, and returning it should still work
+    @Test
+    void testLeakThresholdReported() throws SQLException, InterruptedException {
+        try (ConnectionPool detecting = new ConnectionPool.Builder()
+                .setUrl(URL, "sa", "")
+                .setMinSize(1)
+                .setMaxSize(2)
+                .setLeakThresholdMillis(50)
+                .setHousekeepingIntervalMillis(20)
+                .build()) {
+            Connection held = detecting.borrow();
+            assertTrue(waitFor(() -> detecting.getStats().leakCount() == 1),
+                    "Connection held past the threshold should be reported.");
+
+            Thread.sleep(100);
+            assertEquals(1, detecting.getStats().leakCount(), "A leak should only be reported once per borrow.");
+
+            held.close();
+            assertEquals(0, detecting.getStats().borrowedConnections(), "Leaked connection should still be returnable.");
+        }
+    }
+
+    // The DAO should reuse pooled connections instead of reconnecting on every call
+    @Test
+    void testDaoUsesPool() throws SQLException {
+        DatabaseConnection.configure(pool);
+
+        CustomerDAO.saveCustomer(new Customer.Builder()
+                .setName("John Doe")
+                .setEmail("john@example.com")
+                .setDob(LocalDate.of(1990, 1, 1))
+                .build());
+
+        assertEquals(1, CustomerDAO.loadAllCustomers().size(), "One customer should be stored.");
+        assertEquals(1, pool.getStats().createdCount(), "DAO calls should share the pooled connection.");
+    }
+
+    // Polls the condition until it holds or a second has passed, the housekeeper runs on its own thread
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
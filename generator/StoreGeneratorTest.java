@@ -0,0 +1,80 @@
+package com.example.storegui.generator;
+
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.OrderStore;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Test class for StoreGenerator
+class StoreGeneratorTest {
+
+    private static final LocalDate FROM = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2023, 12, 31);
+
+    // The same seed should give the same orders whatever the number of threads; customers and
+    // products get new ids every time, so rows are compared by the position of their customer and product
+    @Test
+    void testSameSeedSameOrders() {
+        StoreData single = generate(1, 7);
+        StoreData parallel = generate(3, 7);
+        OrderStore a = single.getOrders();
+        OrderStore b = parallel.getOrders();
+        long customerOffset = parallel.getCustomers().get(0).getId() - single.getCustomers().get(0).getId();
+        long productOffset = parallel.getProducts().get(0).getId() - single.getProducts().get(0).getId();
+
+        assertEquals(200_000, a.size());
+        assertEquals(a.size(), b.size());
+        for (int row = 0; row < a.size(); row++) {
+            assertEquals(a.customerId(row) + customerOffset, b.customerId(row));
+            assertEquals(a.productId(row) + productOffset, b.productId(row));
+            assertEquals(a.quantity(row), b.quantity(row));
+            assertEquals(a.epochDay(row), b.epochDay(row));
+        }
+        assertEquals(a.totalCents(), b.totalCents());
+        assertNotEquals(a.totalCents(), generate(2, 8).getOrders().totalCents(), "Another seed should give other orders.");
+    }
+
+    // Orders should be in date order within the range, with more of them in December than in February
+    @Test
+    void testSeasonalDates() {
+        OrderStore orders = generate(2, 7).getOrders();
+        int[] perMonth = new int[12];
+        for (int row = 0; row < orders.size(); row++) {
+            assertTrue(row == 0 || orders.epochDay(row) >= orders.epochDay(row - 1), "Orders should be in date order.");
+            perMonth[LocalDate.ofEpochDay(orders.epochDay(row)).getMonthValue() - 1]++;
+        }
+        assertEquals(FROM.toEpochDay(), orders.epochDay(0));
+        assertEquals(TO.toEpochDay(), orders.epochDay(orders.size() - 1));
+        assertTrue(perMonth[11] > perMonth[1] * 2, "December should have well over twice February's orders.");
+    }
+
+    // With Zipf popularity the most popular product should take many times the orders of a typical one
+    @Test
+    void testSkewedProductPopularity() {
+        StoreData storeData = generate(2, 7);
+        OrderStore orders = storeData.getOrders();
+        long firstProductId = storeData.getProducts().get(0).getId();
+        int[] perProduct = new int[storeData.getProducts().size()];
+        for (int row = 0; row < orders.size(); row++) {
+            perProduct[(int) (orders.productId(row) - firstProductId)]++;
+        }
+        Arrays.sort(perProduct);
+        int most = perProduct[perProduct.length - 1];
+        int median = perProduct[perProduct.length / 2];
+        assertTrue(most > median * 20, "Most popular product " + most + " vs median " + median);
+    }
+
+    private static StoreData generate(int threads, long seed) {
+        return new StoreGenerator.Builder()
+                .seed(seed)
+                .orders(200_000)
+                .products(100)
+                .between(FROM, TO)
+                .threads(threads)
+                .build()
+                .generate();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.storegui.ingest;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.inventory.InventoryService;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+// Test class for OrderImporter
+class OrderImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Customer customer;
+    private Product product;
+    private OrderStore orders;
+    private OrderImporter importer;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() {
+        customer = new Customer.Builder()
+                .setName("Doe, John")
+                .setEmail("john@example.com")
+                .setDob(LocalDate.of(1990, 1, 1))
+                .build();
+        product = new Product("Product A", 10.5, 10, "Amazing Product");
+        orders = new OrderStore();
+        importer = new OrderImporter(List.of(customer), List.of(product), orders,
+                InventoryService.withStockListener(_ -> {
+                }), 2);
+    }
+
+    // Valid CSV lines should be imported in file order and the others counted by reason
+    @Test
+    void testImportCsv() throws IOException {
+        Path file = tempDir.resolve("orders.csv");
+        Files.writeString(file, String.join("\n",
+                "customer,product,quantity,date",
+                "\"Doe, John\",Product A,2,2024-01-05",
+                "john@example.com," + product.getId() + ",3,2024-01-06",
+                "Nobody,Product A,1,2024-01-07",
+                "\"Doe, John\",Product A,zero,2024-01-07",
+                "\"Doe, John\",Product A,1,2024-13-01",
+                "\"Doe, John\",Product A,9,2024-01-08",
+                "not an order",
+                ""));
+
+        OrderImporter.Report report = importer.importFile(file);
+
+        assertEquals(7, report.getLines());
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected(OrderImporter.Reject.UNKNOWN_CUSTOMER));
+        assertEquals(1, report.getRejected(OrderImporter.Reject.BAD_QUANTITY));
+        assertEquals(1, report.getRejected(OrderImporter.Reject.BAD_DATE));
+        assertEquals(1, report.getRejected(OrderImporter.Reject.INSUFFICIENT_STOCK));
+        assertEquals(1, report.getRejected(OrderImporter.Reject.MALFORMED));
+        assertEquals(2, orders.quantity(0));
+        assertEquals(LocalDate.of(2024, 1, 6), orders.get(1).getDate());
+        assertEquals(1050, orders.unitPriceCents(1));
+        assertEquals(5, product.getStock(), "Imported orders should take their stock.");
+    }
+
+    // JSON Lines should be read the same way, in batches across the worker threads
+    @Test
+    void testImportJsonLines() throws IOException {
+        product.setStock(100_000);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 40_000; i++) {
+            lines.append("{\"customer\": \"Doe, John\", \"product\": \"Product A\", \"quantity\": ")
+                    .append(i % 3 + 1).append(", \"date\": \"2024-02-0").append(i % 9 + 1).append("\"}\n");
+        }
+        Path file = tempDir.resolve("orders.jsonl");
+        Files.writeString(file, lines);
+
+        OrderImporter.Report report = importer.importFile(file);
+
+        assertEquals(40_000, report.getImported());
+        assertEquals(40_000, orders.size());
+        assertEquals(3, orders.quantity(39_998), "Orders should be appended in file order.");
+        assertEquals(100_000 - 79_999, product.getStock());
+    }
+
+    // Orders that couldn't be appended should give their stock back
+    @Test
+    void testFailedAppendReleasesStock() throws IOException {
+        OrderStore full = new OrderStore() {
+            @Override
+            public int append(long customerId, long productId, int quantity, int epochDay, long unitPriceCents) {
+                if (size() == 1) {
+                    throw new IllegalStateException("Store is full.");
+                }
+                return super.append(customerId, productId, quantity, epochDay, unitPriceCents);
+            }
+        };
+        OrderImporter failing = new OrderImporter(List.of(customer), List.of(product), full, 2);
+        Path file = tempDir.resolve("orders.csv");
+        Files.writeString(file, String.join("\n",
+                "\"Doe, John\",Product A,2,2024-01-05",
+                "\"Doe, John\",Product A,3,2024-01-06",
+                "\"Doe, John\",Product A,4,2024-01-07"));
+
+        assertThrows(IllegalStateException.class, () -> failing.importFile(file));
+        assertEquals(1, full.size());
+        assertEquals(8, product.getStock(), "Only the appended order should keep its stock.");
+    }
+}
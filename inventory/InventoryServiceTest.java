@@ -0,0 +1,81 @@
+package com.example.storegui.inventory;
+
+import com.example.storegui.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Test class for InventoryService
+class InventoryServiceTest {
+
+    private InventoryService inventory;
+    private Product product;
+    private AtomicInteger stockChanges;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() {
+        stockChanges = new AtomicInteger();
+        // count the changes instead of journaling them
+        inventory = InventoryService.withStockListener(_ -> stockChanges.incrementAndGet());
+        product = new Product("Product A", 10.0, 10, "Amazing Product");
+    }
+
+    // Reserving should take the stock, committing keeps it taken and releasing puts it back
+    @Test
+    void testReserveCommitRelease() {
+        InventoryService.Reservation first = inventory.reserve(product, 4);
+        assertNotNull(first);
+        assertEquals(6, product.getStock(), "Reserved stock should not be available.");
+
+        assertTrue(inventory.commit(first));
+        assertFalse(inventory.release(first), "A committed reservation can't be released.");
+        assertEquals(6, product.getStock());
+
+        InventoryService.Reservation second = inventory.reserve(product, 5);
+        assertNull(inventory.reserve(product, 2), "Only one item should be left.");
+        assertTrue(inventory.release(second));
+        assertFalse(inventory.release(second), "A reservation is only released once.");
+        assertEquals(6, product.getStock());
+        assertEquals(2, stockChanges.get(), "Each commit and release should be recorded once.");
+    }
+
+    // Concurrent reservations should never take more than the stock
+    @Test
+    void testConcurrentReservations() throws InterruptedException {
+        product.setStock(1000);
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    InventoryService.Reservation reservation = inventory.reserve(product, 1);
+                    if (reservation != null) {
+                        reserved.incrementAndGet();
+                        inventory.commit(reservation);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, reserved.get(), "Exactly the stock should have been reserved.");
+        assertEquals(0, product.getStock());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.storegui;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the JMH benchmarks and writes their results as JMH's JSON, one file per run, so results of
+ * different builds can be kept side by side and compared. Given the results of an earlier run as a
+ * baseline, every benchmark that got slower by more than the threshold, beyond the error of both
+ * runs, is listed and the runner exits with status 1, so a build running it fails on a regression.
+ * Every benchmark reports average time per operation, so a higher score is always worse.
+ *
+ * Usage: BenchmarkRunner [include regex] [--out results.json] [--baseline earlier.json] [--threshold percent]
+ *        BenchmarkRunner --compare earlier.json later.json [--threshold percent]
+ */
+public class BenchmarkRunner {
+
+    private static final String RESULTS_DIR = "jmh-results";
+
+    // A score this much higher than the baseline's counts as a regression
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    public static void main(String[] args) throws Exception {
+        String include = ".*";
+        Path out = null;
+        Path baseline = null;
+        Path compared = null;
+        double threshold = DEFAULT_THRESHOLD_PERCENT;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Path.of(args[++i]);
+                case "--baseline" -> baseline = Path.of(args[++i]);
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                case "--compare" -> {
+                    baseline = Path.of(args[++i]);
+                    compared = Path.of(args[++i]);
+                }
+                default -> include = args[i];
+            }
+        }
+
+        if (compared == null) {
+            if (out == null) {
+                Files.createDirectories(Path.of(RESULTS_DIR));
+                out = Path.of(RESULTS_DIR, "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+            }
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(out.toString())
+                    .build();
+            new Runner(options).run();
+            System.out.println("Results written to " + out);
+            compared = out;
+        }
+
+        if (baseline != null && compare(readScores(baseline), readScores(compared), threshold) > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Prints every benchmark of both runs with its change, returns the number of regressions
+    static int compare(Map<String, Score> before, Map<String, Score> after, double thresholdPercent) {
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "baseline", "now", "change");
+        for (Map.Entry<String, Score> entry : after.entrySet()) {
+            Score now = entry.getValue();
+            Score then = before.get(entry.getKey());
+            if (then == null) {
+                System.out.printf("%-70s %14s %14.3f %9s%n", entry.getKey(), "-", now.score(), "new");
+                continue;
+            }
+            double change = (now.score() - then.score()) / then.score() * 100;
+            // slower by more than the threshold, and by more than the two runs' errors together
+            boolean regressed = change > thresholdPercent
+                    && now.score() - then.score() > errorOrZero(now) + errorOrZero(then);
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), then.score(), now.score(), change,
+                    regressed ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions == 0 ? "No regressions above " + thresholdPercent + "%."
+                : regressions + " regression(s) above " + thresholdPercent + "%.");
+        return regressions;
+    }
+
+    private static double errorOrZero(Score score) {
+        return Double.isNaN(score.error()) ? 0 : score.error();
+    }
+
+    private static final Pattern BENCHMARK = Pattern.compile("\"benchmark\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern PARAMS = Pattern.compile("\"params\"\\s*:\\s*\\{([^}]*)}");
+    private static final Pattern PARAM = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern SCORE = Pattern.compile(
+            "\"primaryMetric\"\\s*:\\s*\\{\\s*\"score\"\\s*:\\s*\"?([^\",\\s]+)\"?\\s*,\\s*\"scoreError\"\\s*:\\s*\"?([^\",\\s]+)\"?");
+
+    // Scores of a JMH JSON result file by benchmark name and parameters, e.g.
+    // "utils.DataManagerBenchmark.load orders=10000". Only the fields compared are read.
+    static Map<String, Score> readScores(Path file) throws IOException {
+        String json = Files.readString(file);
+        Map<String, Score> scores = new TreeMap<>();
+        // every result starts with the JMH version
+        for (String result : json.split("\"jmhVersion\"")) {
+            Matcher benchmark = BENCHMARK.matcher(result);
+            Matcher score = SCORE.matcher(result);
+            if (!benchmark.find() || !score.find()) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(benchmark.group(1).replace(BenchmarkRunner.class.getPackageName() + ".", ""));
+            Matcher params = PARAMS.matcher(result);
+            if (params.find()) {
+                Map<String, String> sorted = new TreeMap<>();
+                Matcher param = PARAM.matcher(params.group(1));
+                while (param.find()) {
+                    sorted.put(param.group(1), param.group(2));
+                }
+                sorted.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+            scores.put(key.toString(), new Score(Double.parseDouble(score.group(1)), Double.parseDouble(score.group(2))));
+        }
+        return scores;
+    }
+
+    record Score(double score, double error) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.storegui.customer;
+
+import com.example.storegui.database.ConnectionPool;
+import com.example.storegui.database.DatabaseConnection;
+import com.example.storegui.generator.StoreGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// CustomerDAO batch inserts and loads against an in-memory H2 database in MySQL mode, the same
+// embedded database the database tests use, so no MySQL server is needed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDAOBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:storeGuiBenchmark;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Param({"1000", "10000"})
+    private int customers;
+
+    private List<Customer> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        DatabaseConnection.configure(new ConnectionPool.Builder()
+                .setUrl(URL, "sa", "")
+                .setMinSize(1)
+                .setMaxSize(2)
+                .build());
+        batch = new StoreGenerator.Builder().customers(customers).orders(0).build().generate().getCustomers();
+        execute("DROP TABLE IF EXISTS Customer");
+        // Same table as the MySQL storeGui schema
+        execute("CREATE TABLE Customer (name VARCHAR(255), email VARCHAR(255), dob DATE)");
+        CustomerDAO.saveCustomers(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.shutdown();
+    }
+
+    // Emptied before every insert, so each batch goes into the same empty table
+    @State(Scope.Benchmark)
+    public static class EmptyTable {
+        @Setup(Level.Invocation)
+        public void clear() throws SQLException {
+            execute("TRUNCATE TABLE Customer");
+        }
+    }
+
+    @Benchmark
+    public int insert(EmptyTable table) throws SQLException {
+        return CustomerDAO.saveCustomers(batch);
+    }
+
+    @Benchmark
+    public List<Customer> load() throws SQLException {
+        return CustomerDAO.loadAllCustomers();
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = DatabaseConnection.getInstance().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.storegui.customer;
+
+import com.example.storegui.model.EntityTables;
+import com.example.storegui.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Creating a customer or product, including validation and adding it to a store's id tables. Ids cycle
+// through a fixed range, as when records are read from a file, so each object replaces an earlier one
+// in the tables instead of the tables growing over the run.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityConstructionBenchmark {
+
+    private static final LocalDate DOB = LocalDate.of(1980, 5, 17);
+
+    private static final int ID_RANGE = 1 << 16;
+
+    private final EntityTables entities = new EntityTables();
+    private long id;
+
+    @Benchmark
+    public Customer customer() {
+        Customer customer = new Customer.Builder()
+                .setId(nextId())
+                .setName("Jane Doe")
+                .setEmail("jane.doe@example.com")
+                .setDob(DOB)
+                .build();
+        entities.add(customer);
+        return customer;
+    }
+
+    @Benchmark
+    public Product product() {
+        Product product = new Product(nextId(), "Desk lamp", 24.95, 100, "Adjustable desk lamp");
+        entities.add(product);
+        return product;
+    }
+
+    private long nextId() {
+        id = id % ID_RANGE + 1;
+        return id;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.storegui.order;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.generator.StoreGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.concurrent.TimeUnit;
+
+// What the order tab does on Filter, Sort and List Orders: the filter lookup, building the sorted
+// views, and the text summaries OrderController shows. Nothing here needs JavaFX.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderSummaryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int orders;
+
+    private OrderStore store;
+    private Customer customer;
+    private Month month;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new StoreGenerator.Builder().orders(orders).build().generate().getOrders();
+        // the customer and month of the first order, so the filter always finds something
+        customer = store.entities().getCustomer(store.customerId(0));
+        month = LocalDate.ofEpochDay(store.epochDay(0)).getMonth();
+        // built once, as in the application after the first filter or sort
+        store.index();
+        store.sortedBy(SortedOrderView.By.DATE);
+    }
+
+    @Benchmark
+    public int[] filter() {
+        return store.selectByCustomerAndMonth(customer.getId(), month);
+    }
+
+    @Benchmark
+    public String filterSummary() {
+        int[] rows = store.selectByCustomerAndMonth(customer.getId(), month);
+        return OrderSummaries.filteredSummary(store, rows, customer, month);
+    }
+
+    // A new index, as after the orders are loaded
+    @Benchmark
+    public OrderIndex buildIndex() {
+        return new OrderIndex(store);
+    }
+
+    @Benchmark
+    public SortedOrderView sortByDate() {
+        return new SortedOrderView(store, SortedOrderView.By.DATE);
+    }
+
+    @Benchmark
+    public SortedOrderView sortByCustomer() {
+        return new SortedOrderView(store, SortedOrderView.By.CUSTOMER);
+    }
+
+    @Benchmark
+    public SortedOrderView sortByProduct() {
+        return new SortedOrderView(store, SortedOrderView.By.PRODUCT);
+    }
+
+    // The List Orders text of every order, in the sorted view kept by the store
+    @Benchmark
+    public String listSummary() {
+        return OrderSummaries.orderSummary(store, SortedOrderView.By.DATE);
+    }
+}
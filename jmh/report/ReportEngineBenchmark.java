@@ -0,0 +1,74 @@
+package com.example.storegui.report;
+
+import com.example.storegui.generator.StoreGenerator;
+import com.example.storegui.order.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// How ReportEngine scales with threads, from one group key to three. The orders come from the seeded
+// StoreGenerator, over 100,000 customers, 5,000 products and five years, in date order and skewed
+// towards popular products as in a real store. Compare the scores of the thread counts for the speedup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportEngineBenchmark {
+
+    @Param({"10000000"})
+    private int orders;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private OrderStore store;
+    private ReportEngine byMonth;
+    private ReportEngine byProductAndMonth;
+    private ReportEngine byCustomerProductAndWeek;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new StoreGenerator.Builder().customers(100_000).products(5_000).orders(orders).build()
+                .generate().getOrders();
+        byMonth = engine(ReportEngine.Key.MONTH);
+        byProductAndMonth = engine(ReportEngine.Key.PRODUCT, ReportEngine.Key.MONTH);
+        byCustomerProductAndWeek = engine(ReportEngine.Key.CUSTOMER, ReportEngine.Key.PRODUCT, ReportEngine.Key.WEEK);
+    }
+
+    @Benchmark
+    public ReportEngine.Report revenueByMonth() {
+        return byMonth.run(store);
+    }
+
+    @Benchmark
+    public ReportEngine.Report revenueByProductAndMonth() {
+        return byProductAndMonth.run(store);
+    }
+
+    @Benchmark
+    public ReportEngine.Report revenueByCustomerProductAndWeek() {
+        return byCustomerProductAndWeek.run(store);
+    }
+
+    private ReportEngine engine(ReportEngine.Key... groupBy) {
+        return new ReportEngine.Builder()
+                .groupBy(groupBy)
+                .measures(ReportEngine.Measure.REVENUE, ReportEngine.Measure.UNITS)
+                .parallelism(threads)
+                .limit(10)
+                .build();
+    }
+}
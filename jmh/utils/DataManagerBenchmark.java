@@ -0,0 +1,81 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.generator.StoreGenerator;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Saving and loading the store file through DataManager. DataManager keeps its files in the working
+// directory, so the benchmark refuses to start next to an existing store and deletes what it wrote.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DataManagerBenchmark {
+
+    // The files DataManager writes: the store, its previous generations and the journal
+    private static final String[] STORE_FILES = {
+            "storeData.bin", "storeData.bin.1", "storeData.bin.2", "storeData.bin.3", "storeData.journal"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int orders;
+
+    private StoreData storeData;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (Files.exists(Path.of(STORE_FILES[0]))) {
+            throw new IllegalStateException("Run the benchmark from a directory without a store file, it would be overwritten.");
+        }
+        storeData = new StoreGenerator.Builder().orders(orders).build().generate();
+        // the load benchmarks read what this wrote
+        if (!DataManager.getInstance().saveAllData(storeData)) {
+            throw new IOException("Could not write the store file.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataManager.getInstance().flush();
+        for (String file : STORE_FILES) {
+            Files.deleteIfExists(Path.of(file));
+        }
+    }
+
+    // Snapshot copy, encode and write of every customer, product and order
+    @Benchmark
+    public boolean save() throws IOException {
+        return DataManager.getInstance().saveAllData(storeData);
+    }
+
+    // Read and decode of the whole store file
+    @Benchmark
+    public StoreData load() throws IOException {
+        return DataManager.getInstance().loadAllData();
+    }
+
+    // Opening the store file lazily and decoding only the order columns, as at startup
+    @Benchmark
+    public OrderStore openOrders() throws IOException {
+        return DataManager.getInstance().openStore().orderStore();
+    }
+}
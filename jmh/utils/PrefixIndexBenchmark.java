@@ -0,0 +1,74 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.generator.StoreGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// What the customer picker on the order tab does: a search for every key typed, sampled so the
+// percentiles can be read off, and taking one edited customer out of the index and in again.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrefixIndexBenchmark {
+
+    // Matches the picker shows at once
+    private static final int LIMIT = 50;
+
+    @Param({"10000", "500000"})
+    private int customers;
+
+    private List<Customer> items;
+    private PrefixIndex<Customer> index;
+
+    // Prefixes of one to four letters of names and emails, as they are typed
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = new StoreGenerator.Builder().customers(customers).orders(0).build().generate().getCustomers();
+        index = new PrefixIndex<>(items, customer -> List.of(customer.getName(), customer.getEmail()));
+        SplittableRandom random = new SplittableRandom(42);
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            Customer customer = items.get(random.nextInt(items.size()));
+            String key = (random.nextBoolean() ? customer.getName() : customer.getEmail()).toLowerCase(Locale.ROOT);
+            prefixes[i] = key.substring(0, Math.min(key.length(), 1 + random.nextInt(4)));
+        }
+    }
+
+    @Benchmark
+    public List<Customer> search() {
+        String prefix = prefixes[next];
+        next = (next + 1) & (prefixes.length - 1);
+        return index.search(prefix, LIMIT);
+    }
+
+    // What the picker does when one customer is edited
+    @Benchmark
+    public PrefixIndex<Customer> replaceOne() {
+        Customer customer = items.get(next);
+        next = (next + 1) & (prefixes.length - 1);
+        List<Customer> edited = List.of(customer);
+        return index.minus(edited).plus(edited);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.generator.StoreGenerator;
+import com.example.storegui.model.StoreData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// StoreCodec against default Java serialization of the same StoreData, in memory so only the
+// encoding is measured. The size of both forms is printed once per trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StoreCodecBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int orders;
+
+    private StoreData storeData;
+    private byte[] encoded;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storeData = new StoreGenerator.Builder().orders(orders).build().generate();
+        encoded = StoreCodec.encode(storeData);
+        serialized = serialize();
+        System.out.printf("%nStoreCodec %d bytes, java serialization %d bytes (%.1fx)%n",
+                encoded.length, serialized.length, (double) serialized.length / encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return StoreCodec.encode(storeData);
+    }
+
+    @Benchmark
+    public StoreData decode() throws IOException {
+        return StoreCodec.decode(ByteBuffer.wrap(encoded));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(storeData);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.storegui.metrics;
+
+import com.example.storegui.events.DatabaseQueryEvent;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Test class for LatencyHistogram and Metrics
+class LatencyHistogramTest {
+
+    // Every duration should fall in a bucket whose upper end is at most about 3% above it
+    @Test
+    void testBucketBounds() {
+        long[] durations = {0, 1, 31, 32, 33, 63, 64, 1_000, 999_999, 1_000_000_007L, Long.MAX_VALUE};
+        for (long nanos : durations) {
+            int bucket = LatencyHistogram.bucket(nanos);
+            long upper = LatencyHistogram.bucketMax(bucket);
+            assertTrue(upper >= nanos, nanos + " is above its bucket's end " + upper);
+            assertTrue(upper - nanos <= nanos / 32, nanos + " is too far from its bucket's end " + upper);
+            assertTrue(bucket == 0 || LatencyHistogram.bucketMax(bucket - 1) < nanos, nanos + " belongs in an earlier bucket");
+        }
+    }
+
+    // Percentiles of 1..1000 microseconds should be within 3% of the exact ones
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1000; micros >= 1; micros--) {
+            histogram.record(micros * 1_000L);
+        }
+        LatencyHistogram.Summary summary = histogram.summary();
+        assertEquals(1000, summary.count());
+        assertEquals(1_000_000, summary.maxNanos());
+        assertEquals(500_500, summary.meanNanos());
+        assertEquals(500_000, summary.p50Nanos(), 500_000 * 0.03);
+        assertEquals(990_000, summary.p99Nanos(), 990_000 * 0.03);
+        assertEquals(999_000, summary.p999Nanos(), 999_000 * 0.03);
+    }
+
+    // A snapshot should hold every metric by name, histograms flattened into one value per statistic
+    @Test
+    void testSnapshot() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.counter("test.snapshot.count").add(3);
+        metrics.counter("test.snapshot.count").increment();
+        metrics.gauge("test.snapshot.gauge", () -> 42);
+        metrics.histogram("test.snapshot.time").record(2_000);
+
+        Metrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(4, snapshot.counters().get("test.snapshot.count"));
+        assertEquals(42, snapshot.gauges().get("test.snapshot.gauge"));
+        assertEquals(1, snapshot.flatten().get("test.snapshot.time.count"));
+        assertEquals(2_000, snapshot.flatten().get("test.snapshot.time.maxNanos"));
+        assertTrue(snapshot.toString().contains("test.snapshot.count = 4"));
+    }
+
+    // A finished operation should be timed, a failed one only reported as an event
+    @Test
+    void testTimedEvent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        TimedEvent.start(histogram, new DatabaseQueryEvent()).finish(event -> event.succeeded = true);
+        TimedEvent<DatabaseQueryEvent> failed = TimedEvent.start(histogram, new DatabaseQueryEvent());
+        assertTrue(failed.fail(event -> event.succeeded = false) >= 0);
+        assertEquals(1, histogram.summary().count());
+    }
+}
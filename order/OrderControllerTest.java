@@ -2,13 +2,16 @@ package com.example.storegui.order;
 
 import com.example.storegui.customer.Customer;
 import com.example.storegui.product.Product;
+import com.example.storegui.utils.DataManager;
 import javafx.application.Platform;
 import javafx.stage.Stage;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.ArrayList;
@@ -16,6 +19,10 @@ import java.util.concurrent.CountDownLatch;
 
 // Test class for OrderController
 class OrderControllerTest {
+    // The changes made by the tests are journaled here instead of next to the real store
+    @TempDir
+    static Path storeDirectory;
+
     private OrderController controller;
     private OrderView view;
     private Stage primaryStage;
@@ -25,6 +32,8 @@ class OrderControllerTest {
     // This method is called once before all tests in this class
     @BeforeAll
     static void setUpApplication() throws InterruptedException {
+        DataManager.useDirectory(storeDirectory);
+
         // Initialize JavaFX application thread
         CountDownLatch latch = new CountDownLatch(1);
         Platform.startup(latch::countDown);
@@ -150,8 +159,8 @@ class OrderControllerTest {
         controller.sortOrders();
 
         // Wait for the FX thread to process the sorting
-        assertEquals(LocalDate.of(2023, Month.JANUARY, 1), OrderController.getOrders().get(0).getDate(), "First order should be for '2023-01-01'.");
-        assertEquals(LocalDate.of(2023, Month.FEBRUARY, 1), OrderController.getOrders().get(1).getDate(), "Second order should be for '2023-02-01'.");
+        assertEquals(LocalDate.of(2023, Month.JANUARY, 1), controller.getSortedOrders().get(0).getDate(), "First order should be for '2023-01-01'.");
+        assertEquals(LocalDate.of(2023, Month.FEBRUARY, 1), controller.getSortedOrders().get(1).getDate(), "Second order should be for '2023-02-01'.");
     }
 
 }
\ No newline at end of file
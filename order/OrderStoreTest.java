@@ -0,0 +1,228 @@
+package com.example.storegui.order;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+// Test class for OrderStore
+class OrderStoreTest {
+
+    private OrderStore store;
+    private Customer customer;
+    private Customer otherCustomer;
+    private Product productA;
+    private Product productB;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() {
+        store = new OrderStore();
+        customer = new Customer.Builder()
+                .setName("John Doe")
+                .setEmail("john@example.com")
+                .setDob(LocalDate.of(1990, 1, 1))
+                .build();
+        otherCustomer = new Customer.Builder()
+                .setName("Jane Smith")
+                .setEmail("jane@example.com")
+                .setDob(LocalDate.of(1985, 5, 15))
+                .build();
+        productA = new Product("Product A", 10.5, 100, "Amazing Product");
+        productB = new Product("Product B", 2.0, 100, "Other Product");
+    }
+
+    // Orders read back should match the ones added, also past the first chunk
+    @Test
+    void testAddAndGetAcrossChunks() {
+        for (int i = 0; i < 40_000; i++) {
+            store.add(new Order(customer, productA, i % 7 + 1, LocalDate.ofEpochDay(19_000 + i % 365)));
+        }
+
+        assertEquals(40_000, store.size());
+        Order last = store.get(39_999);
+        assertEquals(39_999 % 7 + 1, last.getQuantity());
+        assertEquals(LocalDate.ofEpochDay(19_000 + 39_999 % 365), last.getDate());
+        assertSame(productA, last.getProduct());
+        assertEquals(1050, store.unitPriceCents(20_000), "The unit price should be kept in cents.");
+    }
+
+    // Totals and the customer/month filter should work on the columns
+    @Test
+    void testSelectAndTotal() {
+        store.add(new Order(customer, productA, 2, LocalDate.of(2023, Month.JANUARY, 5)));
+        store.add(new Order(otherCustomer, productA, 1, LocalDate.of(2023, Month.JANUARY, 6)));
+        store.add(new Order(customer, productB, 3, LocalDate.of(2022, Month.JANUARY, 20)));
+        store.add(new Order(customer, productB, 4, LocalDate.of(2023, Month.MARCH, 1)));
+
+        int[] rows = store.selectByCustomerAndMonth(customer.getId(), Month.JANUARY);
+        assertArrayEquals(new int[]{0, 2}, rows, "January orders of every year should match.");
+        assertEquals(2100 + 600, store.totalCents(rows));
+        assertEquals(2100 + 1050 + 600 + 800, store.totalCents());
+    }
+
+    // The index should follow orders as they are added and removed
+    @Test
+    void testIndexFollowsChanges() {
+        store.add(new Order(customer, productA, 1, LocalDate.of(2023, Month.JANUARY, 1)));
+        assertArrayEquals(new int[]{0}, store.selectByCustomerAndMonth(customer.getId(), Month.JANUARY));
+
+        store.add(new Order(otherCustomer, productB, 2, LocalDate.of(2023, Month.FEBRUARY, 1)));
+        store.add(new Order(customer, productB, 3, LocalDate.of(2024, Month.JANUARY, 1)));
+        assertArrayEquals(new int[]{0, 2}, store.selectByCustomerAndMonth(customer.getId(), Month.JANUARY));
+
+        Order removed = store.get(0);
+        assertTrue(store.remove(removed));
+        assertArrayEquals(new int[]{1}, store.selectByCustomerAndMonth(customer.getId(), Month.JANUARY),
+                "Rows after the removed one should move up.");
+        assertArrayEquals(new int[]{0, 1}, store.index().rowsForProduct(productB.getId()));
+        assertEquals(-1, store.indexOf(removed));
+    }
+
+    // Of two orders with the same values, the one asked for should be removed, and an order that was
+    // never stored shouldn't remove either
+    @Test
+    void testRemoveFindsOrderById() {
+        store.add(new Order(customer, productA, 1, LocalDate.of(2023, Month.JANUARY, 1)));
+        store.add(new Order(customer, productB, 5, LocalDate.of(2023, Month.JANUARY, 1)));
+        store.add(new Order(customer, productA, 1, LocalDate.of(2023, Month.JANUARY, 1)));
+        Order second = store.get(2);
+        store.sortByProduct(Comparator.comparing(Product::getName));
+
+        assertFalse(store.remove(new Order(customer, productA, 1, LocalDate.of(2023, Month.JANUARY, 1))));
+        assertNotEquals(store.get(0), second, "Orders with the same values should still be different orders.");
+        assertEquals(1, store.indexOf(second));
+        assertTrue(store.remove(second));
+        assertEquals(-1, store.indexOf(second));
+        assertEquals(0, store.orderId(0), "The first of the equal orders should be kept.");
+    }
+
+    // Sorting should be stable and removing should keep the remaining rows in order
+    @Test
+    void testSortAndRemove() {
+        store.add(new Order(customer, productB, 1, LocalDate.of(2023, Month.MARCH, 1)));
+        store.add(new Order(customer, productA, 2, LocalDate.of(2023, Month.JANUARY, 1)));
+        store.add(new Order(otherCustomer, productB, 3, LocalDate.of(2023, Month.JANUARY, 1)));
+
+        store.sortByDate();
+        assertEquals(2, store.quantity(0));
+        assertEquals(3, store.quantity(1), "Orders on the same day should keep their order.");
+
+        store.sortByProduct(Comparator.comparing(Product::getName));
+        assertEquals(productA.getId(), store.productId(0));
+
+        store.remove(0);
+        assertEquals(2, store.size());
+        assertEquals(3, store.get(0).getQuantity());
+        assertEquals(1, store.get(1).getQuantity());
+    }
+
+    // Removing several orders at once should keep the index right, also after the rows were sorted
+    @Test
+    void testRemoveIfAfterSort() {
+        for (int i = 0; i < 10; i++) {
+            store.add(new Order(i % 2 == 0 ? customer : otherCustomer, productA, i + 1,
+                    LocalDate.of(2023, Month.JANUARY, 10 - i)));
+        }
+        assertEquals(5, store.selectByCustomerAndMonth(customer.getId(), Month.JANUARY).length);
+        store.sortByDate();
+        int version = store.version();
+
+        assertTrue(store.removeIf(order -> order.getQuantity() > 6));
+        assertNotEquals(version, store.version(), "Removing orders should change the version.");
+        assertEquals(6, store.size());
+        assertEquals(6, store.quantity(0), "The remaining rows should keep their order.");
+        assertArrayEquals(new int[]{1, 3, 5}, store.selectByCustomerAndMonth(customer.getId(), Month.JANUARY));
+        assertEquals(5, store.rowOf(0), "The first order should be on the last day left.");
+    }
+
+    // Sorted views should follow every change without moving the rows of the store
+    @Test
+    void testSortedViews() {
+        store.add(new Order(customer, productB, 1, LocalDate.of(2023, Month.MARCH, 1)));
+        store.add(new Order(otherCustomer, productA, 2, LocalDate.of(2023, Month.JANUARY, 1)));
+        SortedOrderView byDate = store.sortedBy(SortedOrderView.By.DATE);
+        SortedOrderView byCustomer = store.sortedBy(SortedOrderView.By.CUSTOMER);
+        assertEquals(2, byDate.get(0).getQuantity());
+        assertEquals(otherCustomer.getId(), byCustomer.get(0).getCustomerId(), "Jane comes before John.");
+
+        store.add(new Order(customer, productA, 3, LocalDate.of(2022, Month.JUNE, 1)));
+        store.add(new Order(customer, productB, 4, LocalDate.of(2023, Month.JANUARY, 1)));
+        assertEquals(3, byDate.get(0).getQuantity());
+        assertEquals(2, byDate.get(1).getQuantity());
+        assertEquals(4, byDate.get(2).getQuantity(), "Orders on the same day should keep their order.");
+        assertEquals(1, store.quantity(0), "The store itself should not be sorted.");
+
+        store.remove(1);
+        assertEquals(3, byDate.size());
+        assertEquals(4, byDate.get(1).getQuantity());
+        assertEquals(productA.getId(), store.sortedBy(SortedOrderView.By.PRODUCT).get(0).getProductId());
+    }
+
+    // A large view should agree with a full sort after random removals
+    @Test
+    void testSortedViewMatchesSort() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            store.add(new Order(customer, productA, i + 1, LocalDate.ofEpochDay(19_000 + random.nextInt(700))));
+        }
+        SortedOrderView byDate = store.sortedBy(SortedOrderView.By.DATE);
+        for (int i = 0; i < 5_000; i++) {
+            store.remove(random.nextInt(store.size()));
+            store.add(new Order(customer, productA, 100_000 + i, LocalDate.ofEpochDay(19_000 + random.nextInt(700))));
+        }
+
+        OrderStore sorted = store.copy();
+        sorted.sortByDate();
+        assertEquals(sorted.size(), byDate.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), byDate.get(i));
+        }
+    }
+
+    // Sales totals should follow added, replaced and removed orders, and match a fresh scan
+    @Test
+    void testAnalyticsFollowChanges() {
+        store.add(new Order(customer, productA, 2, LocalDate.of(2023, Month.JANUARY, 5)));
+        SalesAnalytics analytics = store.analytics();
+        store.add(new Order(otherCustomer, productB, 10, LocalDate.of(2023, Month.JANUARY, 6)));
+        store.add(new Order(customer, productB, 3, LocalDate.of(2023, Month.MARCH, 1)));
+
+        assertEquals(new SalesAnalytics.Totals(4700, 15, 3), analytics.overall());
+        assertEquals(new SalesAnalytics.Totals(2000, 10, 1), analytics.forCustomer(otherCustomer.getId()));
+        assertEquals(new SalesAnalytics.Totals(4100, 12, 2), analytics.forMonth(YearMonth.of(2023, 1)));
+        assertArrayEquals(new long[]{productB.getId(), productA.getId()}, analytics.topProducts(5));
+
+        store.set(1, new Order(otherCustomer, productA, 1, LocalDate.of(2023, Month.FEBRUARY, 1)));
+        store.remove(2);
+        store.sortByDate();
+
+        assertEquals(new SalesAnalytics.Totals(3150, 3, 2), analytics.overall());
+        assertEquals(new SalesAnalytics.Totals(0, 0, 0), analytics.forProduct(productB.getId()));
+        assertArrayEquals(new long[]{customer.getId(), otherCustomer.getId()}, analytics.topCustomers(5));
+        assertEquals(List.of(YearMonth.of(2023, 1), YearMonth.of(2023, 2)), List.copyOf(analytics.byMonth().keySet()));
+        assertEquals(new SalesAnalytics(store).byMonth(), analytics.byMonth());
+    }
+
+    // Totals are kept per id seen, not in arrays as long as the largest id
+    @Test
+    void testAnalyticsWithLargeIds() {
+        // appended by id, so no Product pushes the ids of later products this high
+        long farProductId = 1_000_000_000;
+        store.append(customer.getId(), farProductId, 4, (int) LocalDate.of(2023, Month.JANUARY, 5).toEpochDay(), 100);
+        store.add(new Order(customer, productA, 1, LocalDate.of(2023, Month.JANUARY, 6)));
+
+        SalesAnalytics analytics = store.analytics();
+        assertEquals(new SalesAnalytics.Totals(400, 4, 1), analytics.forProduct(farProductId));
+        assertArrayEquals(new long[]{productA.getId(), farProductId}, analytics.topProducts(5));
+        assertEquals(new SalesAnalytics.Totals(0, 0, 0), analytics.forProduct(1_000_000_001));
+    }
+}
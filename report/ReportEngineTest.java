@@ -0,0 +1,105 @@
+package com.example.storegui.report;
+
+import com.example.storegui.order.OrderStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+// Test class for ReportEngine
+class ReportEngineTest {
+
+    private OrderStore store;
+
+    // This method is called before each test; enough orders for several ranges per thread
+    @BeforeEach
+    void setUp() {
+        store = new OrderStore();
+        Random random = new Random(7);
+        int firstDay = (int) LocalDate.of(2022, 1, 1).toEpochDay();
+        for (int i = 0; i < 300_000; i++) {
+            store.append(random.nextInt(50), random.nextInt(20), 1 + random.nextInt(3),
+                    firstDay + random.nextInt(730), 100 * (1 + random.nextInt(9)));
+        }
+    }
+
+    // The groups should add up to the store's totals, whatever the number of threads
+    @Test
+    void testParallelMatchesSingleThread() {
+        ReportEngine.Report single = report(1, ReportEngine.Key.CUSTOMER, ReportEngine.Key.PRODUCT, ReportEngine.Key.WEEK);
+        ReportEngine.Report parallel = report(4, ReportEngine.Key.CUSTOMER, ReportEngine.Key.PRODUCT, ReportEngine.Key.WEEK);
+
+        assertEquals(single.getGroupCount(), parallel.getGroupCount());
+        long revenue = 0;
+        long orders = 0;
+        for (int i = 0; i < parallel.getRows().size(); i++) {
+            ReportEngine.Row row = parallel.getRows().get(i);
+            assertEquals(single.getRows().get(i).revenueCents(), row.revenueCents(), "Rows should be ranked the same.");
+            revenue += row.revenueCents();
+            orders += row.orders();
+        }
+        assertEquals(store.totalCents(), revenue);
+        assertEquals(store.size(), orders);
+    }
+
+    // Grouping by nothing gives one row, a date range and a limit cut it down
+    @Test
+    void testTotalsRangeAndLimit() {
+        ReportEngine.Report total = report(2);
+        assertEquals(1, total.getRows().size());
+        assertEquals(store.totalCents(), total.getRows().get(0).revenueCents());
+
+        ReportEngine.Report months = new ReportEngine.Builder()
+                .groupBy(ReportEngine.Key.MONTH)
+                .measures(ReportEngine.Measure.ORDERS)
+                .between(LocalDate.of(2022, 3, 1), LocalDate.of(2022, 5, 31))
+                .limit(2)
+                .build()
+                .run(store);
+        assertEquals(3, months.getGroupCount());
+        assertEquals(2, months.getRows().size());
+        assertTrue(List.of("2022-03", "2022-04", "2022-05").contains(months.label(months.getRows().get(0), 0)));
+    }
+
+    // Weeks should be labelled by ISO week and written out as CSV
+    @Test
+    void testWeekLabelAndCsv() throws IOException {
+        OrderStore one = new OrderStore();
+        one.append(1, 2, 3, (int) LocalDate.of(2024, 1, 3).toEpochDay(), 250);
+        ReportEngine.Report report = new ReportEngine.Builder()
+                .groupBy(ReportEngine.Key.WEEK, ReportEngine.Key.DAY_OF_WEEK)
+                .measures(ReportEngine.Measure.REVENUE, ReportEngine.Measure.UNITS)
+                .build()
+                .run(one);
+
+        StringBuilder csv = new StringBuilder();
+        report.writeCsv(csv);
+        assertEquals("week,day_of_week,revenue,units\n2024-W01,WEDNESDAY,7.50,3\n", csv.toString());
+    }
+
+    // Years and months should add up to the same totals, and a builder should build the same engine twice
+    @Test
+    void testYearsMonthsAndBuilderReuse() {
+        ReportEngine.Builder builder = new ReportEngine.Builder().groupBy(ReportEngine.Key.YEAR, ReportEngine.Key.MONTH);
+        ReportEngine.Report first = builder.build().run(store);
+        assertEquals(List.of(ReportEngine.Measure.REVENUE), first.getMeasures());
+        assertEquals(24, first.getGroupCount());
+        long revenue = 0;
+        for (ReportEngine.Row row : first.getRows()) {
+            assertTrue(first.label(row, 1).startsWith(first.label(row, 0) + "-"), "The month should be in its year.");
+            revenue += row.revenueCents();
+        }
+        assertEquals(store.totalCents(), revenue);
+
+        ReportEngine.Report second = builder.measures(ReportEngine.Measure.UNITS).build().run(store);
+        assertEquals(List.of(ReportEngine.Measure.UNITS), second.getMeasures(), "Building should not add a default measure to the builder.");
+    }
+
+    private ReportEngine.Report report(int threads, ReportEngine.Key... keys) {
+        return new ReportEngine.Builder().groupBy(keys).parallelism(threads).build().run(store);
+    }
+}
@@ -1,70 +1,207 @@
 package com.example.storegui;
 
+import com.example.storegui.customer.Customer;
+import com.example.storegui.generator.StoreGenerator;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.Order;
+import com.example.storegui.product.Product;
+import com.example.storegui.utils.StoreCodec;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Heap footprint of the store, for sizing -Xmx. Generates a store of the given size with the seeded
+ * StoreGenerator and measures the heap each customer, product and order retains, as the difference in heap used after
+ * a full GC before and after creating them; this includes everything they keep alive, such as their
+ * strings. Orders are measured both as Order objects and as
+ * rows of an OrderStore, the form the application keeps them in. The store is then encoded and
+ * loaded back while every GC pause is recorded, and the numbers are projected onto the largest
+ * store that fits in this JVM's maximum heap and a few common ones.
+ *
+ * Usage: MemoryExperiment [orders] [customers] [products], e.g. run with -Xmx2g
+ */
 public class MemoryExperiment {
 
-    public static void main(String[] args) {
+    // Share of the heap the store may fill, the rest is left for the GC and the rest of the application
+    private static final double USABLE_HEAP = 0.7;
+
+    private static final long MB = 1024 * 1024;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int customerCount = args.length > 1 ? Integer.parseInt(args[1]) : orderCount / 100 + 1;
+        int productCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        System.out.printf("Max heap %d MB, collectors %s%n", maxHeap / MB,
+                ManagementFactory.getGarbageCollectorMXBeans().stream().map(GarbageCollectorMXBean::getName).toList());
+        long baseline = usedAfterGc();
+
+        // Per entity footprint; the generator makes the same customers and products for the same seed and sizes
+        long before = usedAfterGc();
+        List<Customer> customers = generate(customerCount, 0, 0).getCustomers();
+        double bytesPerCustomer = (double) (usedAfterGc() - before) / customerCount;
+
+        before = usedAfterGc();
+        List<Product> products = generate(0, productCount, 0).getProducts();
+        double bytesPerProduct = (double) (usedAfterGc() - before) / productCount;
+
+        // the whole store, less what its customers and products take, leaves the rows of its orders
+        before = usedAfterGc();
+        StoreData storeData = generate(customerCount, productCount, orderCount);
+        double bytesPerOrderRow = (usedAfterGc() - before - bytesPerCustomer * customerCount
+                - bytesPerProduct * productCount) / orderCount;
+        customers = null;
+        products = null;
+
+        before = usedAfterGc();
+        List<Order> orders = new ArrayList<>(storeData.getOrders());
+        double bytesPerOrderObject = (double) (usedAfterGc() - before) / orderCount;
+        orders = null;
+
+        System.out.printf("%n%-24s %10s %14s%n", "retained", "count", "bytes each");
+        System.out.printf("%-24s %10d %14.1f%n", "Customer", customerCount, bytesPerCustomer);
+        System.out.printf("%-24s %10d %14.1f%n", "Product", productCount, bytesPerProduct);
+        System.out.printf("%-24s %10d %14.1f%n", "Order object", orderCount, bytesPerOrderObject);
+        System.out.printf("%-24s %10d %14.1f%n", "OrderStore row", orderCount, bytesPerOrderRow);
 
-        System.out.println("Stack Size Experiment:");
-        runStackExperiment();
+        // Loading: the encoded file is held in memory while it is decoded, as when the store is read
+        byte[] encoded = StoreCodec.encode(storeData);
+        storeData = null;
+        long retainedBeforeLoad = usedAfterGc();
 
-        System.out.println("\nHeap Size Experiment:");
-        runHeapExperiment();
+        PauseRecorder pauses = new PauseRecorder();
+        resetPeaks();
+        long start = System.nanoTime();
+        StoreData loaded = StoreCodec.decode(ByteBuffer.wrap(encoded));
+        long loadNanos = System.nanoTime() - start;
+        // notifications of the last collections arrive shortly after them
+        Thread.sleep(200);
+        pauses.stop();
+        long peak = peakUsed();
+        System.out.printf("%nLoaded %d orders from %d MB in %.1f ms%n", loaded.getOrders().size(),
+                encoded.length / MB, loadNanos / 1e6);
+        System.out.printf("GC during load: %d pauses, %d ms total, %d ms longest%n",
+                pauses.count.get(), pauses.totalMillis.get(), pauses.maxMillis.get());
+        System.out.printf("Peak heap during load %d MB, %d MB before it%n", peak / MB, retainedBeforeLoad / MB);
+
+        // Capacity: what one more order costs, with its share of customers and products, and the
+        // transient cost of its encoded bytes while loading
+        double bytesPerOrder = bytesPerOrderRow + bytesPerCustomer * customerCount / orderCount
+                + bytesPerProduct * productCount / orderCount;
+        double loadBytesPerOrder = (double) encoded.length / orderCount;
+        System.out.printf("%nEach order costs %.1f bytes kept plus %.1f bytes while loading%n",
+                bytesPerOrder, loadBytesPerOrder);
+        System.out.printf("%-12s %16s%n", "-Xmx", "max orders");
+        System.out.printf("%-12s %16d  (this JVM)%n", maxHeap / MB + "m", maxOrders(maxHeap, baseline, bytesPerOrder, loadBytesPerOrder));
+        for (long heap : new long[]{512 * MB, 1024 * MB, 2048 * MB, 4096 * MB, 8192 * MB}) {
+            System.out.printf("%-12s %16d%n", heap / MB + "m", maxOrders(heap, baseline, bytesPerOrder, loadBytesPerOrder));
+        }
     }
 
-    // Heap Size Experiment
-    private static void runHeapExperiment() {
-        // This will create a large number of objects to fill the heap
-        List<long[]> objects = new ArrayList<>();
-        int count = 0;
-        long startTime = System.nanoTime(); // Start time for heap experiment
-
-        try {
-            // Continuously create large objects until an OutOfMemoryError occurs
-            while (true) {
-                objects.add(new long[100_000]); // Create large objects
-                count++;
-                if (count % 100 == 0) {
-                    long currentTime = System.nanoTime();
-                    System.out.println("Objects created: " + count +
-                            ", Time elapsed: " + (currentTime - startTime) / 1_000_000_000.0 + " seconds.");
-                }
+    // Orders that fit in the usable part of the heap, with the store being loaded
+    private static long maxOrders(long maxHeap, long baseline, double bytesPerOrder, double loadBytesPerOrder) {
+        return Math.max(0, (long) ((maxHeap * USABLE_HEAP - baseline) / (bytesPerOrder + loadBytesPerOrder)));
+    }
+
+    private static StoreData generate(int customers, int products, int orders) {
+        return new StoreGenerator.Builder().customers(customers).products(products).orders(orders).build().generate();
+    }
+
+    // Heap in use once garbage is collected; collects until the number stops dropping, as one
+    // System.gc() doesn't always free everything unreachable
+    private static long usedAfterGc() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = heapUsed();
+            if (now >= used - used / 1000) {
+                return Math.min(used, now);
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
             }
-        } catch (OutOfMemoryError e) {
-            // Catch the OutOfMemoryError and print the number of objects created
-            long endTime = System.nanoTime();
-            System.out.println("OutOfMemoryError occurred.");
-            System.out.println("Total objects created: " + count);
-            System.out.println("Time taken: " + (endTime - startTime) / 1_000_000_000.0 + " seconds.");
         }
     }
 
-    // Stack Size Experiment
-    private static void runStackExperiment() {
-        long startTime = System.nanoTime();
-        try {
-            // This will create a large number of recursive calls to fill the stack
-            recursiveMethod(0, startTime);
-        } catch (StackOverflowError e) {
-            // Catch the StackOverflowError and print the depth of recursion
-            long endTime = System.nanoTime();
-            System.out.println("StackOverflowError occurred.");
-            System.out.println("Time taken: " + (endTime - startTime) / 1_000_000_000.0 + " seconds.");
+    // Sum of the heap pools' peaks; they may peak at different moments, so this is an upper bound
+    private static long peakUsed() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
         }
+        return peak;
     }
 
-    // Recursive method to fill the stack
-    private static void recursiveMethod(int depth, long startTime) {
-        // Simulate some work in the recursive method
-        if (depth % 100 == 0) {
-            // Print the current depth and time elapsed
-            long currentTime = System.nanoTime();
-            System.out.println("Recursion depth: " + depth +
-                    ", Time elapsed: " + (currentTime - startTime) / 1_000_000_000.0 + " seconds.");
+    // GC notification actions that end a pause. G1 (JDK 20 and later), ZGC and Shenandoah also report their
+    // concurrent work on collectors of their own, as "end of concurrent GC pause" or "end of GC cycle".
+    private static final Set<String> PAUSE_ACTIONS = Set.of("end of minor GC", "end of major GC", "end of GC pause");
+
+    // Records the duration of every GC pause from creation until stop(), from the collectors' notifications;
+    // notifications of concurrent work are skipped
+    private static final class PauseRecorder {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        private final NotificationListener listener = (notification, _) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                if (!PAUSE_ACTIONS.contains(info.getGcAction())) {
+                    return;
+                }
+                long millis = info.getGcInfo().getDuration();
+                count.incrementAndGet();
+                totalMillis.addAndGet(millis);
+                maxMillis.accumulateAndGet(millis, Math::max);
+            }
+        };
+
+        PauseRecorder() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter emitter) {
+                    emitter.addNotificationListener(listener, null, null);
+                }
+            }
+        }
+
+        void stop() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter emitter) {
+                    try {
+                        emitter.removeNotificationListener(listener);
+                    } catch (ListenerNotFoundException e) {
+                        // never added
+                    }
+                }
+            }
         }
-        // Recursively call the method to increase the depth
-        recursiveMethod(depth + 1, startTime);
     }
-}
\ No newline at end of file
+}
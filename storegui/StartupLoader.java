@@ -0,0 +1,178 @@
+package com.example.storegui;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.customer.CustomerController;
+import com.example.storegui.database.DatabaseConnection;
+import com.example.storegui.order.OrderController;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+import com.example.storegui.product.ProductController;
+import com.example.storegui.utils.DataManager;
+import com.example.storegui.utils.MappedStore;
+import com.example.storegui.utils.ObservableRecordList;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Loads what the tabs show while the window is already up. The store file is opened and the database
+ * connected on two background threads at once. Customers and products are decoded a page at a time
+ * and appended to the lists their tabs show, so the first ones appear right away; orders are decoded
+ * last into a column store and handed to the order tab. The tabs are disabled until then, as anything
+ * added or loaded meanwhile would be mixed up with, or appended twice to, the records being loaded.
+ * A progress bar follows the records decoded so far, and the time from launch until every tab is
+ * filled is logged as the time to interactive.
+ */
+public class StartupLoader {
+
+    // Records appended to a tab's list per UI update
+    private static final int PAGE_SIZE = 1000;
+
+    private final OrderController orderController;
+    private final ProgressBar progressBar;
+    private final Label statusLabel;
+
+    // Views of the tabs that change records, disabled while loading
+    private final List<Node> editors;
+
+    // One thread for the store file and one for the database
+    private final ExecutorService loader = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "startup-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The lists the customer and product tabs show
+    private ObservableRecordList<Customer> customers;
+    private ObservableRecordList<Product> products;
+
+    // Records decoded so far, out of the total in the store file's header
+    private final AtomicLong decoded = new AtomicLong();
+    private volatile long total;
+    private volatile String phase = "Opening store";
+
+    // Set while a progress update waits on the FX thread, so a fast load doesn't flood it
+    private final AtomicBoolean progressQueued = new AtomicBoolean();
+
+    public StartupLoader(OrderController orderController, ProgressBar progressBar, Label statusLabel,
+                         List<Node> editors) {
+        this.orderController = orderController;
+        this.progressBar = progressBar;
+        this.statusLabel = statusLabel;
+        this.editors = editors;
+    }
+
+    // Starts loading, called on the FX thread once the window is showing
+    public void start() {
+        customers = CustomerController.getCustomers();
+        products = ProductController.getProducts();
+        editors.forEach(editor -> editor.setDisable(true));
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        statusLabel.setText(phase + "...");
+
+        CompletableFuture<Boolean> database = CompletableFuture.runAsync(DatabaseConnection::getInstance, loader)
+                .handle((_, failure) -> {
+                    if (failure != null) {
+                        System.err.println("Failed to establish database connection: " + cause(failure).getMessage());
+                        return false;
+                    }
+                    System.out.println("Database connection established successfully.");
+                    return true;
+                });
+        CompletableFuture<MappedStore> store = CompletableFuture.supplyAsync(this::loadStore, loader);
+
+        store.handle((_, failure) -> failure)
+                .thenCombine(database, (failure, connected) -> {
+                    Platform.runLater(() -> finish(failure, connected));
+                    return null;
+                })
+                .whenComplete((_, _) -> loader.shutdown());
+    }
+
+    // Runs on a loader thread
+    private MappedStore loadStore() {
+        MappedStore store;
+        try {
+            store = DataManager.getInstance().openStore();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        total = (long) store.getCustomerCount() + store.getProductCount() + store.getOrderCount();
+
+        phase = "Loading customers";
+        appendPages(store.getCustomerCount(), store::getCustomer, customers);
+        phase = "Loading products";
+        appendPages(store.getProductCount(), store::getProduct, products);
+
+        phase = "Loading orders";
+        showProgress();
+        OrderStore orders = store.orderStore();
+        decoded.addAndGet(store.getOrderCount());
+        Platform.runLater(() -> orderController.showOrders(orders));
+        return store;
+    }
+
+    // Decodes the records a page at a time, appending each page to the list on the FX thread
+    private <T> void appendPages(int count, IntFunction<T> decoder, ObservableRecordList<T> target) {
+        for (int start = 0; start < count; start += PAGE_SIZE) {
+            int end = Math.min(count, start + PAGE_SIZE);
+            List<T> page = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                page.add(decoder.apply(i));
+            }
+            decoded.addAndGet(page.size());
+            Platform.runLater(() -> target.addAll(page));
+            showProgress();
+        }
+    }
+
+    private void showProgress() {
+        if (progressQueued.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                progressQueued.set(false);
+                long all = total;
+                progressBar.setProgress(all == 0 ? ProgressBar.INDETERMINATE_PROGRESS : (double) decoded.get() / all);
+                statusLabel.setText(phase + "...");
+            });
+        }
+    }
+
+    // Runs on the FX thread after every page has been shown
+    private void finish(Throwable failure, boolean connected) {
+        editors.forEach(editor -> editor.setDisable(false));
+        progressBar.setVisible(false);
+        progressBar.setManaged(false);
+        String database = connected ? "" : " Database unavailable.";
+        if (failure != null) {
+            System.err.println("Failed to load the store file: " + cause(failure).getMessage());
+            statusLabel.setText("Could not load the store file." + database);
+        } else {
+            statusLabel.setText("Loaded " + customers.size() + " customers, " + products.size() + " products and "
+                    + OrderController.getOrders().size() + " orders." + database);
+        }
+        System.out.println("Time to interactive: " + ManagementFactory.getRuntimeMXBean().getUptime()
+                + " ms after launch (" + decoded.get() + " records loaded).");
+    }
+
+    private static Throwable cause(Throwable failure) {
+        while ((failure instanceof CompletionException || failure instanceof UncheckedIOException)
+                && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+}
@@ -3,7 +3,7 @@ package com.example.storegui.customer;
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Represents a customer in the store system
 public class Customer implements Serializable {
@@ -11,18 +11,27 @@ public class Customer implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    // Id for the next customer built without one, kept above every id built with so far
+    private static final AtomicLong nextId = new AtomicLong(1);
+
+    private final long id;      // Stable id, orders refer to customers by it
     private final String name;  // Customer's full name
     private final String email; // Customer's email address
     private final LocalDate dob;   // Customer's date of birth
 
     // Private constructor to enforce the use of the Builder
-    private Customer(Builder builder) {
+    private Customer(Builder builder, long id) {
+        this.id = id;
         this.name = builder.name;
         this.email = builder.email;
         this.dob = builder.dob;
     }
 
     // Getters
+    public long getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -42,12 +51,30 @@ public class Customer implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Customer customer = (Customer) o;
-        return Objects.equals(name, customer.name);
+        return id == customer.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        return Long.hashCode(id);
+    }
+
+    // Customers saved before they had ids are given one when read
+    @Serial
+    private Object readResolve() {
+        if (id == 0) {
+            return new Builder().setName(name).setEmail(email).setDob(dob).build();
+        }
+        reserved(id);
+        return this;
+    }
+
+    // Keeps new ids above an id that is already taken
+    private static long reserved(long id) {
+        if (id >= nextId.get()) {
+            nextId.accumulateAndGet(id + 1, Math::max);
+        }
+        return id;
     }
 
     // Format: "Customer - Email - dob"
@@ -58,10 +85,17 @@ public class Customer implements Serializable {
 
     // Static nested Builder class
     public static class Builder {
+        private long id;
         private String name;
         private String email;
         private LocalDate dob;
 
+        // Setter for id, only needed for customers that already have one; 0 assigns a new id
+        public Builder setId(long id) {
+            this.id = id;
+            return this;
+        }
+
         // Setter for name
         public Builder setName(String name) {
             this.name = name;
@@ -91,7 +125,10 @@ public class Customer implements Serializable {
             if (dob == null) {
                 throw new IllegalArgumentException("Date of birth cannot be null.");
             }
-            return new Customer(this);
+            if (id < 0) {
+                throw new IllegalArgumentException("Id cannot be negative.");
+            }
+            return new Customer(this, id != 0 ? reserved(id) : nextId.getAndIncrement());
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,12 @@
 package com.example.storegui.customer;
 
+import com.example.storegui.events.ViewRefreshEvent;
+import com.example.storegui.metrics.Counter;
+import com.example.storegui.metrics.LatencyHistogram;
+import com.example.storegui.metrics.Metrics;
 import com.example.storegui.utils.DataManager;
+import com.example.storegui.utils.ObservableRecordList;
+import com.example.storegui.utils.StoreJournal;
 import com.example.storegui.model.StoreData;
 import com.example.storegui.order.OrderController;
 import com.example.storegui.product.ProductController;
@@ -13,16 +19,31 @@ import javafx.stage.Stage;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 // Represents the functions of the Customer Tab in the store system
 public class CustomerController {
 
-    // Array to hold the list of customers
-    private static ArrayList<Customer> customerList = new ArrayList<>();
+    // Observable list of customers, shown by the list view itself so every change updates only its own rows
+    private static final ObservableRecordList<Customer> customerList = new ObservableRecordList<>();
+
+    // Number of customers added to the list per UI update when loading from the database
+    private static final int DATABASE_PAGE_SIZE = 1000;
+
+    // Time from the click to the result of each action, and actions that failed, see Metrics
+    private static final LatencyHistogram CREATE_TIME = Metrics.getInstance().histogram("ui.customer.create");
+    private static final LatencyHistogram SAVE_TIME = Metrics.getInstance().histogram("ui.customer.save");
+    private static final LatencyHistogram LOAD_TIME = Metrics.getInstance().histogram("ui.customer.load");
+    private static final Counter FAILURES = Metrics.getInstance().counter("ui.customer.failures");
+    private static final LatencyHistogram FIRST_PAGE_TIME = Metrics.getInstance().histogram("ui.customer.firstPage");
 
     // Variable for using CustomerView class
     private final CustomerView view;
 
+    // Cancellation flag of the database load currently running, if any
+    private AtomicBoolean databaseLoadCancelled;
+
     public CustomerController(CustomerView view, Stage primaryStage) {
 
         // CustomerView class
@@ -36,6 +57,7 @@ public class CustomerController {
 
     // adding a customer
     void addCustomer() {
+        long start = System.nanoTime();
         // retrieves all text from input fields
         String name = view.getNameField().getText();
         String email = view.getEmailField().getText();
@@ -50,6 +72,7 @@ public class CustomerController {
                         .setDob(dob)
                         .build();
                 customerList.add(customer);
+                DataManager.getInstance().recordChange(StoreJournal.Entry.customerAdded(customer), this::journalFailed);
 
                 // clear all the fields
                 view.getNameField().clear();
@@ -57,8 +80,10 @@ public class CustomerController {
                 view.getDobField().setValue(null);
 
                 updateDisplay();
+                CREATE_TIME.recordSince(start);
             } catch (IllegalArgumentException e) {
                 // handle validation errors from the Builder
+                FAILURES.increment();
                 showAlert(e.getMessage());
             }
         } else {
@@ -69,51 +94,103 @@ public class CustomerController {
 
     // save customer list to a file
     private void saveCustomers() {
+        saveCustomers("All data saved successfully.");
+    }
+
+    // save customer list to a file, showing the given message once it is written
+    private void saveCustomers(String savedMessage) {
         StoreData storeData = new StoreData(); // create a new StoreData object
         storeData.setCustomers(customerList); // set the customer list
         storeData.setProducts(ProductController.getProducts()); // set the product list
         storeData.setOrders(OrderController.getOrders()); // set the order list
 
         // save the data in a separate thread
+        long start = System.nanoTime();
         DataManager.getInstance().saveAllDataInThread(storeData,
-                () -> showAlert("All data saved successfully."),
-                () -> showAlert("Error saving all data.")
+                () -> {
+                    SAVE_TIME.recordSince(start);
+                    showAlert(savedMessage);
+                },
+                () -> {
+                    FAILURES.increment();
+                    showAlert("Error saving all data.");
+                }
         );
     }
 
-    // load customer list to a file
+    // load customer list from a file, records are only decoded once they are shown or used
     private void loadCustomers() {
-        DataManager.getInstance().loadAllDataInThread(storeData -> {
-            customerList = storeData.getCustomers();
-            ProductController.setProducts(storeData.getProducts());
-            OrderController.setOrders(storeData.getOrders());
+        long start = System.nanoTime();
+        DataManager.getInstance().openStoreInThread(store -> {
+            setCustomers(store.customers());
+            ProductController.setProducts(store.products());
+            OrderController.setOrders(store.orderStore());
             updateDisplay();
+            LOAD_TIME.recordSince(start);
             showAlert("All data loaded successfully.");
-        }, () -> showAlert("Error loading all data."));
+        }, () -> {
+            FAILURES.increment();
+            showAlert("Error loading all data.");
+        });
     }
 
-    // save customer to database
-    private void saveCustomerToDatabase(Customer customer) {
-        try {
-            CustomerDAO.saveCustomer(customer);
-            showAlert("Customer saved successfully.");
-        } catch (SQLException e) {
-            showAlert("Error saving customer: " + e.getMessage());
-        }
+    // save all customers to database in one batched transaction
+    private void saveCustomersToDatabase() {
+        // copy the list so the save isn't affected by edits made while it runs
+        ArrayList<Customer> snapshot = new ArrayList<>(customerList);
+
+        new Thread(() -> {
+            try {
+                int saved = CustomerDAO.saveCustomers(snapshot);
+                showAlert(saved + " customers saved successfully.");
+            } catch (SQLException e) {
+                FAILURES.increment();
+                showAlert("Error saving customers: " + e.getMessage());
+            }
+        }).start();
     }
 
-    // load customers from database
+    // load customers from database, streaming pages into the list from a background thread
     private void loadCustomersFromDatabase() {
-        try {
-            // clear the current list
-            customerList.clear();
-            // load customers from the database
-            customerList.addAll(CustomerDAO.loadAllCustomers());
-            updateDisplay();
-            showAlert("Customers loaded successfully from the database.");
-        } catch (SQLException e) {
-            showAlert("Error loading customers: " + e.getMessage());
+        // cancel a load that is still running so the two don't interleave
+        if (databaseLoadCancelled != null) {
+            databaseLoadCancelled.set(true);
         }
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        databaseLoadCancelled = cancelled;
+
+        // clear the current list
+        customerList.clear();
+        updateDisplay();
+
+        long startTime = System.nanoTime();
+        new Thread(() -> {
+            AtomicBoolean firstPage = new AtomicBoolean(true);
+            try {
+                int loaded = CustomerDAO.streamCustomers(CustomerDAO.DEFAULT_FETCH_SIZE, DATABASE_PAGE_SIZE, page -> {
+                    if (firstPage.getAndSet(false)) {
+                        FIRST_PAGE_TIME.recordSince(startTime);
+                    }
+                    // append each page on the FX thread as soon as it is read
+                    Platform.runLater(() -> {
+                        if (!cancelled.get()) {
+                            customerList.addAll(page); // the list view shows the same list
+                        }
+                    });
+                }, cancelled::get);
+
+                // replacing the customers isn't journaled, so once every page is in the list it is
+                // saved in a full snapshot; until then the file still holds the customers from before
+                Platform.runLater(() -> {
+                    if (!cancelled.get()) {
+                        saveCustomers(loaded + " customers loaded successfully from the database.");
+                    }
+                });
+            } catch (SQLException | RuntimeException e) {
+                FAILURES.increment();
+                showAlert("Error loading customers: " + e.getMessage());
+            }
+        }).start();
     }
 
     // confirmation popup for removing a customer
@@ -143,6 +220,7 @@ public class CustomerController {
         alert.showAndWait().ifPresent(choice -> {
             if (choice == removeYes) {
                 customerList.remove(selected);
+                DataManager.getInstance().recordChange(StoreJournal.Entry.customerRemoved(selected), this::journalFailed);
                 updateDisplay();
             }
         });
@@ -176,6 +254,12 @@ public class CustomerController {
         });
     }
 
+    // The change stays queued and is written once the journal works again, or with the next save
+    private void journalFailed() {
+        FAILURES.increment();
+        showAlert("Error saving the change, it will be saved again shortly.");
+    }
+
     // displays warning when an issue occurs
     public void showAlert(String message) {
         Platform.runLater(() -> {
@@ -201,11 +285,7 @@ public class CustomerController {
         });
         view.getRemoveButton().setOnAction(_ -> confirmRemove());
 
-        view.getSaveToDatabase().setOnAction(_ -> {
-            for (Customer customer : customerList) {
-                saveCustomerToDatabase(customer);
-            }
-        });
+        view.getSaveToDatabase().setOnAction(_ -> saveCustomersToDatabase());
         view.getLoadFromDatabase().setOnAction(_ -> loadCustomersFromDatabase());
     }
 
@@ -217,18 +297,26 @@ public class CustomerController {
         });
     }
 
-    // clears text area and appends all customer details
+    // shows the customer list in the list view; changes to it show up by themselves after that
     private void updateDisplay() {
-        view.getCustomerListView().getItems().setAll(customerList);
+        if (view.getCustomerListView().getItems() != customerList) {
+            ViewRefreshEvent event = new ViewRefreshEvent();
+            event.begin();
+            view.getCustomerListView().setItems(customerList);
+            event.finish("customers.list", customerList.size());
+        }
     }
 
     // returning the finished list of customers
-    public static ArrayList<Customer> getCustomers() {
+    public static ObservableRecordList<Customer> getCustomers() {
         return customerList;
     }
 
-    // method to help load customers
-    public static void setCustomers(ArrayList<Customer> customers) {
-        customerList = customers;
+    // method to help load customers; the list keeps its identity and holds these from now on, not copied,
+    // so the list view, pickers and filters showing it follow
+    public static void setCustomers(List<Customer> customers) {
+        if (customers != customerList) {
+            customerList.setContents(customers);
+        }
     }
 }
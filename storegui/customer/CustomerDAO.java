@@ -1,17 +1,128 @@
 package com.example.storegui.customer;
 
 import com.example.storegui.database.DatabaseConnection;
+import com.example.storegui.events.DatabaseQueryEvent;
+import com.example.storegui.metrics.Counter;
+import com.example.storegui.metrics.LatencyHistogram;
+import com.example.storegui.metrics.Metrics;
+import com.example.storegui.metrics.TimedEvent;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 public class CustomerDAO {
 
+    // Number of rows sent to the database per executeBatch call
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // Number of rows the driver fetches per round trip when streaming
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO Customer (name, email, dob) VALUES (?, ?, ?)";
+
+    // Timings, rows and failed calls, see Metrics
+    private static final LatencyHistogram INSERT_TIME = Metrics.getInstance().histogram("db.customer.insert");
+    private static final LatencyHistogram SAVE_TIME = Metrics.getInstance().histogram("db.customer.save");
+    private static final LatencyHistogram LOAD_TIME = Metrics.getInstance().histogram("db.customer.load");
+    private static final Counter ROWS_SAVED = Metrics.getInstance().counter("db.customer.rowsSaved");
+    private static final Counter ROWS_LOADED = Metrics.getInstance().counter("db.customer.rowsLoaded");
+    private static final Counter FAILURES = Metrics.getInstance().counter("db.customer.failures");
+
     // Save a single customer to the database
     public static void saveCustomer(Customer customer) throws SQLException {
-        // Validate customer object
+        validateCustomer(customer);
+
+        TimedEvent<DatabaseQueryEvent> timing = TimedEvent.start(INSERT_TIME, new DatabaseQueryEvent());
+        // Use try-with-resources to ensure the connection and statement are closed
+        try (Connection connection = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+
+            // Set parameters
+            bindCustomer(statement, customer);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            FAILURES.increment();
+            timing.fail(query("customer.insert", 0, false));
+            throw e;
+        }
+        ROWS_SAVED.increment();
+        timing.finish(query("customer.insert", 1, true));
+    }
+
+    // Save many customers in a single transaction using JDBC batching
+    public static int saveCustomers(Collection<Customer> customers) throws SQLException {
+        return saveCustomers(customers, DEFAULT_BATCH_SIZE);
+    }
+
+    // Save many customers in a single transaction, sending batchSize rows per round trip
+    public static int saveCustomers(Collection<Customer> customers, int batchSize) throws SQLException {
+        if (customers == null) {
+            throw new IllegalArgumentException("Customers cannot be null.");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        // Validate everything up front so a bad row doesn't leave a half-written batch
+        for (Customer customer : customers) {
+            validateCustomer(customer);
+        }
+        if (customers.isEmpty()) {
+            return 0;
+        }
+
+        TimedEvent<DatabaseQueryEvent> timing = TimedEvent.start(SAVE_TIME, new DatabaseQueryEvent());
+        int saved = 0;
+        try (Connection connection = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+
+            connection.setAutoCommit(false);
+            try {
+                int pending = 0;
+                for (Customer customer : customers) {
+                    bindCustomer(statement, customer);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        saved += countUpdates(statement.executeBatch(), pending);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    saved += countUpdates(statement.executeBatch(), pending);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                // Nothing is saved if any batch fails
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            FAILURES.increment();
+            timing.fail(query("customer.saveBatch", 0, false));
+            throw e;
+        }
+        ROWS_SAVED.add(saved);
+        timing.finish(query("customer.saveBatch", saved, true));
+        return saved;
+    }
+
+    // Fields of the JFR event of a DAO call, set if the recording wants it
+    private static Consumer<DatabaseQueryEvent> query(String operation, int rows, boolean succeeded) {
+        return event -> {
+            event.operation = operation;
+            event.rows = rows;
+            event.succeeded = succeeded;
+        };
+    }
+
+    // Checks that a customer has every field the Customer table requires
+    private static void validateCustomer(Customer customer) {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null.");
         }
@@ -24,52 +135,100 @@ public class CustomerDAO {
         if (customer.getDob() == null) {
             throw new IllegalArgumentException("Customer date of birth cannot be null.");
         }
+    }
 
-        // Prepare SQL statement
-        String sql = "INSERT INTO Customer (name, email, dob) VALUES (?, ?, ?)";
-        // Use try-with-resources to ensure the connection and statement are closed
-        try (Connection connection = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    // Sets the insert parameters for a customer
+    private static void bindCustomer(PreparedStatement statement, Customer customer) throws SQLException {
+        statement.setString(1, customer.getName());
+        statement.setString(2, customer.getEmail());
+        statement.setDate(3, Date.valueOf(customer.getDob()));
+    }
 
-            // Set parameters
-            statement.setString(1, customer.getName());
-            statement.setString(2, customer.getEmail());
-            statement.setDate(3, Date.valueOf(customer.getDob()));
-            statement.executeUpdate();
+    // Adds up the rows reported by executeBatch, some drivers only report SUCCESS_NO_INFO
+    private static int countUpdates(int[] results, int batchRows) {
+        int count = 0;
+        for (int result : results) {
+            if (result == Statement.SUCCESS_NO_INFO) {
+                return batchRows;
+            }
+            count += result;
         }
+        return count;
     }
 
     // Load all customers from the database
     public static List<Customer> loadAllCustomers() throws SQLException {
-        String sql = "SELECT name, email, dob FROM Customer"; // SQL query to select all customers
         List<Customer> customers = new ArrayList<>(); // List to hold customer objects
+        streamCustomers(DEFAULT_FETCH_SIZE, DEFAULT_FETCH_SIZE, customers::addAll, () -> false);
+        return customers;
+    }
+
+    // Stream customers from the database a page at a time using a forward-only cursor,
+    // so the first page arrives without waiting for the whole table. Returns the number of rows read.
+    public static int streamCustomers(int fetchSize, int pageSize, Consumer<List<Customer>> onPage,
+                                      BooleanSupplier isCancelled) throws SQLException {
+        if (fetchSize <= 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Fetch size and page size must be positive.");
+        }
+        String sql = "SELECT name, email, dob FROM Customer"; // SQL query to select all customers
+        TimedEvent<DatabaseQueryEvent> timing = TimedEvent.start(LOAD_TIME, new DatabaseQueryEvent());
+        int count = 0;
 
         // Use try-with-resources to ensure the connection, statement, and result set are closed
         try (Connection connection = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
-
-            // Iterate through the result set and create customer objects
-            while (resultSet.next()) {
-                String name = resultSet.getString("name");
-                String email = resultSet.getString("email");
-                Date dobDate = resultSet.getDate("dob");
-
-                // Validate retrieved data
-                if (name == null || name.isEmpty() || email == null || email.isEmpty() || dobDate == null) {
-                    throw new SQLException("Invalid data retrieved from the database.");
-                }
+             PreparedStatement statement = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Ask the driver to pull rows in chunks instead of buffering the full result
+            statement.setFetchSize(fetchSize);
 
-                // Create a new customer object
-                LocalDate dob = dobDate.toLocalDate();
-                Customer customer = new Customer.Builder() // Use Builder pattern for creating customer objects
-                        .setName(name)
-                        .setEmail(email)
-                        .setDob(dob)
-                        .build();
-                customers.add(customer);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<Customer> page = new ArrayList<>(pageSize);
+
+                // Iterate through the result set and create customer objects
+                while (resultSet.next()) {
+                    if (isCancelled.getAsBoolean()) {
+                        break;
+                    }
+                    page.add(readCustomer(resultSet));
+                    count++;
+                    if (page.size() == pageSize) {
+                        onPage.accept(page);
+                        page = new ArrayList<>(pageSize);
+                    }
+                }
+                if (!page.isEmpty() && !isCancelled.getAsBoolean()) {
+                    onPage.accept(page);
+                }
             }
+        } catch (SQLException e) {
+            FAILURES.increment();
+            timing.fail(query("customer.load", count, false));
+            throw e;
         }
-        return customers;
+        ROWS_LOADED.add(count);
+        timing.finish(query("customer.load", count, true));
+        return count;
+    }
+
+    // Create a customer object from the current row
+    private static Customer readCustomer(ResultSet resultSet) throws SQLException {
+        String name = resultSet.getString("name");
+        String email = resultSet.getString("email");
+        Date dobDate = resultSet.getDate("dob");
+
+        // Validate retrieved data
+        if (name == null || name.isEmpty() || email == null || email.isEmpty() || dobDate == null) {
+            throw new SQLException("Invalid data retrieved from the database.");
+        }
+
+        LocalDate dob = dobDate.toLocalDate();
+        Customer customer = new Customer.Builder() // Use Builder pattern for creating customer objects
+                .setName(name)
+                .setEmail(email)
+                .setDob(dob)
+                .build();
+        // the table has no id column, so every load gives its customers new ids
+        return customer;
     }
 }
\ No newline at end of file
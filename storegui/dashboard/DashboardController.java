@@ -0,0 +1,80 @@
+package com.example.storegui.dashboard;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.events.ViewRefreshEvent;
+import com.example.storegui.model.EntityTables;
+import com.example.storegui.order.OrderController;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.order.SalesAnalytics;
+import com.example.storegui.product.Product;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Represents the functions of the Dashboard Tab in the store system
+public class DashboardController {
+
+    // Variable for using DashboardView class
+    private final DashboardView view;
+
+    public DashboardController(DashboardView view) {
+        this.view = view;
+
+        // loading actions
+        view.getRefreshButton().setOnAction(_ -> refresh());
+        view.getTopCountDropdown().setOnAction(_ -> refresh());
+        refresh();
+    }
+
+    // Shows the current figures, read from the running totals of the orders instead of going over them
+    public void refresh() {
+        OrderStore orders = OrderController.getOrders();
+        if (orders == null) {
+            view.getTotalsLabel().setText("No orders have been created.");
+            return;
+        }
+        ViewRefreshEvent event = new ViewRefreshEvent();
+        event.begin();
+        SalesAnalytics analytics = orders.analytics();
+        EntityTables entities = orders.entities();
+        int top = view.getTopCountDropdown().getValue() == null ? 10 : view.getTopCountDropdown().getValue();
+
+        SalesAnalytics.Totals overall = analytics.overall();
+        view.getTotalsLabel().setText("Revenue: " + euros(overall.revenueCents()) + " - Units sold: " + overall.units()
+                + " - Orders: " + overall.orders());
+
+        // Best selling products
+        List<String> products = new ArrayList<>();
+        for (long productId : analytics.topProducts(top)) {
+            Product product = entities.getProduct(productId);
+            products.add(describe(product == null ? "?" : product.getName(), analytics.forProduct(productId)));
+        }
+        view.getTopProductsList().getItems().setAll(products);
+
+        // Best customers
+        List<String> customers = new ArrayList<>();
+        for (long customerId : analytics.topCustomers(top)) {
+            Customer customer = entities.getCustomer(customerId);
+            customers.add(describe(customer == null ? "?" : customer.getName(), analytics.forCustomer(customerId)));
+        }
+        view.getTopCustomersList().getItems().setAll(customers);
+
+        // Sales per month, latest first
+        List<String> months = new ArrayList<>();
+        for (Map.Entry<YearMonth, SalesAnalytics.Totals> month : analytics.byMonth().entrySet()) {
+            months.add(0, describe(month.getKey().toString(), month.getValue()));
+        }
+        view.getMonthsList().getItems().setAll(months);
+        event.finish("dashboard", products.size() + customers.size() + months.size());
+    }
+
+    private static String describe(String name, SalesAnalytics.Totals totals) {
+        return name + " - " + euros(totals.revenueCents()) + " (" + totals.units() + " units, " + totals.orders() + " orders)";
+    }
+
+    private static String euros(long cents) {
+        return String.format("€%d.%02d", cents / 100, Math.abs(cents % 100));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.storegui.dashboard;
+
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+// Represents the UI of the Dashboard Tab in the store system
+public class DashboardView {
+
+    // Revenue, units and orders of all orders
+    private final Label totalsLabel = new Label();
+
+    // Number of best sellers and best customers to show
+    private final ComboBox<Integer> topCountDropdown = new ComboBox<>();
+
+    private final Button refreshButton;
+
+    // Lists for the best selling products, the best customers and the sales per month
+    private final ListView<String> topProductsList = new ListView<>();
+    private final ListView<String> topCustomersList = new ListView<>();
+    private final ListView<String> monthsList = new ListView<>();
+
+    public DashboardView() {
+        // UI Elements
+        topCountDropdown.getItems().addAll(5, 10, 25, 100);
+        topCountDropdown.setValue(10);
+        topCountDropdown.setTooltip(new Tooltip("Number of products and customers to show"));
+
+        refreshButton = new Button("Refresh");
+        Tooltip refreshTooltip = new Tooltip("Click to update the figures with the latest orders");
+        refreshButton.setTooltip(refreshTooltip);
+
+        // Set ListView Display
+        topProductsList.setPrefHeight(200);
+        topCustomersList.setPrefHeight(200);
+        monthsList.setPrefHeight(200);
+    }
+
+    public VBox getView() {
+        // Create Title
+        Label titleLabel = new Label("Sales Dashboard");
+
+        // One column per list, each with its heading
+        VBox productsBox = new VBox(5, new Label("Top Products"), topProductsList);
+        VBox customersBox = new VBox(5, new Label("Top Customers"), topCustomersList);
+        VBox monthsBox = new VBox(5, new Label("Sales per Month"), monthsList);
+        HBox listsBox = new HBox(10, productsBox, customersBox, monthsBox);
+        HBox controlBox = new HBox(10, new Label("Show top"), topCountDropdown, refreshButton);
+
+        // Organize elements vertically with padding
+        VBox root = new VBox(10, titleLabel, totalsLabel, controlBox, listsBox);
+        root.setPadding(new javafx.geometry.Insets(10));
+
+        // HBox and Vbox returned as the View
+        return root;
+    }
+
+    // Getters for UI components
+    public Label getTotalsLabel() { return totalsLabel; }
+    public ComboBox<Integer> getTopCountDropdown() { return topCountDropdown; }
+    public Button getRefreshButton() { return refreshButton; }
+    public ListView<String> getTopProductsList() { return topProductsList; }
+    public ListView<String> getTopCustomersList() { return topCustomersList; }
+    public ListView<String> getMonthsList() { return monthsList; }
+}
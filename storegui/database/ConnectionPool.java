@@ -0,0 +1,489 @@
+package com.example.storegui.database;
+
+import com.example.storegui.events.ConnectionBorrowEvent;
+import com.example.storegui.events.ConnectionLeakEvent;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections. Borrowed connections are handed out as proxies whose
+ * close() returns the physical connection to the pool, so callers can keep using try-with-resources.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    // Connection settings
+    private final String url;
+    private final String user;
+    private final String password;
+
+    // Pool settings
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    // Idle connections (most recently returned first) and the ones currently handed out
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private int totalConnections;
+    private boolean closed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionReturned = lock.newCondition();
+
+    // Background thread for idle eviction and leak detection
+    private final ScheduledExecutorService housekeeper;
+
+    // Borrow/return timings
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowNanos = new AtomicLong();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final AtomicLong returnCount = new AtomicLong();
+    private final AtomicLong heldNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    // Private constructor to enforce the use of the Builder
+    private ConnectionPool(Builder builder) throws SQLException {
+        this.url = builder.url;
+        this.user = builder.user;
+        this.password = builder.password;
+        this.minSize = builder.minSize;
+        this.maxSize = builder.maxSize;
+        this.borrowTimeoutMillis = builder.borrowTimeoutMillis;
+        this.validationTimeoutSeconds = builder.validationTimeoutSeconds;
+        this.idleTimeoutMillis = builder.idleTimeoutMillis;
+        this.leakThresholdMillis = builder.leakThresholdMillis;
+
+        // Open the minimum number of connections up front so the first DAO call doesn't pay for them,
+        // closing the ones already opened if the database refuses one partway through
+        try {
+            for (int i = 0; i < minSize; i++) {
+                idle.addLast(new PooledConnection(openPhysical()));
+                totalConnections++;
+            }
+        } catch (SQLException e) {
+            for (PooledConnection pooled : idle) {
+                closePhysical(pooled);
+            }
+            idle.clear();
+            totalConnections = 0;
+            throw e;
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                builder.housekeepingIntervalMillis, builder.housekeepingIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Borrow a connection, waiting up to the borrow timeout if the pool is exhausted
+    public Connection borrow() throws SQLException {
+        ConnectionBorrowEvent event = new ConnectionBorrowEvent();
+        event.begin();
+        Connection connection = null;
+        try {
+            connection = acquire(event);
+            return connection;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.succeeded = connection != null;
+                event.commit();
+            }
+        }
+    }
+
+    // Takes an idle connection or opens one, noting in the event whether it waited, opened or dropped any
+    private Connection acquire(ConnectionBorrowEvent event) throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mayCreate = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool has been closed.");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        // reserve a slot and open the connection outside the lock
+                        totalConnections++;
+                        mayCreate = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out after " + borrowTimeoutMillis
+                                + " ms waiting for a database connection (pool size " + maxSize + ").");
+                    }
+                    event.waited = true;
+                    try {
+                        connectionReturned.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection.", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mayCreate) {
+                event.opened = true;
+                try {
+                    candidate = new PooledConnection(openPhysical());
+                } catch (SQLException e) {
+                    discardSlot();
+                    throw e;
+                }
+            } else if (!isValid(candidate)) {
+                // stale connection, drop it and try again
+                event.staleDropped++;
+                closePhysical(candidate);
+                discardSlot();
+                continue;
+            }
+
+            candidate.borrowedAt = System.nanoTime();
+            candidate.borrowSite = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            borrowed.add(candidate);
+            recordBorrow(candidate.borrowedAt - start);
+            return candidate.newHandle();
+        }
+    }
+
+    // Give a physical connection back to the pool
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        heldNanos.addAndGet(System.nanoTime() - pooled.borrowedAt);
+        returnCount.incrementAndGet();
+
+        // Reset state a caller may have left behind (e.g. an abandoned transaction)
+        boolean reusable;
+        try {
+            reusable = !pooled.physical.isClosed();
+            if (reusable && !pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                pooled.lastReturnedAt = System.nanoTime();
+                idle.addFirst(pooled);
+                connectionReturned.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closePhysical(pooled);
+        discardSlot();
+    }
+
+    // Evicts idle connections above the minimum size and reports connections held for too long
+    private void housekeep() {
+        long now = System.nanoTime();
+
+        lock.lock();
+        try {
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && totalConnections > minSize) {
+                PooledConnection pooled = oldestFirst.next();
+                if (now - pooled.lastReturnedAt < TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis)) {
+                    break;
+                }
+                oldestFirst.remove();
+                totalConnections--;
+                evictedCount.incrementAndGet();
+                closePhysical(pooled);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis)) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    reportLeak(pooled, now);
+                }
+            }
+        }
+    }
+
+    // Records a JFR event with the borrow site, so leaks show up alongside the borrow events in a recording
+    private void reportLeak(PooledConnection pooled, long now) {
+        ConnectionLeakEvent event = new ConnectionLeakEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.heldMillis = TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt);
+        event.thresholdMillis = leakThresholdMillis;
+        Throwable borrowSite = pooled.borrowSite;
+        if (borrowSite != null) {
+            StringWriter trace = new StringWriter();
+            borrowSite.printStackTrace(new PrintWriter(trace));
+            event.borrowSite = trace.toString();
+        }
+        event.commit();
+    }
+
+    // Returns a snapshot of the pool's size and borrow/return timings
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            long borrows = borrowCount.get();
+            long returns = returnCount.get();
+            return new PoolStats(
+                    totalConnections,
+                    idle.size(),
+                    borrowed.size(),
+                    borrows,
+                    borrows == 0 ? 0 : borrowNanos.get() / borrows,
+                    maxBorrowNanos.get(),
+                    returns == 0 ? 0 : heldNanos.get() / returns,
+                    createdCount.get(),
+                    evictedCount.get(),
+                    leakCount.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Closes every idle connection; borrowed connections are closed as they are returned
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            for (PooledConnection pooled : idle) {
+                closePhysical(pooled);
+                totalConnections--;
+            }
+            idle.clear();
+            connectionReturned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closePhysical(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // the connection is being thrown away anyway
+        }
+    }
+
+    // Frees a slot reserved for a connection that never made it (back) into the pool
+    private void discardSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            connectionReturned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordBorrow(long nanos) {
+        borrowCount.incrementAndGet();
+        borrowNanos.addAndGet(nanos);
+        maxBorrowNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // A physical connection plus the bookkeeping the pool needs for it
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long lastReturnedAt = System.nanoTime();
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        // Wraps the physical connection so that close() hands it back instead of disconnecting
+        private Connection newHandle() {
+            leakReported = false;
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean returned;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned) {
+                                returned = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned || physical.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Pooled" + physical;
+                        }
+                        default -> {
+                            if (returned) {
+                                throw new SQLException("Connection has already been returned to the pool.");
+                            }
+                            try {
+                                return method.invoke(physical, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, handler);
+        }
+    }
+
+    // Point-in-time view of the pool, timings are in nanoseconds
+    public record PoolStats(int totalConnections, int idleConnections, int borrowedConnections,
+                            long borrowCount, long averageBorrowNanos, long maxBorrowNanos,
+                            long averageHeldNanos, long createdCount, long evictedCount, long leakCount) {
+    }
+
+    // Static nested Builder class
+    public static class Builder {
+        private String url;
+        private String user;
+        private String password;
+        private int minSize = 2;
+        private int maxSize = 10;
+        private long borrowTimeoutMillis = 5_000;
+        private int validationTimeoutSeconds = 2;
+        private long idleTimeoutMillis = 60_000;
+        private long leakThresholdMillis = 30_000;
+        private long housekeepingIntervalMillis = 10_000;
+
+        // Setter for the JDBC url and credentials
+        public Builder setUrl(String url, String user, String password) {
+            this.url = url;
+            this.user = user;
+            this.password = password;
+            return this;
+        }
+
+        // Setter for the number of connections kept open even when idle
+        public Builder setMinSize(int minSize) {
+            this.minSize = minSize;
+            return this;
+        }
+
+        // Setter for the maximum number of open connections
+        public Builder setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        // Setter for how long borrow() waits when every connection is in use
+        public Builder setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+            this.borrowTimeoutMillis = borrowTimeoutMillis;
+            return this;
+        }
+
+        // Setter for the Connection.isValid timeout used when validating on borrow
+        public Builder setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+            this.validationTimeoutSeconds = validationTimeoutSeconds;
+            return this;
+        }
+
+        // Setter for how long a connection may sit idle before it is evicted
+        public Builder setIdleTimeoutMillis(long idleTimeoutMillis) {
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            return this;
+        }
+
+        // Setter for how long a connection may be held before it is reported as leaked (0 disables)
+        public Builder setLeakThresholdMillis(long leakThresholdMillis) {
+            this.leakThresholdMillis = leakThresholdMillis;
+            return this;
+        }
+
+        // Setter for how often eviction and leak detection run
+        public Builder setHousekeepingIntervalMillis(long housekeepingIntervalMillis) {
+            this.housekeepingIntervalMillis = housekeepingIntervalMillis;
+            return this;
+        }
+
+        // Build method to create and pre-fill the pool
+        public ConnectionPool build() throws SQLException {
+            if (url == null || url.isEmpty()) {
+                throw new IllegalArgumentException("Database url cannot be null or empty.");
+            }
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Pool size must satisfy 0 <= min <= max and max >= 1.");
+            }
+            if (housekeepingIntervalMillis <= 0) {
+                throw new IllegalArgumentException("Housekeeping interval must be positive.");
+            }
+            return new ConnectionPool(this);
+        }
+    }
+}
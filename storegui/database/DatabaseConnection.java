@@ -1,46 +1,86 @@
 package com.example.storegui.database;
 
+import com.example.storegui.metrics.Counter;
+import com.example.storegui.metrics.LatencyHistogram;
+import com.example.storegui.metrics.Metrics;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
-// Singleton class to manage database connection
+// Singleton class to manage the pool of database connections
 public class DatabaseConnection {
     private static DatabaseConnection instance;
-    private Connection connection;
-    private static final String URL = "jdbc:mysql://localhost:3306/storeGui";
+    private final ConnectionPool pool;
+    // cursor fetch lets setFetchSize stream rows, rewriting batches sends each executeBatch as multi-row inserts
+    private static final String URL = "jdbc:mysql://localhost:3306/storeGui?useCursorFetch=true&rewriteBatchedStatements=true";
     private static final String USER = "root";
     private static final String PASSWORD = "ROOT";
 
+    // Pool sizing
+    private static final int MIN_POOL_SIZE = 2;
+    private static final int MAX_POOL_SIZE = 10;
+
+    // Time to borrow a connection and failed borrows, see Metrics
+    private static final LatencyHistogram BORROW_TIME = Metrics.getInstance().histogram("db.connection.borrow");
+    private static final Counter BORROW_FAILURES = Metrics.getInstance().counter("db.connection.failures");
+
     // Private constructor to prevent instantiation
-    private DatabaseConnection() {
-        try {
-            connection = DriverManager.getConnection(URL, USER, PASSWORD); // Establishing connection
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to connect to the database.");
-        }
+    private DatabaseConnection(ConnectionPool pool) {
+        this.pool = pool;
+        // Gauges of the current pool, replaced when configure() swaps it
+        Metrics.getInstance().gauge("db.pool.idle", () -> pool.getStats().idleConnections());
+        Metrics.getInstance().gauge("db.pool.borrowed", () -> pool.getStats().borrowedConnections());
     }
 
     // Public method to get the Singleton instance
     public static synchronized DatabaseConnection getInstance() {
         if (instance == null) {
-            instance = new DatabaseConnection();
+            try {
+                instance = new DatabaseConnection(new ConnectionPool.Builder()
+                        .setUrl(URL, USER, PASSWORD)
+                        .setMinSize(MIN_POOL_SIZE)
+                        .setMaxSize(MAX_POOL_SIZE)
+                        .build()); // Establishing the initial connections
+            } catch (SQLException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Failed to connect to the database.");
+            }
         }
         return instance;
     }
 
-    // Method to get the database connection
+    // Replaces the Singleton's pool, e.g. to point the DAOs at an embedded test database
+    public static synchronized void configure(ConnectionPool pool) {
+        if (instance != null) {
+            instance.pool.close();
+        }
+        instance = new DatabaseConnection(pool);
+    }
+
+    // Closes every pooled connection, the next getInstance() call opens a new pool
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.pool.close();
+            instance = null;
+        }
+    }
+
+    // Method to borrow a database connection, closing it returns it to the pool
     public Connection getConnection() {
+        long start = System.nanoTime();
         try {
-            // Check if the connection is closed and reconnect if necessary
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            }
+            Connection connection = pool.borrow();
+            BORROW_TIME.recordSince(start);
+            return connection;
         } catch (SQLException e) {
+            BORROW_FAILURES.increment();
             e.printStackTrace();
-            throw new RuntimeException("Failed to reconnect to the database.");
+            throw new RuntimeException("Failed to obtain a database connection: " + e.getMessage());
         }
-        return connection;
     }
-}
\ No newline at end of file
+
+    // Borrow/return timings of the pool
+    public ConnectionPool.PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for borrowing a connection from the pool, see ConnectionPool
+@Name("com.example.storegui.ConnectionBorrow")
+@Label("Connection Borrow")
+@Category({"Store-Gui", "Database"})
+@Description("A connection borrowed from the pool, possibly waiting for one or opening a new one")
+public class ConnectionBorrowEvent extends Event {
+
+    @Label("Opened")
+    @Description("A new physical connection was opened to the database")
+    public boolean opened;
+
+    @Label("Stale Connections Dropped")
+    @Description("Idle connections that failed validation and were closed first")
+    public int staleDropped;
+
+    @Label("Waited")
+    @Description("Every connection was in use, so the borrow waited for one to be returned")
+    public boolean waited;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,29 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// JFR event for a borrowed connection held past the pool's leak threshold, see ConnectionPool
+@Name("com.example.storegui.ConnectionLeak")
+@Label("Connection Leak")
+@Category({"Store-Gui", "Database"})
+@Description("A connection borrowed from the pool and not returned within the leak threshold")
+public class ConnectionLeakEvent extends Event {
+
+    @Label("Held")
+    @Description("How long the connection had been borrowed when it was reported")
+    @Timespan(Timespan.MILLISECONDS)
+    public long heldMillis;
+
+    @Label("Leak Threshold")
+    @Timespan(Timespan.MILLISECONDS)
+    public long thresholdMillis;
+
+    @Label("Borrow Site")
+    @Description("Stack trace of the borrow() call that took the connection")
+    public String borrowSite;
+}
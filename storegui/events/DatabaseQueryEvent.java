@@ -0,0 +1,26 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for a call of a DAO, from borrowing the connection to the last row
+@Name("com.example.storegui.DatabaseQuery")
+@Label("Database Query")
+@Category({"Store-Gui", "Database"})
+@Description("A DAO call, including the time to borrow its connection")
+public class DatabaseQueryEvent extends Event {
+
+    @Label("Operation")
+    @Description("The DAO call, e.g. customer.insert or customer.load")
+    public String operation;
+
+    @Label("Rows")
+    @Description("Rows inserted or read")
+    public int rows;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
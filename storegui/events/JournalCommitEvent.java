@@ -0,0 +1,26 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for a group of changes appended to the journal with one fsync
+@Name("com.example.storegui.JournalCommit")
+@Label("Journal Commit")
+@Category({"Store-Gui", "Persistence"})
+@Description("Changes appended to the store journal and forced to disk")
+public class JournalCommitEvent extends Event {
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
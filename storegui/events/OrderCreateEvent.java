@@ -0,0 +1,28 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for creating an order from the Orders tab, including the stock reservation
+@Name("com.example.storegui.OrderCreate")
+@Label("Order Create")
+@Category({"Store-Gui", "UI"})
+@Description("An order created from the Orders tab, or turned down")
+public class OrderCreateEvent extends Event {
+
+    @Label("Customer Id")
+    public long customerId;
+
+    @Label("Product Id")
+    public long productId;
+
+    @Label("Quantity")
+    public int quantity;
+
+    @Label("Outcome")
+    @Description("created, invalid input or out of stock")
+    public String outcome;
+}
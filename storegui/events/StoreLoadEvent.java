@@ -0,0 +1,39 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for reading the whole store, decoding a snapshot and replaying the journal after it
+@Name("com.example.storegui.StoreLoad")
+@Label("Store Load")
+@Category({"Store-Gui", "Persistence"})
+@Description("The store decoded from a snapshot file, with the journaled changes made after it")
+public class StoreLoadEvent extends Event {
+
+    @Label("File")
+    @Description("Snapshot the store was read from, empty when there was none")
+    public String file;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytes;
+
+    @Label("Customers")
+    public int customers;
+
+    @Label("Products")
+    public int products;
+
+    @Label("Orders")
+    public int orders;
+
+    @Label("Journal Entries Replayed")
+    public int replayedEntries;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,27 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for mapping the snapshot file, rewriting it first when it is missing or out of date
+@Name("com.example.storegui.StoreOpen")
+@Label("Store Open")
+@Category({"Store-Gui", "Persistence"})
+@Description("The snapshot file mapped into memory; records are decoded later, when they are used")
+public class StoreOpenEvent extends Event {
+
+    @Label("Bytes Mapped")
+    @DataAmount
+    public long bytes;
+
+    @Label("Rebuilt")
+    @Description("The snapshot had to be loaded and written again before it could be mapped")
+    public boolean rebuilt;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
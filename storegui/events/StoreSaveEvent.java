@@ -0,0 +1,35 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for writing a full snapshot of the store, see DataManager
+@Name("com.example.storegui.StoreSave")
+@Label("Store Save")
+@Category({"Store-Gui", "Persistence"})
+@Description("A full snapshot of the store written to disk")
+public class StoreSaveEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Customers")
+    public int customers;
+
+    @Label("Products")
+    public int products;
+
+    @Label("Orders")
+    public int orders;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
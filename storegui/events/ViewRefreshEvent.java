@@ -0,0 +1,32 @@
+package com.example.storegui.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for items put into a list, table or dropdown on the FX thread
+@Name("com.example.storegui.ViewRefresh")
+@Label("View Refresh")
+@Category({"Store-Gui", "UI"})
+@Description("Items shown anew in a list view, table or dropdown")
+public class ViewRefreshEvent extends Event {
+
+    @Label("View")
+    @Description("The control refreshed, e.g. customers.list or dashboard")
+    public String view;
+
+    @Label("Items")
+    public int items;
+
+    // Ends the event and writes it if the recording wants it
+    public void finish(String view, int items) {
+        end();
+        if (shouldCommit()) {
+            this.view = view;
+            this.items = items;
+            commit();
+        }
+    }
+}
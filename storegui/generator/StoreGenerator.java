@@ -0,0 +1,415 @@
+package com.example.storegui.generator;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic customers, products and orders for load and scale tests, the same for the same seed
+ * and sizes however many threads generate them, apart from the ids, which continue from those
+ * already handed out. Product popularity follows a Zipf distribution, so
+ * a few products take most of the orders, and customer activity does too, to a lesser degree.
+ * Orders are in date order, as in a store that has been taking them for years, with more of them
+ * in later years, in November and December and at weekends. Orders are generated in blocks on
+ * worker threads, each block from a random generator seeded by the seed and the block's number,
+ * and appended to the OrderStore in block order.
+ */
+public class StoreGenerator {
+
+    // Orders generated as one task
+    private static final int BLOCK_ROWS = 1 << 16;
+
+    // Relative number of orders per month, January first, and per day of the week, Monday first
+    private static final double[] MONTH_WEIGHTS = {0.8, 0.75, 0.9, 0.95, 1.0, 0.95, 0.9, 0.95, 1.0, 1.05, 1.3, 1.8};
+    private static final double[] DAY_OF_WEEK_WEIGHTS = {1.0, 0.95, 0.95, 1.0, 1.1, 1.35, 1.2};
+
+    // Quantity 1 in 60% of the orders, and every next quantity up to 10 in 40% of the previous one's
+    private static final Picker QUANTITY_PICKER = new Picker(
+            IntStream.range(0, 10).mapToDouble(q -> 0.6 * Math.pow(0.4, q)).toArray());
+
+    // Orders per day grow by this factor every year
+    private static final double YEARLY_GROWTH = 1.15;
+
+    private static final String[] FIRST_NAMES = {
+            "Olivia", "Liam", "Emma", "Noah", "Ava", "Lucas", "Mia", "Milan", "Sophie", "Daan", "Julia", "Sem",
+            "Anna", "Finn", "Sara", "Levi", "Eva", "Luuk", "Lotte", "Jesse", "Nora", "Thomas", "Fleur", "Max"};
+    private static final String[] LAST_NAMES = {
+            "de Jong", "Jansen", "de Vries", "van den Berg", "Bakker", "Visser", "Smit", "Meijer", "Mulder",
+            "de Boer", "Bos", "Vos", "Peters", "Hendriks", "Dekker", "Brouwer", "Smith", "Johnson", "Brown",
+            "Garcia", "Martin", "Müller", "Rossi", "Novak"};
+    private static final String[] ADJECTIVES = {
+            "Classic", "Compact", "Deluxe", "Eco", "Ergonomic", "Portable", "Premium", "Rugged", "Smart",
+            "Vintage", "Wireless", "Modern"};
+    private static final String[] NOUNS = {
+            "Lamp", "Chair", "Desk", "Kettle", "Backpack", "Headphones", "Speaker", "Blender", "Umbrella",
+            "Notebook", "Mug", "Jacket", "Sneakers", "Watch", "Toaster", "Monitor"};
+
+    private final long seed;
+    private final int customerCount;
+    private final int productCount;
+    private final int orderCount;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final double productSkew;
+    private final double customerSkew;
+    private final int threads;
+
+    private StoreGenerator(Builder builder) {
+        this.seed = builder.seed;
+        this.customerCount = builder.customers;
+        this.productCount = builder.products;
+        this.orderCount = builder.orders;
+        this.from = builder.from;
+        this.to = builder.to;
+        this.productSkew = builder.productSkew;
+        this.customerSkew = builder.customerSkew;
+        this.threads = builder.threads;
+    }
+
+    // A new store holding only generated data
+    public StoreData generate() {
+        StoreData storeData = new StoreData();
+        generateInto(storeData);
+        return storeData;
+    }
+
+    // Adds the generated customers, products and orders to those already in the store
+    public void generateInto(StoreData storeData) {
+        List<Customer> customers = createCustomers();
+        List<Product> products = createProducts();
+        customers.forEach(storeData::addCustomer);
+        products.forEach(storeData::addProduct);
+        appendOrders(storeData.getOrders(), customers, products);
+    }
+
+    private List<Customer> createCustomers() {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate oldest = LocalDate.of(1940, 1, 1);
+        List<Customer> customers = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            customers.add(new Customer.Builder()
+                    .setName(first + " " + last)
+                    .setEmail((first + "." + last).replace(" ", "").toLowerCase(Locale.ROOT) + (i + 1) + "@example.com")
+                    .setDob(oldest.plusDays(random.nextInt(65 * 365)))
+                    .build());
+        }
+        return customers;
+    }
+
+    private List<Product> createProducts() {
+        SplittableRandom random = new SplittableRandom(seed + 1);
+        int combinations = ADJECTIVES.length * NOUNS.length;
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            String adjective = ADJECTIVES[i % ADJECTIVES.length];
+            String noun = NOUNS[i / ADJECTIVES.length % NOUNS.length];
+            String name = adjective + " " + noun + (i < combinations ? "" : " " + (i / combinations + 1));
+            // prices spread evenly on a log scale from 1 to 500 euros, so cheap products are common
+            double price = Math.round(Math.exp(random.nextDouble() * Math.log(500)) * 100) / 100.0;
+            products.add(new Product(name, price, random.nextInt(1_001),
+                    "A " + adjective.toLowerCase(Locale.ROOT) + " " + noun.toLowerCase(Locale.ROOT) + "."));
+        }
+        return products;
+    }
+
+    private void appendOrders(OrderStore orders, List<Customer> customers, List<Product> products) {
+        if (orderCount == 0) {
+            return;
+        }
+        Plan plan = new Plan(customers, products);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "store-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // blocks being generated, oldest first; bounded so the blocks don't all wait in memory at once
+        ArrayDeque<Future<Block>> inFlight = new ArrayDeque<>();
+        try {
+            for (int first = 0; first < orderCount; first += BLOCK_ROWS) {
+                if (inFlight.size() >= threads * 2) {
+                    append(orders, inFlight.poll());
+                }
+                int blockFirst = first;
+                inFlight.add(workers.submit(() -> plan.block(blockFirst, Math.min(orderCount, blockFirst + BLOCK_ROWS))));
+            }
+            while (!inFlight.isEmpty()) {
+                append(orders, inFlight.poll());
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // Runs on the calling thread, so blocks are appended in order
+    private static void append(OrderStore orders, Future<Block> pending) {
+        Block block;
+        try {
+            block = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generating orders was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generating orders failed.", e.getCause());
+        }
+        for (int i = 0; i < block.customerIds.length; i++) {
+            orders.append(block.customerIds[i], block.productIds[i], block.quantities[i], block.epochDays[i],
+                    block.priceCents[i]);
+        }
+    }
+
+    // What every block is generated from, shared read-only by the workers
+    private final class Plan {
+        private final long[] customerIds;
+        private final long[] productIds;
+        private final long[] priceCents;
+        private final Picker customerPicker;
+        private final Picker productPicker;
+
+        // Day i of the range has the orders from firstRowOfDay[i] up to firstRowOfDay[i + 1]
+        private final long[] firstRowOfDay;
+        private final int firstEpochDay;
+
+        Plan(List<Customer> customers, List<Product> products) {
+            // popularity ranks are handed out in a random order, so the popular ones aren't just the first
+            SplittableRandom random = new SplittableRandom(seed + 2);
+            int[] customerByRank = shuffledIndexes(customers.size(), random);
+            customerIds = new long[customerByRank.length];
+            for (int rank = 0; rank < customerByRank.length; rank++) {
+                customerIds[rank] = customers.get(customerByRank[rank]).getId();
+            }
+            int[] productByRank = shuffledIndexes(products.size(), random);
+            productIds = new long[productByRank.length];
+            priceCents = new long[productByRank.length];
+            for (int rank = 0; rank < productByRank.length; rank++) {
+                Product product = products.get(productByRank[rank]);
+                productIds[rank] = product.getId();
+                priceCents[rank] = Math.round(product.getPrice() * 100);
+            }
+            customerPicker = Picker.zipf(customerIds.length, customerSkew);
+            productPicker = Picker.zipf(productIds.length, productSkew);
+
+            // each day gets its share of the orders by weight, so dates only need a lookup, not a sort
+            firstEpochDay = Math.toIntExact(from.toEpochDay());
+            int days = Math.toIntExact(to.toEpochDay() - from.toEpochDay() + 1);
+            double[] cumulative = new double[days + 1];
+            for (int day = 0; day < days; day++) {
+                LocalDate date = from.plusDays(day);
+                double weight = MONTH_WEIGHTS[date.getMonthValue() - 1]
+                        * DAY_OF_WEEK_WEIGHTS[date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue()]
+                        * Math.pow(YEARLY_GROWTH, day / 365.0);
+                cumulative[day + 1] = cumulative[day] + weight;
+            }
+            firstRowOfDay = new long[days + 1];
+            for (int day = 0; day <= days; day++) {
+                firstRowOfDay[day] = Math.round(orderCount * cumulative[day] / cumulative[days]);
+            }
+        }
+
+        Block block(int first, int end) {
+            SplittableRandom random = new SplittableRandom(seed * 31 + first / BLOCK_ROWS);
+            Block block = new Block(end - first);
+            // the day of the first row, then days move on as rows pass their day's last row
+            int day = Arrays.binarySearch(firstRowOfDay, first);
+            day = day >= 0 ? day : -day - 2;
+            for (int i = 0; i < block.customerIds.length; i++) {
+                while (firstRowOfDay[day + 1] <= first + i) {
+                    day++;
+                }
+                int product = productPicker.sample(random);
+                block.customerIds[i] = customerIds[customerPicker.sample(random)];
+                block.productIds[i] = productIds[product];
+                block.priceCents[i] = priceCents[product];
+                block.quantities[i] = 1 + QUANTITY_PICKER.sample(random);
+                block.epochDays[i] = firstEpochDay + day;
+            }
+            return block;
+        }
+    }
+
+    // 0..n-1 in a random order
+    private static int[] shuffledIndexes(int n, SplittableRandom random) {
+        int[] indexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            indexes[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int index = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = index;
+        }
+        return indexes;
+    }
+
+    // Picks 0..n-1, each with a chance proportional to its weight. Uses Vose's alias method, so a pick
+    // is one table lookup rather than a search.
+    private static final class Picker {
+        private final double[] chance;
+        private final int[] alias;
+
+        // Chance of k proportional to 1 / (k + 1)^skew; a skew of 0 is uniform
+        static Picker zipf(int n, double skew) {
+            double[] weights = new double[n];
+            for (int k = 0; k < n; k++) {
+                weights[k] = 1 / Math.pow(k + 1, skew);
+            }
+            return new Picker(weights);
+        }
+
+        Picker(double[] weights) {
+            int n = weights.length;
+            weights = weights.clone();
+            double total = 0;
+            for (double weight : weights) {
+                total += weight;
+            }
+            // scaled so the average is 1; ranks below it are topped up from one above it
+            chance = new double[n];
+            alias = new int[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int k = 0; k < n; k++) {
+                weights[k] = weights[k] * n / total;
+                if (weights[k] < 1) {
+                    small[smallCount++] = k;
+                } else {
+                    large[largeCount++] = k;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                chance[less] = weights[less];
+                alias[less] = more;
+                weights[more] -= 1 - weights[less];
+                if (weights[more] < 1) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            // what is left is 1 up to rounding
+            while (largeCount > 0) {
+                chance[large[--largeCount]] = 1;
+            }
+            while (smallCount > 0) {
+                chance[small[--smallCount]] = 1;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int k = random.nextInt(chance.length);
+            return random.nextDouble() < chance[k] ? k : alias[k];
+        }
+    }
+
+    // The columns of one block of orders
+    private static final class Block {
+        private final long[] customerIds;
+        private final long[] productIds;
+        private final long[] priceCents;
+        private final int[] quantities;
+        private final int[] epochDays;
+
+        Block(int rows) {
+            customerIds = new long[rows];
+            productIds = new long[rows];
+            priceCents = new long[rows];
+            quantities = new int[rows];
+            epochDays = new int[rows];
+        }
+    }
+
+    // Builds a StoreGenerator; by default one customer per hundred orders and 200 products over five years
+    public static class Builder {
+        private long seed = 42;
+        private int customers = -1;
+        private int products = 200;
+        private int orders = 1_000_000;
+        private LocalDate from = LocalDate.of(2020, 1, 1);
+        private LocalDate to = LocalDate.of(2024, 12, 31);
+        private double productSkew = 1.0;
+        private double customerSkew = 0.5;
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder customers(int customers) {
+            this.customers = customers;
+            return this;
+        }
+
+        public Builder products(int products) {
+            this.products = products;
+            return this;
+        }
+
+        public Builder orders(int orders) {
+            this.orders = orders;
+            return this;
+        }
+
+        // Orders are dated between from and to, both included
+        public Builder between(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        // Zipf exponents of product popularity and customer activity, 0 for uniform
+        public Builder skew(double productSkew, double customerSkew) {
+            this.productSkew = productSkew;
+            this.customerSkew = customerSkew;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public StoreGenerator build() {
+            if (customers < 0) {
+                customers = orders / 100 + 1;
+            }
+            if (orders < 0 || products < 0) {
+                throw new IllegalArgumentException("Counts cannot be negative.");
+            }
+            if (orders > 0 && (customers == 0 || products == 0)) {
+                throw new IllegalArgumentException("Orders need at least one customer and one product.");
+            }
+            if (from == null || to == null || to.isBefore(from)) {
+                throw new IllegalArgumentException("The date range must have a start before its end.");
+            }
+            if (productSkew < 0 || customerSkew < 0) {
+                throw new IllegalArgumentException("Skew cannot be negative.");
+            }
+            if (threads <= 0) {
+                throw new IllegalArgumentException("Threads must be positive.");
+            }
+            return new StoreGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.storegui.generator;
+
+import com.example.storegui.customer.CustomerDAO;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.utils.DataManager;
+
+import java.time.LocalDate;
+
+// Generates synthetic data from the command line and saves it through DataManager, added to the
+// store already there unless --replace is given; --database also inserts the new customers:
+// StoreGeneratorCli [--orders N] [--customers N] [--products N] [--seed S] [--threads N]
+//                   [--from yyyy-mm-dd] [--to yyyy-mm-dd] [--skew products customers] [--replace] [--database]
+public class StoreGeneratorCli {
+
+    public static void main(String[] args) throws Exception {
+        StoreGenerator.Builder builder = new StoreGenerator.Builder();
+        LocalDate from = LocalDate.of(2020, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        boolean replace = false;
+        boolean database = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--orders" -> builder.orders(Integer.parseInt(args[++i]));
+                case "--customers" -> builder.customers(Integer.parseInt(args[++i]));
+                case "--products" -> builder.products(Integer.parseInt(args[++i]));
+                case "--seed" -> builder.seed(Long.parseLong(args[++i]));
+                case "--threads" -> builder.threads(Integer.parseInt(args[++i]));
+                case "--from" -> from = LocalDate.parse(args[++i]);
+                case "--to" -> to = LocalDate.parse(args[++i]);
+                case "--skew" -> builder.skew(Double.parseDouble(args[++i]), Double.parseDouble(args[++i]));
+                case "--replace" -> replace = true;
+                case "--database" -> database = true;
+                default -> {
+                    System.err.println("Usage: StoreGeneratorCli [--orders N] [--customers N] [--products N] [--seed S]"
+                            + " [--threads N] [--from yyyy-mm-dd] [--to yyyy-mm-dd] [--skew products customers]"
+                            + " [--replace] [--database]");
+                    System.exit(2);
+                }
+            }
+        }
+        StoreGenerator generator = builder.between(from, to).build();
+
+        DataManager dataManager = DataManager.getInstance();
+        StoreData storeData = replace ? new StoreData() : dataManager.loadAllData();
+        int customersBefore = storeData.getCustomers().size();
+        int productsBefore = storeData.getProducts().size();
+        int ordersBefore = storeData.getOrders().size();
+
+        long start = System.nanoTime();
+        generator.generateInto(storeData);
+        long elapsedNanos = System.nanoTime() - start;
+        int orders = storeData.getOrders().size() - ordersBefore;
+        System.out.printf("Generated %d customers, %d products and %d orders in %.1f ms (%.0f orders/s)%n",
+                storeData.getCustomers().size() - customersBefore, storeData.getProducts().size() - productsBefore,
+                orders, elapsedNanos / 1e6, orders / (elapsedNanos / 1e9));
+
+        if (database) {
+            int inserted = CustomerDAO.saveCustomers(storeData.getCustomers().subList(customersBefore,
+                    storeData.getCustomers().size()));
+            System.out.println("Inserted " + inserted + " customers into the database");
+        }
+
+        start = System.nanoTime();
+        if (dataManager.saveAllData(storeData)) {
+            System.out.printf("Saved %d orders in %.1f ms%n", storeData.getOrders().size(), (System.nanoTime() - start) / 1e6);
+        } else {
+            System.err.println("Error saving all data.");
+            System.exit(1);
+        }
+    }
+}
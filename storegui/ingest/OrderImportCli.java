@@ -0,0 +1,67 @@
+package com.example.storegui.ingest;
+
+import com.example.storegui.inventory.InventoryService;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.utils.DataManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Imports order files into the store from the command line, without starting the GUI:
+// OrderImportCli [--threads N] [--dry-run] file.csv|file.jsonl ...
+public class OrderImportCli {
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean dryRun = false;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--dry-run" -> dryRun = true;
+                default -> files.add(Path.of(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: OrderImportCli [--threads N] [--dry-run] file.csv|file.jsonl ...");
+            System.exit(2);
+        }
+        for (Path file : files) {
+            if (!Files.isReadable(file)) {
+                System.err.println("Cannot read " + file);
+                System.exit(2);
+            }
+        }
+
+        DataManager dataManager = DataManager.getInstance();
+        StoreData storeData = dataManager.loadAllData();
+        System.out.println("Loaded " + storeData.getCustomers().size() + " customers, "
+                + storeData.getProducts().size() + " products and " + storeData.getOrders().size() + " orders");
+
+        // The whole store is saved once at the end, so the stock changes aren't journaled one by one
+        InventoryService inventory = InventoryService.withStockListener(_ -> {
+        });
+        OrderImporter importer = new OrderImporter(storeData.getCustomers(), storeData.getProducts(),
+                storeData.getOrders(), inventory, threads);
+        long imported = 0;
+        for (Path file : files) {
+            OrderImporter.Report report = importer.importFile(file);
+            imported += report.getImported();
+            System.out.println(report);
+            for (String sample : report.getSamples()) {
+                System.out.println("  " + sample);
+            }
+        }
+
+        if (dryRun) {
+            System.out.println("Dry run, " + imported + " orders not saved");
+        } else if (dataManager.saveAllData(storeData)) {
+            System.out.println("Saved " + storeData.getOrders().size() + " orders");
+        } else {
+            System.err.println("Error saving all data.");
+            System.exit(1);
+        }
+    }
+}
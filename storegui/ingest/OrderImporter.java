@@ -0,0 +1,566 @@
+package com.example.storegui.ingest;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.inventory.InventoryService;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports orders from CSV or JSON Lines files without the GUI. Every line names a customer, a product,
+ * a quantity and a date; customers are matched by name, email or id and products by name or id.
+ * The file is read in batches of lines. Worker threads parse and check the lines of a batch and reserve
+ * stock through the InventoryService, while the reading thread appends the finished batches to the
+ * OrderStore in file order and commits their reservations. Lines that can't be imported are counted
+ * by reason instead of stopping the import.
+ * Which of two lines gets the last items of a product depends on the order the workers reach them.
+ * Neither the imported orders nor their stock changes are journaled; the store is saved as a whole
+ * afterwards, as OrderImportCli does, so the journal never holds the stock of orders it lacks.
+ */
+public class OrderImporter {
+
+    private static final int BATCH_LINES = 16_384;
+
+    // Rejected lines kept as examples for the report
+    private static final int MAX_SAMPLES = 20;
+
+    // Why a line was not imported
+    public enum Reject {
+        MALFORMED, UNKNOWN_CUSTOMER, UNKNOWN_PRODUCT, BAD_QUANTITY, BAD_DATE, INSUFFICIENT_STOCK
+    }
+
+    // File formats, chosen by file extension
+    public enum Format {
+        CSV, JSONL;
+
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSONL : CSV;
+        }
+    }
+
+    private final Map<String, Customer> customersByKey = new HashMap<>();
+    private final Map<String, Product> productsByKey = new HashMap<>();
+    private final OrderStore orders;
+    private final InventoryService inventory;
+    private final int threads;
+
+    // Imports into the given orders, checking lines against the given customers and products
+    public OrderImporter(Collection<Customer> customers, Collection<Product> products, OrderStore orders, int threads) {
+        this(customers, products, orders, InventoryService.withStockListener(_ -> {
+        }), threads);
+    }
+
+    // Takes the stock of the imported orders through the given inventory, which shouldn't journal it
+    public OrderImporter(Collection<Customer> customers, Collection<Product> products, OrderStore orders,
+                         InventoryService inventory, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be positive.");
+        }
+        // ids go in last, so a customer or product whose name is a number is found by that name first
+        for (Customer customer : customers) {
+            customersByKey.putIfAbsent(customer.getName(), customer);
+            customersByKey.putIfAbsent(customer.getEmail(), customer);
+        }
+        for (Customer customer : customers) {
+            customersByKey.putIfAbsent(Long.toString(customer.getId()), customer);
+        }
+        for (Product product : products) {
+            productsByKey.putIfAbsent(product.getName(), product);
+        }
+        for (Product product : products) {
+            productsByKey.putIfAbsent(Long.toString(product.getId()), product);
+        }
+        // rows are appended by id, so the store must be able to resolve every customer and product
+        customers.forEach(orders.entities()::add);
+        products.forEach(orders.entities()::add);
+        this.orders = orders;
+        this.inventory = inventory;
+        this.threads = threads;
+    }
+
+    // Imports every line of the file, in the format given by its extension
+    public Report importFile(Path file) throws IOException {
+        return importFile(file, Format.of(file));
+    }
+
+    public Report importFile(Path file, Format format) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report(file);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "order-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // batches being worked on, oldest first; bounded so a huge file isn't read into memory at once
+        ArrayDeque<Future<Batch>> inFlight = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            List<String> lines = new ArrayList<>(BATCH_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && format == Format.CSV && isHeader(line)) {
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == BATCH_LINES) {
+                    submit(workers, inFlight, lines, lineNumber - BATCH_LINES + 1, format, report);
+                    lines = new ArrayList<>(BATCH_LINES);
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(workers, inFlight, lines, lineNumber - lines.size() + 1, format, report);
+            }
+            while (!inFlight.isEmpty()) {
+                append(inFlight.poll(), report);
+            }
+        } finally {
+            // release whatever a failed import still holds
+            for (Future<Batch> pending : inFlight) {
+                releaseQuietly(pending);
+            }
+            workers.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void submit(ExecutorService workers, ArrayDeque<Future<Batch>> inFlight, List<String> lines,
+                        long firstLine, Format format, Report report) throws IOException {
+        if (inFlight.size() >= threads * 2) {
+            append(inFlight.poll(), report);
+        }
+        inFlight.add(workers.submit(() -> parse(lines, firstLine, format)));
+    }
+
+    // Runs on the reading thread, so batches are appended in file order
+    private void append(Future<Batch> pending, Report report) throws IOException {
+        Batch batch;
+        try {
+            batch = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed.", e.getCause());
+        }
+        int appended = 0;
+        try {
+            for (; appended < batch.count; appended++) {
+                orders.append(batch.customerIds[appended], batch.productIds[appended], batch.quantities[appended],
+                        batch.epochDays[appended], batch.priceCents[appended]);
+                inventory.commit(batch.reservations[appended]);
+            }
+        } finally {
+            // if appending failed, the orders that weren't appended give their stock back
+            for (int i = appended; i < batch.count; i++) {
+                inventory.release(batch.reservations[i]);
+            }
+        }
+        report.add(batch);
+    }
+
+    private void releaseQuietly(Future<Batch> pending) {
+        try {
+            Batch batch = pending.get();
+            for (int i = 0; i < batch.count; i++) {
+                inventory.release(batch.reservations[i]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // the batch failed and gave back what it held, see parse
+        }
+    }
+
+    // Runs on a worker thread: parses and checks every line of the batch and reserves its stock
+    private Batch parse(List<String> lines, long firstLine, Format format) {
+        Batch batch = new Batch(lines.size());
+        String[] fields = new String[4];
+        try {
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.lines++;
+                boolean parsed = format == Format.CSV ? splitCsv(line, fields) : splitJson(line, fields);
+                if (!parsed) {
+                    batch.reject(Reject.MALFORMED, firstLine + i, line);
+                    continue;
+                }
+                Customer customer = customersByKey.get(fields[0]);
+                if (customer == null) {
+                    batch.reject(Reject.UNKNOWN_CUSTOMER, firstLine + i, line);
+                    continue;
+                }
+                Product product = productsByKey.get(fields[1]);
+                if (product == null) {
+                    batch.reject(Reject.UNKNOWN_PRODUCT, firstLine + i, line);
+                    continue;
+                }
+                int quantity = parseQuantity(fields[2]);
+                if (quantity <= 0) {
+                    batch.reject(Reject.BAD_QUANTITY, firstLine + i, line);
+                    continue;
+                }
+                int epochDay;
+                try {
+                    epochDay = parseEpochDay(fields[3]);
+                } catch (DateTimeException | NumberFormatException e) {
+                    batch.reject(Reject.BAD_DATE, firstLine + i, line);
+                    continue;
+                }
+                InventoryService.Reservation reservation = inventory.reserve(product, quantity);
+                if (reservation == null) {
+                    batch.reject(Reject.INSUFFICIENT_STOCK, firstLine + i, line);
+                    continue;
+                }
+                batch.accept(customer.getId(), product.getId(), quantity, epochDay,
+                        Math.round(product.getPrice() * 100), reservation);
+            }
+        } catch (RuntimeException e) {
+            // a batch that fails keeps none of the stock it took
+            for (int i = 0; i < batch.count; i++) {
+                inventory.release(batch.reservations[i]);
+            }
+            throw e;
+        }
+        return batch;
+    }
+
+    // Parsing
+
+    private static boolean isHeader(String line) {
+        return line.regionMatches(true, line.startsWith("\"") ? 1 : 0, "customer", 0, "customer".length());
+    }
+
+    private static int parseQuantity(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // yyyy-MM-dd, read digit by digit as LocalDate.parse is slow for millions of lines
+    static int parseEpochDay(String text) {
+        if (text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            throw new DateTimeException("Not an ISO date: " + text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        return Math.toIntExact(LocalDate.of(year, month, day).toEpochDay());
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number: " + text.substring(from, to));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // customer,product,quantity,date; fields may be quoted, with "" for a quote inside one
+    static boolean splitCsv(String line, String[] fields) {
+        int field = 0;
+        int i = 0;
+        int length = line.length();
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (field == fields.length) {
+                return false;
+            }
+            value.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return false;
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            value.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        value.append(c);
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    return false;
+                }
+                fields[field++] = value.toString();
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = length;
+                }
+                fields[field++] = line.substring(i, end).trim();
+                i = end;
+            }
+            if (i >= length) {
+                return field == fields.length;
+            }
+            i++; // the comma
+        }
+    }
+
+    // {"customer": ..., "product": ..., "quantity": ..., "date": ...}, other keys are ignored
+    static boolean splitJson(String line, String[] fields) {
+        Arrays.fill(fields, null);
+        JsonCursor json = new JsonCursor(line);
+        if (!json.skip('{')) {
+            return false;
+        }
+        if (!json.skip('}')) {
+            do {
+                String key = json.string();
+                if (key == null || !json.skip(':')) {
+                    return false;
+                }
+                String value = json.value();
+                if (value == null) {
+                    return false;
+                }
+                switch (key) {
+                    case "customer" -> fields[0] = value;
+                    case "product" -> fields[1] = value;
+                    case "quantity", "qty" -> fields[2] = value;
+                    case "date" -> fields[3] = value;
+                    default -> {
+                    }
+                }
+            } while (json.skip(','));
+            if (!json.skip('}')) {
+                return false;
+            }
+        }
+        return json.atEnd() && fields[0] != null && fields[1] != null && fields[2] != null && fields[3] != null;
+    }
+
+    // Reads the flat objects of a JSON Lines file: string, number, true/false/null values only
+    private static final class JsonCursor {
+        private final String text;
+        private int position;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        boolean skip(char c) {
+            skipSpace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean atEnd() {
+            skipSpace();
+            return position == text.length();
+        }
+
+        String value() {
+            skipSpace();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            return position > start ? text.substring(start, position) : null;
+        }
+
+        String string() {
+            skipSpace();
+            if (position >= text.length() || text.charAt(position) != '"') {
+                return null;
+            }
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    return null;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            return null;
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text, position, position + 4, 16));
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            return null;
+        }
+
+        private void skipSpace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+
+    // Accepted orders of one batch of lines, as columns, and its rejects
+    private static final class Batch {
+        private final long[] customerIds;
+        private final long[] productIds;
+        private final int[] quantities;
+        private final int[] epochDays;
+        private final long[] priceCents;
+        private final InventoryService.Reservation[] reservations;
+        private int count;
+        private int lines; // not counting blank ones
+        private final EnumMap<Reject, Long> rejects = new EnumMap<>(Reject.class);
+        private final List<String> samples = new ArrayList<>();
+
+        Batch(int lines) {
+            customerIds = new long[lines];
+            productIds = new long[lines];
+            quantities = new int[lines];
+            epochDays = new int[lines];
+            priceCents = new long[lines];
+            reservations = new InventoryService.Reservation[lines];
+        }
+
+        void accept(long customerId, long productId, int quantity, int epochDay, long unitPriceCents,
+                    InventoryService.Reservation reservation) {
+            customerIds[count] = customerId;
+            productIds[count] = productId;
+            quantities[count] = quantity;
+            epochDays[count] = epochDay;
+            priceCents[count] = unitPriceCents;
+            reservations[count] = reservation;
+            count++;
+        }
+
+        void reject(Reject reason, long lineNumber, String line) {
+            rejects.merge(reason, 1L, Long::sum);
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add("line " + lineNumber + " " + reason + ": " + line);
+            }
+        }
+    }
+
+    // Outcome of importing one file
+    public static final class Report {
+        private final Path file;
+        private long lines;
+        private long imported;
+        private long elapsedNanos;
+        private final EnumMap<Reject, Long> rejects = new EnumMap<>(Reject.class);
+        private final List<String> samples = new ArrayList<>();
+
+        private Report(Path file) {
+            this.file = file;
+        }
+
+        private void add(Batch batch) {
+            lines += batch.lines;
+            imported += batch.count;
+            batch.rejects.forEach((reason, count) -> rejects.merge(reason, count, Long::sum));
+            for (String sample : batch.samples) {
+                if (samples.size() < MAX_SAMPLES) {
+                    samples.add(sample);
+                }
+            }
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return lines - imported;
+        }
+
+        public long getRejected(Reject reason) {
+            return rejects.getOrDefault(reason, 0L);
+        }
+
+        // Number of lines rejected for each reason
+        public Map<Reject, Long> getRejects() {
+            return Collections.unmodifiableMap(rejects);
+        }
+
+        // The first few rejected lines with their line number and reason
+        public List<String> getSamples() {
+            return Collections.unmodifiableList(samples);
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // Lines read per second
+        public double getLinesPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d lines, %d imported, %d rejected %s in %.2f s (%.0f lines/s)",
+                    file, lines, imported, getRejected(), rejects, elapsedNanos / 1e9, getLinesPerSecond());
+        }
+    }
+}
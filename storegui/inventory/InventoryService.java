@@ -0,0 +1,125 @@
+package com.example.storegui.inventory;
+
+import com.example.storegui.product.Product;
+import com.example.storegui.utils.DataManager;
+import com.example.storegui.utils.StoreJournal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Takes stock for orders without going through the product tab. A reservation takes the quantity off
+ * the product's stock with a compare-and-set, so two orders can never both get the last items, and
+ * then either commits, which keeps the stock taken, or releases it, which puts it back.
+ * Committed and released stock changes are journaled like any other change.
+ */
+public class InventoryService {
+
+    // Singleton instance
+    private static InventoryService instance;
+
+    // Called with the product after its stock changed for good; the shared instance journals the change
+    private final Consumer<Product> stockListener;
+
+    // Private constructor to enforce the Singleton pattern
+    private InventoryService(Consumer<Product> stockListener) {
+        this.stockListener = stockListener;
+    }
+
+    // Public method to get the Singleton instance
+    public static synchronized InventoryService getInstance() {
+        if (instance == null) {
+            instance = new InventoryService(
+                    product -> DataManager.getInstance().recordChange(StoreJournal.Entry.stockChanged(product)));
+        }
+        return instance;
+    }
+
+    // A separate service that calls the given listener after a stock change instead of journaling it,
+    // e.g. when running without a store. Stock is kept by the products, so it works alongside the shared one.
+    public static InventoryService withStockListener(Consumer<Product> stockListener) {
+        return new InventoryService(stockListener);
+    }
+
+    // Stock not held by any reservation
+    public int available(Product product) {
+        return product.getStock();
+    }
+
+    // Takes the quantity off the product's stock, or returns null if there isn't enough of it
+    public Reservation reserve(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive.");
+        }
+        while (true) {
+            int stock = product.getStock();
+            if (stock < quantity) {
+                return null;
+            }
+            if (product.compareAndSetStock(stock, stock - quantity)) {
+                return new Reservation(product, quantity);
+            }
+            // another reservation changed the stock in between, try again with the new value
+        }
+    }
+
+    // Keeps the stock taken by the reservation; false if it was already committed or released
+    public boolean commit(Reservation reservation) {
+        if (!reservation.state.compareAndSet(Reservation.OPEN, Reservation.COMMITTED)) {
+            return false;
+        }
+        stockChanged(reservation.product);
+        return true;
+    }
+
+    // Puts the stock taken by the reservation back; false if it was already committed or released
+    public boolean release(Reservation reservation) {
+        if (!reservation.state.compareAndSet(Reservation.OPEN, Reservation.RELEASED)) {
+            return false;
+        }
+        Product product = reservation.product;
+        int stock;
+        do {
+            stock = product.getStock();
+        } while (!product.compareAndSetStock(stock, stock + reservation.quantity));
+        stockChanged(product);
+        return true;
+    }
+
+    private void stockChanged(Product product) {
+        // the product's changes are journaled in the order their stock levels were read,
+        // so the last entry for a product always has its latest stock
+        synchronized (product) {
+            stockListener.accept(product);
+        }
+    }
+
+    // Stock held for one order until it is committed or released
+    public static final class Reservation {
+        private static final int OPEN = 0;
+        private static final int COMMITTED = 1;
+        private static final int RELEASED = 2;
+
+        private final Product product;
+        private final int quantity;
+        private final AtomicInteger state = new AtomicInteger(OPEN);
+
+        private Reservation(Product product, int quantity) {
+            this.product = product;
+            this.quantity = quantity;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        // Neither committed nor released yet
+        public boolean isOpen() {
+            return state.get() == OPEN;
+        }
+    }
+}
@@ -2,21 +2,31 @@ package com.example.storegui;
 
 import com.example.storegui.customer.CustomerController;
 import com.example.storegui.customer.CustomerView;
-import com.example.storegui.database.DatabaseConnection;
+import com.example.storegui.dashboard.DashboardController;
+import com.example.storegui.dashboard.DashboardView;
+import com.example.storegui.metrics.Metrics;
 import com.example.storegui.order.OrderController;
 import com.example.storegui.order.OrderView;
 import com.example.storegui.product.ProductController;
 import com.example.storegui.product.ProductView;
 import javafx.application.Application;
+import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Main application class for the Store GUI.
- * This class initializes the JavaFX application and sets up the main window with tabs for Customers, Products, and Orders.
+ * This class initializes the JavaFX application and sets up the main window with tabs for Customers, Products, Orders and the Dashboard.
+ * The window is shown straight away; the store file and the database are loaded behind it by a StartupLoader.
  */
 public class mainapp extends Application {
 
@@ -27,13 +37,11 @@ public class mainapp extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        // Initialize the database connection
-        try {
-            DatabaseConnection.getInstance().getConnection();
-            System.out.println("Database connection established successfully.");
-        } catch (RuntimeException e) {
-            System.err.println("Failed to establish database connection: " + e.getMessage());
-            return; // Exit the application if the database connection fails
+        // Metrics can be read over JMX, and are written to a file every minute when -Dstoregui.metrics.file is set
+        Metrics.getInstance().registerMBean();
+        String metricsFile = System.getProperty("storegui.metrics.file");
+        if (metricsFile != null) {
+            Metrics.getInstance().startDumping(Path.of(metricsFile), Duration.ofMinutes(1));
         }
 
         // Create a TabPane to hold different tabs for Customer, Product, and Order
@@ -60,11 +68,32 @@ public class mainapp extends Application {
         // Disable closing the Order tab
         orderTab.setClosable(false);
 
+        // Create the Dashboard View and Controller; the figures are updated whenever the tab is opened
+        DashboardView dashboardView = new DashboardView();
+        DashboardController dashboardController = new DashboardController(dashboardView);
+        Tab dashboardTab = new Tab("Dashboard", dashboardView.getView());
+        dashboardTab.setOnSelectionChanged(_ -> {
+            if (dashboardTab.isSelected()) {
+                dashboardController.refresh();
+            }
+        });
+        // Disable closing the Dashboard tab
+        dashboardTab.setClosable(false);
+
         // Add all the tabs to the TabPane
-        tabPane.getTabs().addAll(customerTab, orderTab, productTab);
+        tabPane.getTabs().addAll(customerTab, orderTab, productTab, dashboardTab);
+
+        // Status bar showing the progress of loading at startup
+        ProgressBar loadProgress = new ProgressBar();
+        Label loadStatus = new Label();
+        HBox statusBar = new HBox(10, loadProgress, loadStatus);
+        statusBar.setPadding(new Insets(5, 10, 5, 10));
+
+        BorderPane root = new BorderPane(tabPane);
+        root.setBottom(statusBar);
 
         // Scene Setup
-        Scene scene = new Scene(tabPane, 700, 450);
+        Scene scene = new Scene(root, 700, 450);
 
         // Linking css file
         scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/styles/styles.css")).toExternalForm());
@@ -73,5 +102,11 @@ public class mainapp extends Application {
         primaryStage.setTitle("Store");
         primaryStage.setScene(scene);
         primaryStage.show();
+        System.out.println("Window shown " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms after launch.");
+
+        // Connect to the database and load the store file in the background, filling the tabs as records are decoded;
+        // the customer, product and order tabs only take changes once everything is loaded
+        new StartupLoader(orderController, loadProgress, loadStatus,
+                List.of(customerTab.getContent(), productTab.getContent(), orderTab.getContent())).start();
     }
 }
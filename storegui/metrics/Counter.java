@@ -0,0 +1,24 @@
+package com.example.storegui.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// A count that only goes up, e.g. rows inserted or failed saves; threads add to cells of their own
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.storegui.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durations in nanoseconds counted in log-linear buckets, as in an HDR histogram: every power of two
+ * is split into 32 buckets, so any duration from a nanosecond to centuries is kept to within about 3%
+ * in a fixed 15 KB of counts. Recording is one atomic increment plus an adder and, for a new maximum,
+ * a compare-and-set, without locks or allocation; percentiles are only worked out for a snapshot.
+ */
+public class LatencyHistogram {
+
+    // Bits of a duration kept below its highest bit, 2^5 = 32 buckets per power of two
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyHistogram() {
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucket(nanos));
+        totalNanos.add(nanos);
+        if (nanos > maxNanos.get()) {
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    // Records the time since a System.nanoTime() taken at the start
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    // Durations below 32 ns have a bucket each, above that the bucket is the highest bit and the 5 below it
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = highestBit - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // Largest duration that falls in the bucket
+    static long bucketMax(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    // Counts, total and percentiles as of now; recordings made meanwhile may be partly included
+    public Summary summary() {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long max = maxNanos.get();
+        return new Summary(count, totalNanos.sum(), max,
+                percentile(snapshot, count, 0.5, max), percentile(snapshot, count, 0.9, max),
+                percentile(snapshot, count, 0.99, max), percentile(snapshot, count, 0.999, max));
+    }
+
+    private static long percentile(long[] counts, long count, double fraction, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketMax(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Durations in nanoseconds; percentiles are the upper end of their bucket, never above the maximum
+    public record Summary(long count, long totalNanos, long maxNanos,
+                          long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+    }
+}
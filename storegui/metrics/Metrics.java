@@ -0,0 +1,236 @@
+package com.example.storegui.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms of the application, e.g. how long saves and database
+ * calls take and how often they fail. Metrics are created on first use and live for the rest of the
+ * run; callers keep them in static fields, so recording never looks a name up. A snapshot reads
+ * every metric at once, and can be written to a file periodically or read over JMX as the
+ * attributes of the com.example.storegui:type=Metrics MBean.
+ * Names are dotted and start with the area, e.g. "store.save" or "db.customer.load".
+ */
+public class Metrics {
+
+    // Singleton instance
+    private static Metrics instance;
+
+    private static final String MBEAN_NAME = "com.example.storegui:type=Metrics";
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    // Periodic dumps, guarded by this; the last file dumped to gets a final snapshot at exit
+    private ScheduledExecutorService dumper;
+    private volatile Path dumpFile;
+    private boolean exitDumpAdded;
+
+    // Private constructor to enforce the Singleton pattern
+    private Metrics() {
+    }
+
+    // Public method to get the Singleton instance
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    // The counter with this name, created the first time it is asked for
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, _ -> new Counter());
+    }
+
+    // The histogram with this name, created the first time it is asked for
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, _ -> new LatencyHistogram());
+    }
+
+    // A value read when a snapshot is taken, e.g. a queue length; replaces an earlier gauge of the same name
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public Snapshot snapshot() {
+        SortedMap<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.get()));
+        SortedMap<String, Long> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, gauge) -> {
+            try {
+                gaugeValues.put(name, gauge.getAsLong());
+            } catch (RuntimeException e) {
+                // a gauge whose source is gone is left out
+            }
+        });
+        SortedMap<String, LatencyHistogram.Summary> summaries = new TreeMap<>();
+        histograms.forEach((name, histogram) -> summaries.put(name, histogram.summary()));
+        return new Snapshot(Instant.now(), Collections.unmodifiableSortedMap(counterValues),
+                Collections.unmodifiableSortedMap(gaugeValues), Collections.unmodifiableSortedMap(summaries));
+    }
+
+    // Appends a snapshot to the file every period, and once more at exit
+    public synchronized void startDumping(Path file, Duration period) {
+        stopDumping();
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+        dumpFile = file;
+        if (!exitDumpAdded) {
+            exitDumpAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                Path last = dumpFile;
+                if (last != null) {
+                    dump(last);
+                }
+            }, "metrics-dump-exit"));
+        }
+    }
+
+    public synchronized void stopDumping() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+        dumpFile = null;
+    }
+
+    // Appends the current snapshot to the file
+    public void dump(Path file) {
+        try {
+            Files.writeString(file, snapshot().toString(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Failed to write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Makes every metric readable as an attribute of the MBean, e.g. in JConsole or VisualVM
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Failed to register the metrics MBean: " + e.getMessage());
+        }
+    }
+
+    // Every metric at one moment, sorted by name; durations in nanoseconds
+    public record Snapshot(Instant takenAt, SortedMap<String, Long> counters, SortedMap<String, Long> gauges,
+                           SortedMap<String, LatencyHistogram.Summary> histograms) {
+
+        // One number per name; histograms give name.count, name.meanNanos, name.p99Nanos and so on
+        public Map<String, Long> flatten() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.putAll(counters);
+            values.putAll(gauges);
+            histograms.forEach((name, summary) -> {
+                values.put(name + ".count", summary.count());
+                values.put(name + ".meanNanos", summary.meanNanos());
+                values.put(name + ".p50Nanos", summary.p50Nanos());
+                values.put(name + ".p90Nanos", summary.p90Nanos());
+                values.put(name + ".p99Nanos", summary.p99Nanos());
+                values.put(name + ".p999Nanos", summary.p999Nanos());
+                values.put(name + ".maxNanos", summary.maxNanos());
+            });
+            return values;
+        }
+
+        // Readable form with durations in milliseconds, as written by dump()
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("# metrics at ").append(takenAt).append('\n');
+            counters.forEach((name, value) -> text.append(name).append(" = ").append(value).append('\n'));
+            gauges.forEach((name, value) -> text.append(name).append(" = ").append(value).append('\n'));
+            histograms.forEach((name, summary) -> text.append(String.format(
+                    "%s: count %d, mean %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                    name, summary.count(), summary.meanNanos() / 1e6, summary.p50Nanos() / 1e6,
+                    summary.p90Nanos() / 1e6, summary.p99Nanos() / 1e6, summary.p999Nanos() / 1e6,
+                    summary.maxNanos() / 1e6)));
+            return text.toString();
+        }
+    }
+
+    // Read-only MBean whose attributes are the flattened snapshot, taken again on every read
+    private final class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Long value = snapshot().flatten().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException("No metric " + attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Long> values = snapshot().flatten();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Long value = values.get(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrics are read-only.");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("Metrics have no operations.");
+        }
+
+        // Lists the metrics that exist now, so metrics created later show up the next time it is read
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            MBeanAttributeInfo[] attributes = snapshot().flatten().keySet().stream()
+                    .map(name -> new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false))
+                    .toArray(MBeanAttributeInfo[]::new);
+            return new MBeanInfo(Metrics.class.getName(), "Store-Gui metrics", attributes, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.storegui.metrics;
+
+import jdk.jfr.Event;
+
+import java.util.function.Consumer;
+
+/**
+ * One timed operation, recorded both in a LatencyHistogram and as a JFR event. The event is begun
+ * with the clock, and ended and written with it, so the two always cover the same time. The event's
+ * fields are only filled in when a recording wants it, as with every event of the application.
+ */
+public final class TimedEvent<E extends Event> {
+
+    private final LatencyHistogram histogram;
+    private final E event;
+    private final long startNanos;
+
+    private TimedEvent(LatencyHistogram histogram, E event) {
+        this.histogram = histogram;
+        this.event = event;
+        event.begin();
+        this.startNanos = System.nanoTime();
+    }
+
+    // Starts timing the operation, and the event with it
+    public static <E extends Event> TimedEvent<E> start(LatencyHistogram histogram, E event) {
+        return new TimedEvent<>(histogram, event);
+    }
+
+    // The event, for fields set while the operation runs
+    public E event() {
+        return event;
+    }
+
+    // Ends an operation that completed: its time goes into the histogram and the event, with the
+    // given fields, is written if the recording wants it. Returns the time taken in nanoseconds.
+    public long finish(Consumer<? super E> fields) {
+        long elapsed = System.nanoTime() - startNanos;
+        histogram.record(elapsed);
+        end(fields);
+        return elapsed;
+    }
+
+    // Ends an operation that failed: only the event is written, so the histogram holds the times of
+    // completed operations; failures are counted separately. Returns the time taken in nanoseconds.
+    public long fail(Consumer<? super E> fields) {
+        long elapsed = System.nanoTime() - startNanos;
+        end(fields);
+        return elapsed;
+    }
+
+    private void end(Consumer<? super E> fields) {
+        event.end();
+        if (event.shouldCommit()) {
+            fields.accept(event);
+            event.commit();
+        }
+    }
+}
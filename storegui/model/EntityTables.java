@@ -0,0 +1,100 @@
+package com.example.storegui.model;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.product.Product;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Id tables for the customers and products of one store. Orders only keep the ids of their customer
+ * and product, and the OrderStore holding them looks them up here, so every order sees the current
+ * version of a product, and customers removed from the list stay resolvable for the orders that still
+ * reference them.
+ * The tables belong to the OrderStore and come with it when a store is loaded; it adds the customer and
+ * product of every order added to it, and StoreData adds its listed customers and products.
+ * A newer object with the same id replaces the older one. Tables of a store read from a file look up
+ * ids they don't hold yet in its Source, so records are only decoded once something refers to them.
+ */
+public class EntityTables {
+
+    // Where the tables of a store read from a file find the records they haven't been given yet
+    public interface Source {
+        Customer findCustomer(long id);
+
+        Product findProduct(long id);
+    }
+
+    private final IdTable<Customer> customers = new IdTable<>();
+    private final IdTable<Product> products = new IdTable<>();
+    private final Source source;
+
+    public EntityTables() {
+        this(null);
+    }
+
+    public EntityTables(Source source) {
+        this.source = source;
+    }
+
+    public void add(Customer customer) {
+        customers.put(customer.getId(), customer);
+    }
+
+    public void add(Product product) {
+        products.put(product.getId(), product);
+    }
+
+    // Lookups, null if no customer/product has the id
+
+    public Customer getCustomer(long id) {
+        Customer customer = customers.get(id);
+        if (customer == null && source != null) {
+            customer = source.findCustomer(id);
+            if (customer != null) {
+                customers.put(id, customer);
+            }
+        }
+        return customer;
+    }
+
+    public Product getProduct(long id) {
+        Product product = products.get(id);
+        if (product == null && source != null) {
+            product = source.findProduct(id);
+            if (product != null) {
+                products.put(id, product);
+            }
+        }
+        return product;
+    }
+
+    // Ids are handed out in sequence, so they index an array directly; the odd id too large
+    // for the array goes into a map instead
+    private static final class IdTable<T> {
+        private static final int MAX_DENSE_ID = 1 << 24;
+
+        private Object[] dense = new Object[64];
+        private final Map<Long, T> sparse = new HashMap<>();
+
+        synchronized void put(long id, T value) {
+            if (id >= 0 && id < MAX_DENSE_ID) {
+                if (id >= dense.length) {
+                    dense = Arrays.copyOf(dense, (int) Math.min(MAX_DENSE_ID, Math.max(id + 1, dense.length * 2L)));
+                }
+                dense[(int) id] = value;
+            } else {
+                sparse.put(id, value);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized T get(long id) {
+            if (id >= 0 && id < MAX_DENSE_ID) {
+                return id < dense.length ? (T) dense[(int) id] : null;
+            }
+            return sparse.get(id);
+        }
+    }
+}
@@ -2,22 +2,57 @@ package com.example.storegui.model;
 
 import com.example.storegui.customer.Customer;
 import com.example.storegui.order.Order;
+import com.example.storegui.order.OrderStore;
 import com.example.storegui.product.Product;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 
 // This class is used to store data for the store application.
+// Its listed customers and products are kept in the id tables of its orders, see EntityTables.
 public class StoreData implements Serializable {
+
+    // Same id the class had before it was declared explicitly, so older files still load
+    @Serial
+    private static final long serialVersionUID = 5094293709452984671L;
+
+    // Serialized form of earlier versions, where orders were an ArrayList of Order objects
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("customers", ArrayList.class),
+            new ObjectStreamField("products", ArrayList.class),
+            new ObjectStreamField("orders", ArrayList.class),
+            new ObjectStreamField("journalSequence", long.class)
+    };
+
     private ArrayList<Customer> customers;
     private ArrayList<Product> products;
-    private ArrayList<Order> orders;
+    private OrderStore orders;
+
+    // Sequence number of the last journaled change included in this data
+    private long journalSequence;
 
     // Constructor
     public StoreData() {
         this.customers = new ArrayList<>();
         this.products = new ArrayList<>();
-        this.orders = new ArrayList<>();
+        this.orders = new OrderStore();
+    }
+
+    // Shallow copy with its own lists, so the copy can be written while the originals keep changing
+    public StoreData copy() {
+        StoreData copy = new StoreData();
+        copy.customers = new ArrayList<>(customers);
+        copy.products = new ArrayList<>(products);
+        copy.orders = orders.copy();
+        copy.journalSequence = journalSequence;
+        return copy;
     }
 
     // Getters and setters
@@ -25,23 +60,85 @@ public class StoreData implements Serializable {
         return customers;
     }
 
-    public void setCustomers(ArrayList<Customer> customers) {
-        this.customers = customers;
+    public void setCustomers(List<Customer> customers) {
+        this.customers = asArrayList(customers);
+        this.customers.forEach(orders.entities()::add);
+    }
+
+    public void addCustomer(Customer customer) {
+        customers.add(customer);
+        orders.entities().add(customer);
     }
 
     public ArrayList<Product> getProducts() {
         return products;
     }
 
-    public void setProducts(ArrayList<Product> products) {
-        this.products = products;
+    public void setProducts(List<Product> products) {
+        this.products = asArrayList(products);
+        this.products.forEach(orders.entities()::add);
+    }
+
+    public void addProduct(Product product) {
+        products.add(product);
+        orders.entities().add(product);
     }
 
-    public ArrayList<Order> getOrders() {
+    public OrderStore getOrders() {
         return orders;
     }
 
-    public void setOrders(ArrayList<Order> orders) {
-        this.orders = orders;
+    // An OrderStore is kept as it is, any other list is copied into one; its id tables take in the lists
+    public void setOrders(List<Order> orders) {
+        this.orders = orders instanceof OrderStore store ? store : OrderStore.copyOf(orders);
+        addListedEntities();
+    }
+
+    // Id lookups for orders; these also find customers and products that have been removed from the lists
+    public Customer getCustomer(long id) {
+        return orders.entities().getCustomer(id);
+    }
+
+    public Product getProduct(long id) {
+        return orders.entities().getProduct(id);
+    }
+
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    public void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    private void addListedEntities() {
+        customers.forEach(orders.entities()::add);
+        products.forEach(orders.entities()::add);
+    }
+
+    // Lists are stored as ArrayLists so files written by earlier versions keep loading
+    private static <T> ArrayList<T> asArrayList(List<T> list) {
+        return list instanceof ArrayList<T> arrayList ? arrayList : new ArrayList<>(list);
+    }
+
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        customers = (ArrayList<Customer>) fields.get("customers", new ArrayList<>());
+        products = (ArrayList<Product>) fields.get("products", new ArrayList<>());
+        orders = OrderStore.copyOf((ArrayList<Order>) fields.get("orders", new ArrayList<>()));
+        journalSequence = fields.get("journalSequence", 0L);
+        addListedEntities();
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("customers", customers);
+        fields.put("products", products);
+        fields.put("orders", new ArrayList<>(orders));
+        fields.put("journalSequence", journalSequence);
+        out.writeFields();
     }
 }
@@ -0,0 +1,86 @@
+package com.example.storegui.order;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.RandomAccess;
+
+/**
+ * An OrderStore as an ObservableList, for the order dropdown. Orders added, removed or replaced
+ * through this list change the store and fire a change for just that order, so a ListView or ComboBox
+ * showing it only updates that one row. Orders are read from the store when they are shown.
+ */
+public class ObservableOrderList extends ObservableListBase<Order> implements RandomAccess {
+
+    private final OrderStore store;
+
+    public ObservableOrderList(OrderStore store) {
+        this.store = store;
+    }
+
+    public OrderStore getStore() {
+        return store;
+    }
+
+    @Override
+    public Order get(int index) {
+        return store.get(index);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public void add(int index, Order order) {
+        // appending keeps the store's index, inserting in the middle rebuilds it
+        if (index == store.size()) {
+            store.add(order);
+        } else {
+            store.add(index, order);
+        }
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    @Override
+    public Order remove(int index) {
+        Order removed = store.remove(index);
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+        return removed;
+    }
+
+    // Looked up by id, rather than comparing the order with every row on the way
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public Order set(int index, Order order) {
+        Order previous = store.set(index, order);
+        beginChange();
+        nextSet(index, previous);
+        endChange();
+        return previous;
+    }
+
+    // Found by the order's id instead of comparing every order
+    @Override
+    public int indexOf(Object o) {
+        return store.indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return store.contains(o);
+    }
+}
@@ -3,6 +3,8 @@ package com.example.storegui.order;
 import com.example.storegui.customer.Customer;
 import com.example.storegui.product.Product;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
@@ -13,20 +15,55 @@ public class Order implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    private final Customer customer; // The customer who placed the order
-    private final Product product;   // The product being ordered
-    private final int quantity;      // The quantity of the product ordered
-    private final LocalDate date;    // The date the order was placed
+    // Only assigned in the constructors and when read from a file
+    private long customerId; // Id of the customer who placed the order
+    private long productId;  // Id of the product being ordered
+    private int quantity;    // The quantity of the product ordered
+    private int epochDay;    // The date the order was placed, as days since 1970-01-01
+
+    // The customer and product objects, when known; an OrderStore adds them to its id tables
+    private Customer customer;
+    private Product product;
+
+    // Id the OrderStore gave the order, -1 for an order that wasn't read from a store
+    private transient int orderId = -1;
 
     // Constructor
     public Order(Customer customer, Product product, int quantity, LocalDate date) {
+        this(customer.getId(), customer, product.getId(), product, quantity, Math.toIntExact(date.toEpochDay()));
+    }
+
+    // Constructor for an order whose customer and product are only known by id
+    public Order(long customerId, long productId, int quantity, LocalDate date) {
+        this(customerId, null, productId, null, quantity, Math.toIntExact(date.toEpochDay()));
+    }
+
+    // Order of a store row, with the customer and product the store resolved; either may be null
+    Order(int orderId, long customerId, Customer customer, long productId, Product product, int quantity, int epochDay) {
+        this(customerId, customer, productId, product, quantity, epochDay);
+        this.orderId = orderId;
+    }
+
+    private Order(long customerId, Customer customer, long productId, Product product, int quantity, int epochDay) {
+        this.customerId = customerId;
         this.customer = customer;
+        this.productId = productId;
         this.product = product;
         this.quantity = quantity;
-        this.date = date;
+        this.epochDay = epochDay;
     }
 
     // Getter methods
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    // Null for an order created from ids only. Orders read from an OrderStore get the objects in its
+    // id tables, so edits to a product show up in every order of it.
     public Customer getCustomer() {
         return customer;
     }
@@ -40,14 +77,57 @@ public class Order implements Serializable {
     }
 
     public LocalDate getDate() {
-        return date;
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    // Id of the order in the store it was read from, see OrderStore.orderId; -1 if it wasn't read from one
+    public int getOrderId() {
+        return orderId;
     }
 
     // No setters as Orders cannot be changed once made
 
+    // Two orders of the same customer, product, quantity and date are still different orders, so orders
+    // read from a store are equal when they have the same order id, and any other order only to itself
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Order order = (Order) o;
+        return orderId >= 0 && orderId == order.orderId;
+    }
+
+    @Override
+    public int hashCode() {
+        return orderId >= 0 ? orderId : System.identityHashCode(this);
+    }
+
+    // Orders saved before ids existed hold the customer and product objects and a LocalDate
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        orderId = -1;
+        quantity = fields.get("quantity", 0);
+        customer = (Customer) fields.get("customer", null);
+        product = (Product) fields.get("product", null);
+        if (fields.defaulted("customerId")) {
+            customerId = customer.getId();
+            productId = product.getId();
+            epochDay = Math.toIntExact(((LocalDate) fields.get("date", null)).toEpochDay());
+        } else {
+            customerId = fields.get("customerId", 0L);
+            productId = fields.get("productId", 0L);
+            epochDay = fields.get("epochDay", 0);
+        }
+    }
+
     // Format: "Customer - Product xQuantity (Date)"
     @Override
     public String toString() {
-        return customer + " - " + product + " x" + quantity + " (" + date + ")";
+        return getCustomer() + " - " + getProduct() + " x" + quantity + " (" + getDate() + ")";
     }
 }
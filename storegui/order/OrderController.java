@@ -1,56 +1,99 @@
 package com.example.storegui.order;
 
+import com.example.storegui.events.OrderCreateEvent;
+import com.example.storegui.events.ViewRefreshEvent;
+import com.example.storegui.inventory.InventoryService;
+import com.example.storegui.metrics.Counter;
+import com.example.storegui.metrics.LatencyHistogram;
+import com.example.storegui.metrics.Metrics;
 import com.example.storegui.utils.DataManager;
+import com.example.storegui.utils.StoreJournal;
 import com.example.storegui.model.StoreData;
 import com.example.storegui.customer.Customer;
 import com.example.storegui.customer.CustomerController;
 import com.example.storegui.product.Product;
 import com.example.storegui.product.ProductController;
-import com.example.storegui.product.ProductView;
+import com.example.storegui.report.ReportEngine;
 import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.TableColumn;
 import javafx.stage.Stage;
 
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 // Represents the functions of the Order Tab in the store system
 public class OrderController {
 
-    // Array to hold the list of order items
-    private static ArrayList<Order> orders;
+    // Column store holding the order items
+    private static OrderStore orders;
+
+    // The same orders as an observable list for the dropdown, changed one order at a time
+    private static ObservableOrderList orderList;
+
+    // Most groups of a report shown in the summary area
+    private static final int REPORT_ROWS = 500;
+
+    // Time from the click to the result of each action, and actions that failed, see Metrics
+    private static final LatencyHistogram CREATE_TIME = Metrics.getInstance().histogram("ui.order.create");
+    private static final LatencyHistogram SAVE_TIME = Metrics.getInstance().histogram("ui.order.save");
+    private static final LatencyHistogram LOAD_TIME = Metrics.getInstance().histogram("ui.order.load");
+    private static final Counter FAILURES = Metrics.getInstance().counter("ui.order.failures");
+    private static final Counter OUT_OF_STOCK = Metrics.getInstance().counter("ui.order.outOfStock");
 
     // Variable for using OrderView class
     private final OrderView view;
 
+    // Sort order chosen with the sort button, null to list orders in the order they were created
+    private SortedOrderView.By sortedBy;
+
+    // Orders shown in the table, positions mapped onto the rows of the store
+    private final OrderTableModel tableModel;
+
     // Constructor
-    public OrderController(OrderView view, ArrayList<Customer> customers, ArrayList<Product> products, Stage primaryStage) {
+    public OrderController(OrderView view, List<Customer> customers, List<Product> products, Stage primaryStage) {
         this.view = view;
 
         // Initialize orderItems to an empty list if it's null
         if (orders == null) {
-            orders = new ArrayList<>();
+            orders = new OrderStore();
         }
 
+        // The table sorts through the model instead of sorting a copy of the orders
+        tableModel = new OrderTableModel(orders);
+        view.getOrderTable().setItems(tableModel);
+        view.getOrderTable().setSortPolicy(table -> {
+            if (table.getSortOrder().isEmpty()) {
+                tableModel.sortBy(tableColumnFor(sortedBy), false);
+            } else {
+                TableColumn<Order, ?> column = table.getSortOrder().get(0);
+                tableModel.sortBy((OrderTableModel.Column) column.getUserData(),
+                        column.getSortType() == TableColumn.SortType.DESCENDING);
+            }
+            return true;
+        });
+
         // Loading actions
         setupEventHandlers(customers, products);
     }
 
     // Sets up event handlers for the view components
-    private void setupEventHandlers(ArrayList<Customer> customers, ArrayList<Product> products) {
+    private void setupEventHandlers(List<Customer> customers, List<Product> products) {
         // Ensure customers and products are not null before using them
         if (customers == null) customers = new ArrayList<>();
         if (products == null) products = new ArrayList<>();
 
-        // Safely populate the dropdowns
-        view.getCustomerDropdown().getItems().setAll(customers);
-        view.getProductDropdown().getItems().setAll(products);
-        view.getOrderDropdown().getItems().setAll(orders);
+        // Safely populate the dropdowns, sharing the lists so they only update what changed;
+        // customers and products are indexed and only the matches for what is typed are shown
+        view.getCustomerDropdown().setSource(customers);
+        view.getProductDropdown().setSource(products);
+        orderList();
 
         // Setup other event handlers
         view.getCreateButton().setOnAction(_ -> createOrder());
@@ -67,8 +110,8 @@ public class OrderController {
             showAlert("Orders loaded successfully");
         });
 
-        ArrayList<Customer> finalCustomers = customers; // final copy
-        ArrayList<Product> finalProducts = products; // final copy
+        List<Customer> finalCustomers = customers; // final copy
+        List<Product> finalProducts = products; // final copy
 
         view.getRefreshButton().setOnAction(_ -> refreshView(finalCustomers, finalProducts));
 
@@ -77,11 +120,45 @@ public class OrderController {
 
         // Filter orders by customer and month
         view.getFilterButton().setOnAction(_ -> filterOrders());
-        view.getFilterCustomerDropdown().getItems().setAll(customers);
+
+        // Total the orders per customer, product and/or period
+        view.getReportButton().setOnAction(_ -> runReport());
+        showItems("orders.customerFilter", view.getFilterCustomerDropdown(), customers);
+    }
+
+    // Observable lists are shown as they are, so their changes reach the dropdown one by one;
+    // other lists are copied into the dropdown
+    private static <T> void showItems(String name, ComboBox<T> dropdown, List<T> items) {
+        ViewRefreshEvent event = new ViewRefreshEvent();
+        event.begin();
+        if (items instanceof ObservableList<T> observable) {
+            dropdown.setItems(observable);
+        } else {
+            dropdown.getItems().setAll(items);
+        }
+        event.finish(name, items.size());
+    }
+
+    // The observable list over the current order store, made anew when the store was replaced,
+    // e.g. by loading from another tab, and shown in the dropdown
+    private ObservableOrderList orderList() {
+        if (orderList == null || orderList.getStore() != orders) {
+            orderList = new ObservableOrderList(orders);
+        }
+        if (view.getOrderDropdown().getItems() != orderList) {
+            ViewRefreshEvent event = new ViewRefreshEvent();
+            event.begin();
+            view.getOrderDropdown().setItems(orderList);
+            event.finish("orders.dropdown", orderList.size());
+        }
+        return orderList;
     }
 
     // Creates a new order
     public void createOrder() {
+        long start = System.nanoTime();
+        OrderCreateEvent event = new OrderCreateEvent();
+        event.begin();
         Customer customer = view.getCustomerDropdown().getValue();
         Product product = view.getProductDropdown().getValue();
         String quantityText = view.getQuantityField().getText();
@@ -90,6 +167,8 @@ public class OrderController {
         // Validate input
         if (customer == null || product == null || quantityText.isEmpty() || date == null) {
             System.out.println("Failed to create order: Invalid input");
+            FAILURES.increment();
+            finishCreate(event, customer, product, 0, "invalid input");
             showAlert("Please select a customer, a product, a quantity and a date.");
             return;
         }
@@ -98,31 +177,38 @@ public class OrderController {
             int quantity = Integer.parseInt(quantityText);
             if (quantity <= 0) {
                 System.out.println("Failed to create order: Invalid quantity");
+                FAILURES.increment();
+                finishCreate(event, customer, product, quantity, "invalid input");
                 showAlert("Enter a valid quantity.");
                 return;
             }
 
-            // Create ProductView instance
-            ProductView productView = new ProductView();
-            Stage primaryStage = new Stage();
-            ProductController productController = new ProductController(productView, primaryStage);
-
-            // Check for sufficient stock of the product
-            if (!productController.sufficientStock(product, quantity)) {
+            // Reserve the stock, checking and reducing it in one atomic step
+            InventoryService inventory = InventoryService.getInstance();
+            InventoryService.Reservation reservation = inventory.reserve(product, quantity);
+            if (reservation == null) {
                 System.out.println("Failed to create order: Insufficient stock for " + product.getName());
+                OUT_OF_STOCK.increment();
+                finishCreate(event, customer, product, quantity, "out of stock");
                 showAlert("Insufficient stock for " + product.getName());
                 return;
             }
 
-            // Reduce stock
-            productController.reduceStock(product, quantity);
-
-            // Add the order to the list
+            // Add the order to the list, and only then keep the reserved stock
             Order newOrder = new Order(customer, product, quantity, date);
-            orders.add(newOrder);
-
-            // Update the dropdown to include the new order
-            view.getOrderDropdown().getItems().setAll(orders);
+            try {
+                orderList().add(newOrder); // the dropdown gets just the new order
+            } catch (RuntimeException e) {
+                inventory.release(reservation);
+                throw e;
+            }
+            inventory.commit(reservation);
+            // the new order is the last row, journaled with the order id and unit price the store gave it
+            DataManager.getInstance().recordChange(StoreJournal.Entry.orderCreated(orders, orders.size() - 1),
+                    this::journalFailed);
+            showAdded(orders.size() - 1);
+            CREATE_TIME.recordSince(start);
+            finishCreate(event, customer, product, quantity, "created");
 
             // Calculate the total cost and append to the summary for only the new order
             double totalCost = newOrder.getProduct().getPrice() * newOrder.getQuantity();
@@ -137,10 +223,24 @@ public class OrderController {
 
         } catch (NumberFormatException e) {
             System.out.println("Failed to create order: Quantity must be a number");
+            FAILURES.increment();
+            finishCreate(event, customer, product, 0, "invalid input");
             showAlert("Quantity must be a number.");
         }
     }
 
+    // Ends the JFR event of creating an order, before any alert is shown, and writes it if the recording wants it
+    private static void finishCreate(OrderCreateEvent event, Customer customer, Product product, int quantity, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.customerId = customer == null ? 0 : customer.getId();
+            event.productId = product == null ? 0 : product.getId();
+            event.quantity = quantity;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
 
     // Removes an order from the list
     private void removeOrder() {
@@ -169,18 +269,20 @@ public class OrderController {
         alert.showAndWait().ifPresent(choice -> {
             if (choice == removeYes) {
 
-                // Remove the selected order from the orderItems list
-                orders.remove(selectedOrder);
-
-                // Save the updated list of orders
-                saveOrders();
+                // Remove the selected order from the orderItems list, and with it from the dropdown and the table
+                int row = orders.indexOf(selectedOrder);
+                if (row < 0) {
+                    return;
+                }
+                int tableIndex = tableModel.getStore() == orders ? tableModel.indexOfRow(row) : -1;
+                orderList().remove(row);
+                showRemoved(tableIndex, row);
 
-                // Update the dropdown
-                view.getOrderDropdown().getItems().setAll(orders);
+                // Journal the removal
+                DataManager.getInstance().recordChange(StoreJournal.Entry.orderRemoved(selectedOrder), this::journalFailed);
 
-                // Clear the dropdown selection and update the dropdown list
+                // Clear the dropdown selection
                 view.getOrderDropdown().getSelectionModel().clearSelection();
-                view.getOrderDropdown().getItems().setAll(orders);
 
                 // Clear input fields
                 view.getQuantityField().clear();
@@ -189,32 +291,40 @@ public class OrderController {
         });
     }
 
+    // Shows an order just added to the table, by itself if the table shows these orders; after another
+    // tab loaded a store it shows that store instead
+    private void showAdded(int row) {
+        if (tableModel.getStore() == orders) {
+            tableModel.added(row);
+        } else {
+            tableModel.setStore(orders);
+        }
+    }
+
+    // Takes an order just removed out of the table, like showAdded
+    private void showRemoved(int tableIndex, int row) {
+        if (tableModel.getStore() == orders) {
+            tableModel.removed(tableIndex, row);
+        } else {
+            tableModel.setStore(orders);
+        }
+    }
+
     // Lists all current orders
     private void listOrders() {
-        if (orders.isEmpty()) {
-            view.getOrderSummaryArea().setText("No orders have been created.");
+        // The table only lays out the rows in view, however many orders there are
+        if (view.getTableMode().isSelected()) {
+            tableModel.setStore(orders);
             return;
         }
 
-        StringBuilder summary = new StringBuilder("Current Orders:\n");
-
-        // Build a summary of each order
-        for (Order item : orders) {
-            double cost = item.getProduct().getPrice() * item.getQuantity();
-            summary.append(item.getCustomer())
-                    .append(" - ")
-                    .append(item.getProduct().getName())
-                    .append(" x")
-                    .append(item.getQuantity())
-                    .append(" (")
-                    .append(item.getDate())
-                    .append(") - €")
-                    .append(cost)
-                    .append("\n");
+        if (orders.isEmpty()) {
+            view.getOrderSummaryArea().setText("No orders have been created.");
+            return;
         }
 
         // Display the summary of orders
-        view.getOrderSummaryArea().setText(summary.toString());
+        view.getOrderSummaryArea().setText(OrderSummaries.orderSummary(orders, sortedBy));
     }
 
     // Saves the current orders to a file
@@ -224,38 +334,66 @@ public class OrderController {
         storeData.setProducts(ProductController.getProducts());
         storeData.setOrders(orders);
 
+        long start = System.nanoTime();
         DataManager.getInstance().saveAllDataInThread(storeData,
-                () -> showAlert("All data saved successfully."),
-                () -> showAlert("Error saving all data.")
+                () -> {
+                    SAVE_TIME.recordSince(start);
+                    showAlert("All data saved successfully.");
+                },
+                () -> {
+                    FAILURES.increment();
+                    showAlert("Error saving all data.");
+                }
         );
     }
 
-    // Loads orders from the file
+    // Loads orders from the file, records are only decoded once they are shown or used
     private void loadOrders() {
-        DataManager.getInstance().loadAllDataInThread(storeData -> {
-            orders = storeData.getOrders();
-            CustomerController.setCustomers(storeData.getCustomers());
-            ProductController.setProducts(storeData.getProducts());
-            listOrders();
+        long start = System.nanoTime();
+        DataManager.getInstance().openStoreInThread(store -> {
+            CustomerController.setCustomers(store.customers());
+            ProductController.setProducts(store.products());
+            showOrders(store.orderStore());
+            LOAD_TIME.recordSince(start);
             showAlert("All data loaded successfully.");
-        }, () -> showAlert("Error loading all data."));
+        }, () -> {
+            FAILURES.increment();
+            showAlert("Error loading all data.");
+        });
     }
 
-    // Sorting Orders
-    void sortOrders() {
-        boolean sortByDate = view.getSortByDate().isSelected();
+    // Replaces the orders with a loaded store and shows it in the table and the dropdown
+    public void showOrders(OrderStore loaded) {
+        orders = loaded;
+        tableModel.setStore(orders);
+        orderList();
+        view.getOrderSummaryArea().setText(orders.size() + " orders loaded. Click List Order to see them.");
+    }
 
-        if (sortByDate) {
-            orders.sort(Comparator.comparing(Order::getDate));  // Sort by date
+    // Sorting Orders, by switching to a sorted view; the orders themselves keep their order
+    void sortOrders() {
+        if (view.getSortByDate().isSelected()) {
+            sortedBy = SortedOrderView.By.DATE;  // Sort by date
+        } else if (view.getSortByCustomer().isSelected()) {
+            sortedBy = SortedOrderView.By.CUSTOMER; // Sort by customer name
         } else {
-            orders.sort(Comparator.comparing(o -> o.getProduct().getName())); // Sort by product name
+            sortedBy = SortedOrderView.By.PRODUCT; // Sort by product name
         }
 
+        // The table follows the chosen order until one of its column headers is clicked
+        view.getOrderTable().getSortOrder().clear();
+        tableModel.sortBy(tableColumnFor(sortedBy), false);
+
         listOrders(); // Refresh the list
     }
 
+    // The orders in the chosen sort order, or all orders as created if no order was chosen yet
+    public List<Order> getSortedOrders() {
+        return sortedBy == null ? orders : orders.sortedBy(sortedBy);
+    }
+
     // Method to retrieve all orders
-    public static ArrayList<Order> getOrders() {
+    public static OrderStore getOrders() {
         return orders;
     }
 
@@ -269,36 +407,101 @@ public class OrderController {
             showAlert("Please select a customer and a month to filter.");
             return;
         }
-        // Filter orders based on selected customer and month
-        List<Order> filteredOrders = orders.stream()
-                .filter(order -> {
-                    // Check if the order's customer and month match the selected values
-                    boolean customerMatch = order.getCustomer().equals(selectedCustomer);
-                    boolean monthMatch = order.getDate().getMonth() == selectedMonth;
-                    return customerMatch && monthMatch;
-                })
-                .toList();
-
-        if (filteredOrders.isEmpty()) {
+        // Filter orders based on selected customer and month, scanning only those two columns
+        int[] filteredRows = orders.selectByCustomerAndMonth(selectedCustomer.getId(), selectedMonth);
+
+        // The table shows the matching rows in place
+        if (view.getTableMode().isSelected()) {
+            tableModel.setStore(orders);
+            long customerId = selectedCustomer.getId();
+            tableModel.filter(filteredRows, row -> orders.customerId(row) == customerId
+                    && LocalDate.ofEpochDay(orders.epochDay(row)).getMonth() == selectedMonth);
+            return;
+        }
+
+        if (filteredRows.length == 0) {
             // No orders found for the selected customer and month
             view.getOrderSummaryArea().setText("No orders found for " + selectedCustomer.getName() + " in " + selectedMonth);
         } else {
-            // Build a summary of the filtered orders
-            StringBuilder summary = new StringBuilder("Orders for " + selectedCustomer.getName() + " in " + selectedMonth + ":\n");
-            for (Order order : filteredOrders) {
-                double cost = order.getProduct().getPrice() * order.getQuantity();
-                summary.append(order.getProduct().getName()).append(" x").append(order.getQuantity())
-                        .append(" - €").append(cost).append("\n");
+            view.getOrderSummaryArea().setText(
+                    OrderSummaries.filteredSummary(orders, filteredRows, selectedCustomer, selectedMonth));
+        }
+    }
+
+    // Runs a report in the background, over a copy of the orders so they can keep changing meanwhile
+    private void runReport() {
+        List<ReportEngine.Key> keys = new ArrayList<>();
+        view.getReportKeys().forEach((key, checkBox) -> {
+            if (checkBox.isSelected()) {
+                keys.add(key);
             }
-            view.getOrderSummaryArea().setText(summary.toString());
+        });
+        // the chosen measure first, as the report is ranked by it
+        List<ReportEngine.Measure> measures = new ArrayList<>(List.of(ReportEngine.Measure.values()));
+        ReportEngine.Measure rankBy = view.getReportMeasureDropdown().getValue();
+        if (rankBy != null) {
+            measures.remove(rankBy);
+            measures.add(0, rankBy);
         }
+        ReportEngine engine = new ReportEngine.Builder()
+                .groupBy(keys.toArray(new ReportEngine.Key[0]))
+                .measures(measures.toArray(new ReportEngine.Measure[0]))
+                .limit(REPORT_ROWS)
+                .build();
+
+        view.getTableMode().setSelected(false);
+        view.getOrderSummaryArea().setText("Running report over " + orders.size() + " orders...");
+        runReport(engine, orders, orders.version());
+    }
+
+    // The copy of the orders is taken on the report thread, so a large store doesn't hold up the FX thread.
+    // The orders only change on the FX thread, so if the store's version is still the same there once the
+    // copy is done, nothing changed while it was taken; otherwise the copy is taken again.
+    private void runReport(ReportEngine engine, OrderStore store, int version) {
+        Thread thread = new Thread(() -> {
+            OrderStore snapshot;
+            try {
+                snapshot = store.copy();
+            } catch (RuntimeException e) {
+                snapshot = null; // the store changed while it was copied
+            }
+            OrderStore copied = snapshot;
+            Platform.runLater(() -> {
+                if (copied == null || store.version() != version) {
+                    runReport(engine, store, store.version());
+                    return;
+                }
+                Thread reportThread = new Thread(() -> {
+                    ReportEngine.Report report = engine.run(copied);
+                    Platform.runLater(() -> view.getOrderSummaryArea().setText(report.toString()));
+                }, "order-report");
+                reportThread.setDaemon(true);
+                reportThread.start();
+            });
+        }, "order-report-copy");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static OrderTableModel.Column tableColumnFor(SortedOrderView.By by) {
+        return by == null ? null : switch (by) {
+            case DATE -> OrderTableModel.Column.DATE;
+            case PRODUCT -> OrderTableModel.Column.PRODUCT;
+            case CUSTOMER -> OrderTableModel.Column.CUSTOMER;
+        };
     }
 
     // Reload Customer and Product Lists after being added
-    private void refreshView(ArrayList<Customer> customers, ArrayList<Product> products) {
+    private void refreshView(List<Customer> customers, List<Product> products) {
         setupEventHandlers(customers, products);
     }
 
+    // The change stays queued and is written once the journal works again, or with the next save
+    private void journalFailed() {
+        FAILURES.increment();
+        showAlert("Error saving the change, it will be saved again shortly.");
+    }
+
     // Displays an alert with a given message
     public void showAlert(String message) {
         Platform.runLater(() -> {
@@ -310,9 +513,9 @@ public class OrderController {
         });
     }
 
-    // Method to help load orders
-    public static void setOrders(ArrayList<Order> orders) {
-        OrderController.orders = orders;
+    // Method to help load orders, any other list than an OrderStore is copied into one
+    public static void setOrders(List<Order> orders) {
+        OrderController.orders = orders instanceof OrderStore store ? store : OrderStore.copyOf(orders);
     }
 }
 
@@ -0,0 +1,238 @@
+package com.example.storegui.order;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Secondary indexes over the rows of an OrderStore: for every customer, product and year-month the
+ * sorted list of the order ids of its orders (a postings list). Filters are answered by intersecting
+ * those lists instead of scanning every order, and the ids found are turned into rows at the end.
+ * Order ids don't change when rows move, so sorting the store or removing an order leaves every
+ * other entry as it is. The OrderStore that owns the index keeps it up to date as orders change.
+ */
+public class OrderIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private final OrderStore store;
+
+    // Ids are handed out in sequence, so customers and products index arrays directly
+    private Postings[] byCustomer = new Postings[64];
+    private Postings[] byProduct = new Postings[64];
+    // Key is year * 12 + month - 1
+    private final Map<Integer, Postings> byYearMonth = new HashMap<>();
+
+    // Last date converted, orders are usually added in date order
+    private int cachedEpochDay = Integer.MIN_VALUE;
+    private int cachedYearMonth;
+
+    // Index of every row currently in the store
+    OrderIndex(OrderStore store) {
+        this.store = store;
+        for (int row = 0; row < store.size(); row++) {
+            added(row);
+        }
+    }
+
+    // Queries, each returning rows in ascending order
+
+    public int[] rowsForCustomer(long customerId) {
+        return rows(get(byCustomer, customerId));
+    }
+
+    public int[] rowsForProduct(long productId) {
+        return rows(get(byProduct, productId));
+    }
+
+    public int[] rowsForMonth(YearMonth month) {
+        return rows(byYearMonth.get(month.getYear() * 12 + month.getMonthValue() - 1));
+    }
+
+    // Rows of one customer placed in the given month of any year
+    public int[] rowsForCustomerAndMonth(long customerId, Month month) {
+        Postings customer = get(byCustomer, customerId);
+        if (customer == null) {
+            return NO_ROWS;
+        }
+        List<int[]> parts = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Integer, Postings> entry : byYearMonth.entrySet()) {
+            if (entry.getKey() % 12 == month.ordinal()) {
+                int[] part = intersect(customer, entry.getValue());
+                parts.add(part);
+                total += part.length;
+            }
+        }
+        // the parts are from different months, so they never overlap
+        int[] ids = new int[total];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, ids, offset, part.length);
+            offset += part.length;
+        }
+        return rowsOf(ids);
+    }
+
+    // Rows of one customer for one product, e.g. to find a particular order
+    public int[] rowsForCustomerAndProduct(long customerId, long productId) {
+        Postings customer = get(byCustomer, customerId);
+        Postings product = get(byProduct, productId);
+        return customer == null || product == null ? NO_ROWS : rowsOf(intersect(customer, product));
+    }
+
+    // Updates, called by the OrderStore
+
+    // A row was appended at the end of the store
+    void added(int row) {
+        int id = store.orderId(row);
+        byCustomer = add(byCustomer, store.customerId(row), id);
+        byProduct = add(byProduct, store.productId(row), id);
+        byYearMonth.computeIfAbsent(yearMonthKey(store.epochDay(row)), _ -> new Postings()).add(id);
+    }
+
+    // The order with the given id was removed; where the other rows moved to doesn't matter
+    void removed(int orderId, long customerId, long productId, int epochDay) {
+        remove(get(byCustomer, customerId), orderId);
+        remove(get(byProduct, productId), orderId);
+        remove(byYearMonth.get(yearMonthKey(epochDay)), orderId);
+    }
+
+    // A row was overwritten in place, keeping its order id
+    void replaced(int row, long oldCustomerId, long oldProductId, int oldEpochDay) {
+        int id = store.orderId(row);
+        remove(get(byCustomer, oldCustomerId), id);
+        remove(get(byProduct, oldProductId), id);
+        remove(byYearMonth.get(yearMonthKey(oldEpochDay)), id);
+        byCustomer = add(byCustomer, store.customerId(row), id);
+        byProduct = add(byProduct, store.productId(row), id);
+        byYearMonth.computeIfAbsent(yearMonthKey(store.epochDay(row)), _ -> new Postings()).add(id);
+    }
+
+    // Helpers
+
+    private int yearMonthKey(int epochDay) {
+        if (epochDay != cachedEpochDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            cachedYearMonth = date.getYear() * 12 + date.getMonthValue() - 1;
+            cachedEpochDay = epochDay;
+        }
+        return cachedYearMonth;
+    }
+
+    private static Postings get(Postings[] table, long id) {
+        return id >= 0 && id < table.length ? table[(int) id] : null;
+    }
+
+    private static Postings[] grow(Postings[] table, long id) {
+        if (id >= table.length) {
+            table = Arrays.copyOf(table, (int) Math.max(id + 1, table.length * 2L));
+        }
+        return table;
+    }
+
+    private static Postings[] add(Postings[] table, long id, int orderId) {
+        table = grow(table, id);
+        if (table[(int) id] == null) {
+            table[(int) id] = new Postings();
+        }
+        table[(int) id].add(orderId);
+        return table;
+    }
+
+    private static void remove(Postings postings, int orderId) {
+        if (postings != null) {
+            postings.remove(orderId);
+        }
+    }
+
+    private int[] rows(Postings postings) {
+        return postings == null ? NO_ROWS : rowsOf(Arrays.copyOf(postings.ids, postings.size));
+    }
+
+    // The current rows of the given order ids, in ascending order; the array is reused
+    private int[] rowsOf(int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = store.rowOf(ids[i]);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Intersection of two sorted lists of ids, walking the shorter one and galloping through the longer one
+    static int[] intersect(Postings a, Postings b) {
+        if (a.size > b.size) {
+            Postings swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] result = new int[a.size];
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < a.size && from < b.size; i++) {
+            int id = a.ids[i];
+            // gallop to a range that could hold the id, then binary search it
+            int step = 1;
+            int to = from;
+            while (to < b.size && b.ids[to] < id) {
+                from = to;
+                to += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(b.ids, from, Math.min(to + 1, b.size), id);
+            if (found >= 0) {
+                result[count++] = id;
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Sorted, growable list of order ids
+    static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        // New orders get the highest id so far and are appended; others, e.g. orders read from a
+        // file that was saved sorted, are inserted where they belong
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                insert(id);
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private void insert(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,666 @@
+package com.example.storegui.order;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.EntityTables;
+import com.example.storegui.product.Product;
+
+import java.time.Month;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Orders stored column by column in primitive arrays instead of as Order objects: customer id,
+ * product id, quantity, date as epoch day, unit price in cents and order id, 28 bytes per order.
+ * The columns grow in fixed-size chunks, so adding orders never copies the ones already stored.
+ * Scans, totals and sorting work on the columns directly; as a List it hands out a new Order for
+ * the row asked for, so existing code can keep using it like any other list of orders.
+ * The unit price is the product's price at the time the order was added to the store.
+ * The store's EntityTables resolve the customer and product ids; the customer and product of every
+ * Order added are added to them, rows appended by id must refer to customers and products already there.
+ * Once queried, an OrderIndex over customers, products and months is kept up to date with every change.
+ * Removing orders moves the rows after them up once per call, however many orders are removed.
+ * Every order gets an id that stays the same while rows move, which SortedOrderViews refer to; views
+ * asked for are kept up to date the same way, and so are the SalesAnalytics totals.
+ */
+public class OrderStore extends AbstractList<Order> implements RandomAccess {
+
+    // 16384 rows per chunk
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Columns, split into chunks
+    private int[][] customerIds = new int[0][];
+    private int[][] productIds = new int[0][];
+    private int[][] quantities = new int[0][];
+    private int[][] epochDays = new int[0][];
+    private long[][] priceCents = new long[0][];
+    private int[][] orderIds = new int[0][];
+
+    private int size;
+
+    // Customers and products the rows refer to, shared with copies of the store
+    private final EntityTables entities;
+
+    // Row of every order id handed out, -1 once the order is removed
+    private int[][] rowOfId = new int[0][];
+    private int nextOrderId;
+
+    // Built on first use, then updated along with the columns; null while not needed
+    private OrderIndex index;
+
+    // Counts changes to the rows, see version()
+    private int version;
+
+    // Sorted views asked for so far, updated along with the columns
+    private final Map<SortedOrderView.By, SortedOrderView> views = new EnumMap<>(SortedOrderView.By.class);
+
+    // Built on first use like the index; unlike it, moving rows around never changes it
+    private SalesAnalytics analytics;
+
+    public OrderStore() {
+        this(0);
+    }
+
+    // Store with room for the given number of orders before it needs another chunk
+    public OrderStore(int expectedSize) {
+        this(expectedSize, new EntityTables());
+    }
+
+    // Store resolving its ids in the given tables, e.g. those of a store file being read
+    public OrderStore(int expectedSize, EntityTables entities) {
+        this.entities = entities;
+        ensureCapacity(expectedSize);
+    }
+
+    // Store holding the given orders; an OrderStore is copied column by column
+    public static OrderStore copyOf(Collection<Order> orders) {
+        if (orders instanceof OrderStore store) {
+            return store.copy();
+        }
+        OrderStore store = new OrderStore(orders.size());
+        store.addAll(orders);
+        return store;
+    }
+
+    // Column copy, so the copy can be written while this store keeps changing
+    public OrderStore copy() {
+        OrderStore copy = new OrderStore(0, entities);
+        copy.customerIds = copyChunks(customerIds);
+        copy.productIds = copyChunks(productIds);
+        copy.quantities = copyChunks(quantities);
+        copy.epochDays = copyChunks(epochDays);
+        copy.priceCents = copyChunks(priceCents);
+        copy.orderIds = copyChunks(orderIds);
+        copy.rowOfId = copyChunks(rowOfId);
+        copy.nextOrderId = nextOrderId;
+        copy.size = size;
+        return copy;
+    }
+
+    // Adding orders
+
+    // Appends a row and returns its index
+    public int append(long customerId, long productId, int quantity, int epochDay, long unitPriceCents) {
+        return appendWithId(nextOrderId, customerId, productId, quantity, epochDay, unitPriceCents);
+    }
+
+    // Appends a row for an order that already has an id, e.g. read from a store file or the journal
+    public int appendWithId(int id, long customerId, long productId, int quantity, int epochDay, long unitPriceCents) {
+        if (id < 0 || id < nextOrderId && rowOf(id) >= 0) {
+            throw new IllegalArgumentException("Order id " + id + " is already in use");
+        }
+        ensureCapacity(size + 1);
+        int row = size++;
+        setRow(row, customerId, productId, quantity, epochDay, unitPriceCents);
+        nextOrderId = Math.max(nextOrderId, id + 1);
+        ensureIdCapacity(nextOrderId);
+        setOrderId(row, id);
+        version++;
+        if (index != null) {
+            index.added(row);
+        }
+        if (analytics != null) {
+            analytics.added(customerId, productId, quantity, epochDay, unitPriceCents);
+        }
+        for (SortedOrderView view : views.values()) {
+            view.inserted(id);
+        }
+        return row;
+    }
+
+    @Override
+    public boolean add(Order order) {
+        addEntities(order);
+        append(order.getCustomerId(), order.getProductId(), order.getQuantity(), order.getEpochDay(),
+                currentPriceCents(order));
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, Order order) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        add(order);
+        // move the new row from the end to its position, which moves every row after it
+        for (int row = size - 1; row > index; row--) {
+            swap(row, row - 1);
+        }
+    }
+
+    @Override
+    public Order set(int index, Order order) {
+        Order previous = get(index);
+        int id = orderId(index);
+        for (SortedOrderView view : views.values()) {
+            view.removed(id);
+        }
+        if (analytics != null) {
+            analytics.removed(previous.getCustomerId(), previous.getProductId(), previous.getQuantity(),
+                    previous.getEpochDay(), unitPriceCents(index));
+        }
+        addEntities(order);
+        setRow(index, order.getCustomerId(), order.getProductId(), order.getQuantity(), order.getEpochDay(),
+                currentPriceCents(order));
+        version++;
+        if (this.index != null) {
+            this.index.replaced(index, previous.getCustomerId(), previous.getProductId(), previous.getEpochDay());
+        }
+        if (analytics != null) {
+            analytics.added(customerId(index), productId(index), quantity(index), epochDay(index), unitPriceCents(index));
+        }
+        for (SortedOrderView view : views.values()) {
+            view.inserted(id);
+        }
+        return previous;
+    }
+
+    @Override
+    public Order remove(int index) {
+        Order removed = get(index);
+        BitSet rows = new BitSet();
+        rows.set(index);
+        removeRows(rows);
+        return removed;
+    }
+
+    // Removes the rows in the set, moving the rows after them up in a single pass, so removing many
+    // orders at once costs about as much as removing one
+    public void removeRows(BitSet rows) {
+        int first = rows.nextSetBit(0);
+        if (first < 0) {
+            return;
+        }
+        if (rows.length() > size) {
+            throw new IndexOutOfBoundsException("Index " + (rows.length() - 1) + " out of bounds for length " + size);
+        }
+        // the views compare the orders' values, so they leave them before their rows are overwritten
+        for (int row = first; row >= 0; row = rows.nextSetBit(row + 1)) {
+            int id = orderId(row);
+            for (SortedOrderView view : views.values()) {
+                view.removed(id);
+            }
+            if (analytics != null) {
+                analytics.removed(customerId(row), productId(row), quantity(row), epochDay(row), unitPriceCents(row));
+            }
+            if (index != null) {
+                index.removed(id, customerId(row), productId(row), epochDay(row));
+            }
+            rowOfId[id >>> CHUNK_BITS][id & CHUNK_MASK] = -1;
+        }
+        int to = first;
+        for (int from = first + 1; from < size; from++) {
+            if (!rows.get(from)) {
+                copyRow(from, to++);
+            }
+        }
+        size = to;
+        version++;
+        modCount++;
+    }
+
+    // Removing orders one by one would move the rows after them once per order
+    @Override
+    public boolean removeIf(Predicate<? super Order> filter) {
+        BitSet rows = new BitSet();
+        for (int row = 0; row < size; row++) {
+            if (filter.test(get(row))) {
+                rows.set(row);
+            }
+        }
+        removeRows(rows);
+        return !rows.isEmpty();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> orders) {
+        return removeIf(orders::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> orders) {
+        return removeIf(order -> !orders.contains(order));
+    }
+
+    // Finds the order by its order id, so of two orders with the same values the right one is found.
+    // Orders that weren't read from this store, or a copy of it, aren't in it.
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Order order)) {
+            return -1;
+        }
+        int row = rowOf(order.getOrderId());
+        if (row < 0 || customerId(row) != order.getCustomerId() || productId(row) != order.getProductId()
+                || quantity(row) != order.getQuantity() || epochDay(row) != order.getEpochDay()) {
+            return -1;
+        }
+        return row;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int row = indexOf(o);
+        if (row < 0) {
+            return false;
+        }
+        remove(row);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        rowOfId = new int[0][];
+        nextOrderId = 0;
+        index = null;
+        views.clear();
+        analytics = null;
+        version++;
+        modCount++;
+    }
+
+    // Reading orders
+
+    @Override
+    public Order get(int index) {
+        checkIndex(index);
+        long customerId = customerId(index);
+        long productId = productId(index);
+        return new Order(orderId(index), customerId, entities.getCustomer(customerId),
+                productId, entities.getProduct(productId), quantity(index), epochDay(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Column values of a single row
+
+    public long customerId(int row) {
+        return customerIds[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    public long productId(int row) {
+        return productIds[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    public int quantity(int row) {
+        return quantities[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    public int epochDay(int row) {
+        return epochDays[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    public long unitPriceCents(int row) {
+        return priceCents[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    // Id of the order in the row, unchanged by sorting and by removing other rows
+    public int orderId(int row) {
+        return orderIds[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    // Row currently holding the order with the given id, -1 if there is no such order
+    public int rowOf(int orderId) {
+        if (orderId < 0 || orderId >= nextOrderId) {
+            return -1;
+        }
+        return rowOfId[orderId >>> CHUNK_BITS][orderId & CHUNK_MASK];
+    }
+
+    // Unit price times quantity
+    public long totalCents(int row) {
+        return unitPriceCents(row) * quantity(row);
+    }
+
+    // Scans
+
+    // Calls the action with every row index, in order
+    public void forEachRow(IntConsumer action) {
+        for (int row = 0; row < size; row++) {
+            action.accept(row);
+        }
+    }
+
+    // Indexes of the rows matching the filter, in order
+    public int[] select(IntPredicate rowFilter) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (rowFilter.test(row)) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // Rows of one customer placed in the given month of any year, answered from the index
+    public int[] selectByCustomerAndMonth(long customerId, Month month) {
+        return index().rowsForCustomerAndMonth(customerId, month);
+    }
+
+    // The orders sorted by date, product name or customer name, without moving any rows.
+    // The view is built the first time it is asked for and kept up to date from then on.
+    public SortedOrderView sortedBy(SortedOrderView.By by) {
+        return views.computeIfAbsent(by, b -> new SortedOrderView(this, b));
+    }
+
+    // Product or customer names changed, so the views sorted by name are built again when next asked for
+    public void namesChanged() {
+        views.remove(SortedOrderView.By.PRODUCT);
+        views.remove(SortedOrderView.By.CUSTOMER);
+    }
+
+    // Changes whenever a row is added, removed, replaced or moved. The store is changed on one thread;
+    // a copy taken on another thread is only whole if the version was the same before and after it.
+    public int version() {
+        return version;
+    }
+
+    // Customers and products by id, including those only orders still refer to
+    public EntityTables entities() {
+        return entities;
+    }
+
+    // Secondary indexes over the rows, built the first time they are needed
+    public OrderIndex index() {
+        if (index == null) {
+            index = new OrderIndex(this);
+        }
+        return index;
+    }
+
+    // Revenue and units per product, customer and month, built the first time they are asked for
+    public SalesAnalytics analytics() {
+        if (analytics == null) {
+            analytics = new SalesAnalytics(this);
+        }
+        return analytics;
+    }
+
+    // Sum of the order totals of every row
+    public long totalCents() {
+        long total = 0;
+        for (int chunk = 0, base = 0; base < size; chunk++, base += CHUNK_SIZE) {
+            int[] quantity = quantities[chunk];
+            long[] price = priceCents[chunk];
+            int end = Math.min(size - base, CHUNK_SIZE);
+            for (int i = 0; i < end; i++) {
+                total += price[i] * quantity[i];
+            }
+        }
+        return total;
+    }
+
+    // Sum of the order totals of the given rows
+    public long totalCents(int[] rows) {
+        long total = 0;
+        for (int row : rows) {
+            total += totalCents(row);
+        }
+        return total;
+    }
+
+    // Materialized Orders for the given rows, e.g. to show a filtered selection
+    public List<Order> rows(int[] rows) {
+        return new AbstractList<>() {
+            @Override
+            public Order get(int index) {
+                return OrderStore.this.get(rows[index]);
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+
+    // Sorting, stable like List.sort
+
+    public void sortByDate() {
+        sortByKey(this::epochDay);
+    }
+
+    // Sorts by product, in the order of the comparator; orders of products that no longer exist come first
+    public void sortByProduct(Comparator<Product> comparator) {
+        // rank every product id used once, then sort rows by rank
+        BitSet used = new BitSet();
+        for (int row = 0; row < size; row++) {
+            used.set((int) productId(row));
+        }
+        Integer[] ids = used.stream().boxed().toArray(Integer[]::new);
+        Arrays.sort(ids, Comparator.comparing((Integer id) -> entities.getProduct(id),
+                Comparator.nullsFirst(comparator)));
+        int[] rank = new int[used.length()];
+        for (int i = 0; i < ids.length; i++) {
+            rank[ids[i]] = i;
+        }
+        sortByKey(row -> rank[(int) productId(row)]);
+    }
+
+    @Override
+    public void sort(Comparator<? super Order> comparator) {
+        // no key to sort on, so sort the orders and write them back
+        Order[] rows = toArray(new Order[0]);
+        long[] prices = new long[size];
+        int[] ids = new int[size];
+        for (int row = 0; row < size; row++) {
+            prices[row] = unitPriceCents(row);
+            ids[row] = orderId(row);
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> comparator.compare(rows[a], rows[b]));
+        for (int i = 0; i < size; i++) {
+            Order row = rows[order[i]];
+            setRow(i, row.getCustomerId(), row.getProductId(), row.getQuantity(), row.getEpochDay(), prices[order[i]]);
+            setOrderId(i, ids[order[i]]);
+        }
+        version++;
+        modCount++;
+    }
+
+    // Sorts the rows by an int key per row, keeping rows with equal keys in their current order
+    private void sortByKey(IntUnaryOperator keyOfRow) {
+        // key in the high half and row in the low half, so a primitive sort is stable
+        long[] keyed = new long[size];
+        for (int row = 0; row < size; row++) {
+            keyed[row] = ((long) keyOfRow.applyAsInt(row) << 32) | row;
+        }
+        Arrays.sort(keyed);
+
+        int[][] newCustomers = newIntChunks();
+        int[][] newProducts = newIntChunks();
+        int[][] newQuantities = newIntChunks();
+        int[][] newDays = newIntChunks();
+        long[][] newPrices = new long[priceCents.length][CHUNK_SIZE];
+        int[][] newOrderIds = newIntChunks();
+        for (int i = 0; i < size; i++) {
+            int from = (int) keyed[i];
+            int fromChunk = from >>> CHUNK_BITS;
+            int fromIndex = from & CHUNK_MASK;
+            int toChunk = i >>> CHUNK_BITS;
+            int toIndex = i & CHUNK_MASK;
+            newCustomers[toChunk][toIndex] = customerIds[fromChunk][fromIndex];
+            newProducts[toChunk][toIndex] = productIds[fromChunk][fromIndex];
+            newQuantities[toChunk][toIndex] = quantities[fromChunk][fromIndex];
+            newDays[toChunk][toIndex] = epochDays[fromChunk][fromIndex];
+            newPrices[toChunk][toIndex] = priceCents[fromChunk][fromIndex];
+            int id = orderIds[fromChunk][fromIndex];
+            newOrderIds[toChunk][toIndex] = id;
+            rowOfId[id >>> CHUNK_BITS][id & CHUNK_MASK] = i;
+        }
+        customerIds = newCustomers;
+        productIds = newProducts;
+        quantities = newQuantities;
+        epochDays = newDays;
+        priceCents = newPrices;
+        orderIds = newOrderIds;
+        version++;
+        modCount++;
+    }
+
+    // Helpers
+
+    private void addEntities(Order order) {
+        Customer customer = order.getCustomer();
+        if (customer != null) {
+            entities.add(customer);
+        }
+        Product product = order.getProduct();
+        if (product != null) {
+            entities.add(product);
+        }
+    }
+
+    private long currentPriceCents(Order order) {
+        Product product = order.getProduct() != null ? order.getProduct() : entities.getProduct(order.getProductId());
+        return product == null ? 0 : Math.round(product.getPrice() * 100);
+    }
+
+    private void setRow(int row, long customerId, long productId, int quantity, int epochDay, long unitPriceCents) {
+        int chunk = row >>> CHUNK_BITS;
+        int index = row & CHUNK_MASK;
+        customerIds[chunk][index] = Math.toIntExact(customerId);
+        productIds[chunk][index] = Math.toIntExact(productId);
+        quantities[chunk][index] = quantity;
+        epochDays[chunk][index] = epochDay;
+        priceCents[chunk][index] = unitPriceCents;
+    }
+
+    private void setOrderId(int row, int id) {
+        orderIds[row >>> CHUNK_BITS][row & CHUNK_MASK] = id;
+        rowOfId[id >>> CHUNK_BITS][id & CHUNK_MASK] = row;
+    }
+
+    private void copyRow(int from, int to) {
+        setRow(to, customerId(from), productId(from), quantity(from), epochDay(from), unitPriceCents(from));
+        setOrderId(to, orderId(from));
+    }
+
+    private void swap(int a, int b) {
+        long customerId = customerId(a);
+        long productId = productId(a);
+        int quantity = quantity(a);
+        int epochDay = epochDay(a);
+        long price = unitPriceCents(a);
+        int id = orderId(a);
+        copyRow(b, a);
+        setRow(b, customerId, productId, quantity, epochDay, price);
+        setOrderId(b, id);
+    }
+
+    private void ensureCapacity(int rows) {
+        int chunks = (rows + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        if (chunks <= customerIds.length) {
+            return;
+        }
+        int old = customerIds.length;
+        customerIds = Arrays.copyOf(customerIds, chunks);
+        productIds = Arrays.copyOf(productIds, chunks);
+        quantities = Arrays.copyOf(quantities, chunks);
+        epochDays = Arrays.copyOf(epochDays, chunks);
+        priceCents = Arrays.copyOf(priceCents, chunks);
+        orderIds = Arrays.copyOf(orderIds, chunks);
+        for (int chunk = old; chunk < chunks; chunk++) {
+            customerIds[chunk] = new int[CHUNK_SIZE];
+            productIds[chunk] = new int[CHUNK_SIZE];
+            quantities[chunk] = new int[CHUNK_SIZE];
+            epochDays[chunk] = new int[CHUNK_SIZE];
+            priceCents[chunk] = new long[CHUNK_SIZE];
+            orderIds[chunk] = new int[CHUNK_SIZE];
+        }
+    }
+
+    private void ensureIdCapacity(int ids) {
+        int chunks = (ids + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        if (chunks <= rowOfId.length) {
+            return;
+        }
+        int old = rowOfId.length;
+        rowOfId = Arrays.copyOf(rowOfId, chunks);
+        for (int chunk = old; chunk < chunks; chunk++) {
+            // ids skipped by appendWithId have no row
+            rowOfId[chunk] = new int[CHUNK_SIZE];
+            Arrays.fill(rowOfId[chunk], -1);
+        }
+    }
+
+    private int[][] newIntChunks() {
+        return new int[customerIds.length][CHUNK_SIZE];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private static int[][] copyChunks(int[][] chunks) {
+        int[][] copy = new int[chunks.length][];
+        for (int i = 0; i < chunks.length; i++) {
+            copy[i] = chunks[i].clone();
+        }
+        return copy;
+    }
+
+    private static long[][] copyChunks(long[][] chunks) {
+        long[][] copy = new long[chunks.length][];
+        for (int i = 0; i < chunks.length; i++) {
+            copy[i] = chunks[i].clone();
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.example.storegui.order;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.EntityTables;
+import com.example.storegui.product.Product;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.function.IntConsumer;
+
+// The text summaries the order tab shows, built straight from the columns of an OrderStore.
+// Kept apart from OrderController so they can be used and benchmarked without JavaFX.
+final class OrderSummaries {
+
+    private OrderSummaries() {}
+
+    // Summary of every order, in the given sort order or as created if null
+    static String orderSummary(OrderStore orders, SortedOrderView.By sortedBy) {
+        StringBuilder summary = new StringBuilder("Current Orders:\n");
+        EntityTables entities = orders.entities();
+
+        IntConsumer appendOrder = row -> {
+            Product product = entities.getProduct(orders.productId(row));
+            summary.append(entities.getCustomer(orders.customerId(row)))
+                    .append(" - ")
+                    .append(product == null ? "?" : product.getName())
+                    .append(" x")
+                    .append(orders.quantity(row))
+                    .append(" (")
+                    .append(LocalDate.ofEpochDay(orders.epochDay(row)))
+                    .append(") - €")
+                    .append(orders.totalCents(row) / 100.0)
+                    .append("\n");
+        };
+        if (sortedBy == null) {
+            orders.forEachRow(appendOrder);
+        } else {
+            orders.sortedBy(sortedBy).forEachRow(appendOrder);
+        }
+        return summary.toString();
+    }
+
+    // Summary of the filtered rows of one customer in one month
+    static String filteredSummary(OrderStore orders, int[] rows, Customer customer, Month month) {
+        StringBuilder summary = new StringBuilder("Orders for " + customer.getName() + " in " + month + ":\n");
+        EntityTables entities = orders.entities();
+        for (int row : rows) {
+            Product product = entities.getProduct(orders.productId(row));
+            summary.append(product == null ? "?" : product.getName()).append(" x").append(orders.quantity(row))
+                    .append(" - €").append(orders.totalCents(row) / 100.0).append("\n");
+        }
+        return summary.toString();
+    }
+}
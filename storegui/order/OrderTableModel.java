@@ -0,0 +1,297 @@
+package com.example.storegui.order;
+
+import com.example.storegui.events.ViewRefreshEvent;
+import javafx.collections.ObservableListBase;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.function.IntPredicate;
+
+/**
+ * The orders of an OrderStore as an observable list for a TableView. Nothing is copied out of the
+ * store: the model only maps table positions to store rows, and hands out an Order for a position
+ * when the table asks for it, which a TableView only does for the rows it is showing.
+ * Sorting by date, product or customer walks a SortedOrderView; sorting by quantity or cost and
+ * filtering keep an array of rows. Sorting, filtering or showing another store is fired as one
+ * replacement of the whole list, so the table lays out the visible rows again but never touches the
+ * others; an order created or removed is fired as just that row, put in its sorted place, and the
+ * filter stays on.
+ */
+public class OrderTableModel extends ObservableListBase<Order> {
+
+    // What the table can be sorted by
+    public enum Column {
+        CUSTOMER, PRODUCT, QUANTITY, DATE, COST
+    }
+
+    private OrderStore store;
+
+    // Rows shown, null for all rows of the store, and which orders added later belong to them
+    private int[] filter;
+    private IntPredicate filterMatches;
+
+    private Column sortColumn;
+    private boolean descending;
+
+    // Rows in the order shown, null while positions map to rows directly or through a sorted view
+    private int[] shown;
+
+    private int size;
+
+    public OrderTableModel(OrderStore store) {
+        this.store = store;
+        update();
+    }
+
+    // Shows the orders of another store, e.g. after loading, keeping sort order and dropping the filter
+    public void setStore(OrderStore store) {
+        this.store = store;
+        this.filter = null;
+        this.filterMatches = null;
+        changed();
+    }
+
+    public OrderStore getStore() {
+        return store;
+    }
+
+    // Sorts by the column, or shows the orders as stored if it is null
+    public void sortBy(Column column, boolean descending) {
+        this.sortColumn = column;
+        this.descending = descending;
+        changed();
+    }
+
+    // Shows only the given rows of the store, or all of them if null; orders added later are shown
+    // if they match
+    public void filter(int[] rows, IntPredicate matches) {
+        this.filter = rows;
+        this.filterMatches = rows == null ? null : matches;
+        changed();
+    }
+
+    public boolean isFiltered() {
+        return filter != null;
+    }
+
+    // The order in the given row was appended to the store; it is shown in its sorted place, if it
+    // matches the filter
+    public void added(int row) {
+        if (filter != null) {
+            if (filterMatches == null || !filterMatches.test(row)) {
+                return;
+            }
+            boolean unsorted = shown == filter;
+            filter = Arrays.copyOf(filter, filter.length + 1);
+            filter[filter.length - 1] = row;
+            if (unsorted) {
+                shown = filter;
+            }
+        }
+        int position;
+        if (shown == filter && filter != null) {
+            position = filter.length - 1;
+        } else if (shown != null) {
+            position = insertionPoint(row);
+            int[] rows = new int[shown.length + 1];
+            System.arraycopy(shown, 0, rows, 0, position);
+            rows[position] = row;
+            System.arraycopy(shown, position, rows, position + 1, shown.length - position);
+            shown = rows;
+        } else {
+            position = sortColumn == null ? row : store.sortedBy(viewFor(sortColumn)).indexOfRow(row);
+        }
+        size++;
+        int index = descending ? size - 1 - position : position;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    // Position in the table of the order in the given row of the store, -1 if it isn't shown; asked
+    // for before the order is removed, as its place in a sorted view is gone after that
+    public int indexOfRow(int row) {
+        int position = -1;
+        if (shown != null) {
+            for (int i = 0; i < shown.length; i++) {
+                if (shown[i] == row) {
+                    position = i;
+                    break;
+                }
+            }
+        } else if (row < size) {
+            position = sortColumn == null ? row : store.sortedBy(viewFor(sortColumn)).indexOfRow(row);
+        }
+        return position < 0 ? -1 : descending ? size - 1 - position : position;
+    }
+
+    // The order shown at the given position, or not shown if -1, was removed from the given row of the
+    // store; the rows after it moved up by one
+    public void removed(int index, int row) {
+        boolean unsorted = shown == filter;
+        if (filter != null) {
+            filter = without(filter, row);
+        }
+        if (unsorted) {
+            shown = filter;
+        } else if (shown != null) {
+            shown = without(shown, row);
+        }
+        if (index < 0) {
+            return;
+        }
+        size--;
+        beginChange();
+        nextRemove(index, (Order) null);
+        endChange();
+    }
+
+    // Row in the store of the order at the given position of the table
+    public int row(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int position = descending ? size - 1 - index : index;
+        if (shown != null) {
+            return shown[position];
+        }
+        if (sortColumn != null) {
+            return store.sortedBy(viewFor(sortColumn)).row(position);
+        }
+        return position;
+    }
+
+    // Total of the order at the given position, at the unit price it was stored with
+    public long totalCents(int index) {
+        return store.totalCents(row(index));
+    }
+
+    @Override
+    public Order get(int index) {
+        return store.get(row(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void changed() {
+        ViewRefreshEvent event = new ViewRefreshEvent();
+        event.begin();
+        int oldSize = size;
+        update();
+        beginChange();
+        // the orders shown before aren't kept anywhere, and the table only needs to know how many there were
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, (Order) null));
+        }
+        if (size > 0) {
+            nextAdd(0, size);
+        }
+        endChange();
+        event.finish("orders.table", size);
+    }
+
+    private void update() {
+        if (filter == null) {
+            size = store.size();
+            shown = sortColumn == Column.QUANTITY || sortColumn == Column.COST ? sortByKey(allRows()) : null;
+        } else {
+            size = filter.length;
+            shown = sortColumn == null ? filter : sortRows(filter);
+        }
+    }
+
+    // Sorts a subset of the rows, through the view for the columns that have one
+    private int[] sortRows(int[] rows) {
+        if (sortColumn == Column.QUANTITY || sortColumn == Column.COST || sortColumn == Column.DATE) {
+            return sortByKey(rows.clone());
+        }
+        // walk the sorted view once and keep the rows in the subset
+        BitSet wanted = new BitSet(store.size());
+        for (int row : rows) {
+            wanted.set(row);
+        }
+        int[] sorted = new int[rows.length];
+        int[] count = new int[1];
+        store.sortedBy(viewFor(sortColumn)).forEachRow(row -> {
+            if (wanted.get(row)) {
+                sorted[count[0]++] = row;
+            }
+        });
+        return sorted;
+    }
+
+    // Sorts the rows by an int key with one primitive sort, keeping rows with equal keys in store order
+    private int[] sortByKey(int[] rows) {
+        long[] keyed = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keyed[i] = sortKey(rows[i]);
+        }
+        Arrays.sort(keyed);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) keyed[i];
+        }
+        return rows;
+    }
+
+    // The column's value in the high half and the row in the low half, so rows compare as sortByKey puts them
+    private long sortKey(int row) {
+        long key = switch (sortColumn) {
+            case QUANTITY -> store.quantity(row);
+            case DATE -> store.epochDay(row);
+            // totals past Integer.MAX_VALUE cents (over €21 million) all sort as the largest
+            default -> Math.min(store.totalCents(row), Integer.MAX_VALUE);
+        };
+        return (key << 32) | row;
+    }
+
+    // Where a new row goes in the sorted rows shown, by binary search on its key or its place in the view
+    private int insertionPoint(int row) {
+        boolean byKey = sortColumn == Column.QUANTITY || sortColumn == Column.COST || sortColumn == Column.DATE;
+        SortedOrderView view = byKey ? null : store.sortedBy(viewFor(sortColumn));
+        long key = byKey ? sortKey(row) : view.indexOfRow(row);
+        int low = 0;
+        int high = shown.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long midKey = byKey ? sortKey(shown[mid]) : view.indexOfRow(shown[mid]);
+            if (midKey < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // The rows without the removed one, and the rows after it moved up by one as they have in the store
+    private static int[] without(int[] rows, int removed) {
+        int[] kept = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            if (row != removed) {
+                kept[count++] = row > removed ? row - 1 : row;
+            }
+        }
+        return count == rows.length ? kept : Arrays.copyOf(kept, count);
+    }
+
+    private int[] allRows() {
+        int[] rows = new int[store.size()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = row;
+        }
+        return rows;
+    }
+
+    private static SortedOrderView.By viewFor(Column column) {
+        return switch (column) {
+            case CUSTOMER -> SortedOrderView.By.CUSTOMER;
+            case PRODUCT -> SortedOrderView.By.PRODUCT;
+            default -> SortedOrderView.By.DATE;
+        };
+    }
+}
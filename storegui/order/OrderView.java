@@ -2,18 +2,26 @@ package com.example.storegui.order;
 
 import com.example.storegui.customer.Customer;
 import com.example.storegui.product.Product;
+import com.example.storegui.report.ReportEngine;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 
 import java.time.Month;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 // Represents the UI of the Order Tab in the store system
 public class OrderView {
 
-    // Dropdown lists for Customers, Products and Orders
-    private final ComboBox<Customer> customerDropdown;
-    private final ComboBox<Product> productDropdown;
+    // Dropdown lists for Customers, Products and Orders; customers and products are searched by typing
+    private final SearchablePicker<Customer> customerDropdown;
+    private final SearchablePicker<Product> productDropdown;
     private final ComboBox<Order> orderDropdown;
 
     // Dropdowns for filtering
@@ -21,6 +29,11 @@ public class OrderView {
     private final ComboBox<Month> filterMonthDropdown;
     private final Button filterButton;
 
+    // Report options: what to group the orders by and what to rank the groups by
+    private final Map<ReportEngine.Key, CheckBox> reportKeys = new EnumMap<>(ReportEngine.Key.class);
+    private final ComboBox<ReportEngine.Measure> reportMeasureDropdown;
+    private final Button reportButton;
+
     // Same fields as Order
     private final TextField quantityField;
     private final DatePicker dateField;
@@ -28,22 +41,26 @@ public class OrderView {
     // Text area to display order
     private final TextArea orderSummaryArea;
 
+    // Table to display orders, only creating cells for the rows in view
+    private final TableView<Order> orderTable;
+    private final CheckBox tableMode;
+
     // Buttons for Creating, Removing, Listing, Saving and Refreshing orders
     private final Button createButton, removeButton, listButton, saveButton, loadButton, refreshButton;
 
     // Buttons for Sorting
-    private final RadioButton sortByDate;
+    private final RadioButton sortByDate, sortByCustomer;
     private final Button sortButton;
 
     public OrderView() {
         // UI Elements
 
         // Setting prompts and buttons
-        customerDropdown = new ComboBox<>();
-        customerDropdown.setPromptText("Select Customer");
+        customerDropdown = new SearchablePicker<>(customer -> Arrays.asList(customer.getName(), customer.getEmail()));
+        customerDropdown.setPromptText("Type a customer name or email");
 
-        productDropdown = new ComboBox<>();
-        productDropdown.setPromptText("Select Product");
+        productDropdown = new SearchablePicker<>(product -> Arrays.asList(product.getName()));
+        productDropdown.setPromptText("Type a product name");
 
         orderDropdown = new ComboBox<>();
         orderDropdown.setPromptText("Select Order");
@@ -57,6 +74,23 @@ public class OrderView {
         orderSummaryArea = new TextArea();
         orderSummaryArea.setEditable(false);
 
+        orderTable = new TableView<>();
+        orderTable.setPlaceholder(new Label("No orders to show."));
+        orderTable.setFixedCellSize(24); // rows of one height, so scrolling never measures them
+        orderTable.getColumns().setAll(List.of(
+                column("Customer", OrderTableModel.Column.CUSTOMER, order -> String.valueOf(order.getCustomer())),
+                column("Product", OrderTableModel.Column.PRODUCT, order -> order.getProduct() == null ? "?" : order.getProduct().getName()),
+                column("Qty", OrderTableModel.Column.QUANTITY, Order::getQuantity),
+                column("Date", OrderTableModel.Column.DATE, Order::getDate),
+                costColumn()));
+        orderTable.setVisible(false);
+
+        tableMode = new CheckBox("Show as table");
+        tableMode.selectedProperty().addListener((_, _, table) -> {
+            orderTable.setVisible(table);
+            orderSummaryArea.setVisible(!table);
+        });
+
         createButton = new Button("Create Order");
         Tooltip createTooltip = new Tooltip("Fill in the details for the Order you want to create");
         createButton.setTooltip(createTooltip);
@@ -90,6 +124,9 @@ public class OrderView {
         RadioButton sortByProduct = new RadioButton("Sort by Product");
         sortByProduct.setToggleGroup(sortGroup);
 
+        sortByCustomer = new RadioButton("Sort by Customer");
+        sortByCustomer.setToggleGroup(sortGroup);
+
         sortButton = new Button("Sort Orders");
         Tooltip sortTooltip = new Tooltip("Click to sort orders");
         listButton.setTooltip(sortTooltip);
@@ -106,19 +143,39 @@ public class OrderView {
         Tooltip filterTooltip = new Tooltip("Click to filter orders");
         listButton.setTooltip(filterTooltip);
 
+        // UI elements for reports
+        reportKeys.put(ReportEngine.Key.CUSTOMER, new CheckBox("Customer"));
+        reportKeys.put(ReportEngine.Key.PRODUCT, new CheckBox("Product"));
+        reportKeys.put(ReportEngine.Key.YEAR, new CheckBox("Year"));
+        reportKeys.put(ReportEngine.Key.MONTH, new CheckBox("Month"));
+        reportKeys.put(ReportEngine.Key.WEEK, new CheckBox("Week"));
+        reportKeys.put(ReportEngine.Key.DAY_OF_WEEK, new CheckBox("Weekday"));
+
+        reportMeasureDropdown = new ComboBox<>();
+        reportMeasureDropdown.getItems().addAll(ReportEngine.Measure.values());
+        reportMeasureDropdown.setValue(ReportEngine.Measure.REVENUE);
+
+        reportButton = new Button("Run Report");
+        Tooltip reportTooltip = new Tooltip("Click to total the orders per group of the ticked boxes");
+        reportButton.setTooltip(reportTooltip);
+
         // Title Label
         Label titleLabel = new Label("Order Management");
 
         // Organize elements horizontally with spacing
         HBox input = new HBox(10, customerDropdown, productDropdown, quantityField, dateField);
-        HBox createBox = new HBox (10, createButton, listButton);
+        HBox createBox = new HBox (10, createButton, listButton, tableMode);
+        StackPane ordersBox = new StackPane(orderSummaryArea, orderTable);
         HBox serializeBox = new HBox(10, saveButton, loadButton);
-        HBox sortingOptions = new HBox(10, sortByDate, sortByProduct, sortButton);
+        HBox sortingOptions = new HBox(10, sortByDate, sortByProduct, sortByCustomer, sortButton);
         HBox filterOptions = new HBox(10, filterCustomerDropdown, filterMonthDropdown, filterButton);
         HBox removeBox = new HBox (10, orderDropdown, removeButton);
+        HBox reportOptions = new HBox(10);
+        reportOptions.getChildren().addAll(reportKeys.values());
+        reportOptions.getChildren().addAll(reportMeasureDropdown, reportButton);
 
         // Organize elements vertically with padding
-        VBox layout = new VBox(10, titleLabel, input, createBox, orderSummaryArea, serializeBox, sortingOptions, filterOptions, removeBox, refreshButton);
+        VBox layout = new VBox(10, titleLabel, input, createBox, ordersBox, serializeBox, sortingOptions, filterOptions, reportOptions, removeBox, refreshButton);
         layout.setPadding(new javafx.geometry.Insets(10));
 
         // Passing the Layout variable into the view to be edited elsewhere
@@ -128,14 +185,43 @@ public class OrderView {
     // Layout
     private final VBox view;
 
+    // A table column showing one value of the order, sorted through the OrderTableModel
+    private static <T> TableColumn<Order, T> column(String title, OrderTableModel.Column sortColumn, Function<Order, T> value) {
+        TableColumn<Order, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        column.setUserData(sortColumn);
+        return column;
+    }
+
+    // The cost uses the unit price stored with the order, so it is read from the model by position
+    private static TableColumn<Order, Order> costColumn() {
+        TableColumn<Order, Order> column = column("Cost", OrderTableModel.Column.COST, order -> order);
+        column.setCellFactory(_ -> new TableCell<>() {
+            @Override
+            protected void updateItem(Order order, boolean empty) {
+                super.updateItem(order, empty);
+                if (empty || order == null) {
+                    setText(null);
+                } else if (getTableView().getItems() instanceof OrderTableModel model) {
+                    setText("€" + model.totalCents(getIndex()) / 100.0);
+                } else {
+                    setText(order.getProduct() == null ? "?" : "€" + order.getProduct().getPrice() * order.getQuantity());
+                }
+            }
+        });
+        return column;
+    }
+
     // Getters for UI components
     public VBox getView() { return view; }
-    public ComboBox<Customer> getCustomerDropdown() { return customerDropdown; }
-    public ComboBox<Product> getProductDropdown() { return productDropdown; }
+    public SearchablePicker<Customer> getCustomerDropdown() { return customerDropdown; }
+    public SearchablePicker<Product> getProductDropdown() { return productDropdown; }
     public ComboBox<Order> getOrderDropdown() { return orderDropdown; }
     public TextField getQuantityField() { return quantityField; }
     public DatePicker getDateField() { return dateField; }
     public TextArea getOrderSummaryArea() { return orderSummaryArea; }
+    public TableView<Order> getOrderTable() { return orderTable; }
+    public CheckBox getTableMode() { return tableMode; }
     public Button getCreateButton() { return createButton; }
     public Button getRemoveButton() { return removeButton; }
     public Button getListButton() { return listButton; }
@@ -144,7 +230,11 @@ public class OrderView {
     public Button getLoadButton() { return loadButton; }
     public Button getSortButton() { return sortButton; }
     public RadioButton getSortByDate() { return sortByDate; }
+    public RadioButton getSortByCustomer() { return sortByCustomer; }
     public ComboBox<Customer> getFilterCustomerDropdown() { return filterCustomerDropdown; }
     public ComboBox<Month> getFilterMonthDropdown() { return filterMonthDropdown; }
     public Button getFilterButton() { return filterButton; }
+    public Map<ReportEngine.Key, CheckBox> getReportKeys() { return reportKeys; }
+    public ComboBox<ReportEngine.Measure> getReportMeasureDropdown() { return reportMeasureDropdown; }
+    public Button getReportButton() { return reportButton; }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+package com.example.storegui.order;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Running sales totals of an OrderStore: revenue, units and number of orders overall and per product,
+ * customer and month, plus products and customers ranked by revenue. The OrderStore that owns it adds
+ * and subtracts every order as it is added or removed, so reports read the totals in constant time,
+ * or logarithmic time for months and rankings, instead of going over every order.
+ * Revenue is at the unit price each order was stored with, in cents.
+ */
+public class SalesAnalytics {
+
+    // Revenue, units and orders of one product, customer, month, or all orders
+    public record Totals(long revenueCents, long units, int orders) {
+    }
+
+    private static final Totals NONE = new Totals(0, 0, 0);
+
+    private final Ranked byProduct = new Ranked();
+    private final Ranked byCustomer = new Ranked();
+
+    // Key is year * 12 + month - 1, value is {revenue, units, orders}
+    private final TreeMap<Integer, long[]> byYearMonth = new TreeMap<>();
+
+    private long revenueCents;
+    private long units;
+    private int orders;
+
+    // Last date converted, orders are usually added in date order
+    private int cachedEpochDay = Integer.MIN_VALUE;
+    private int cachedYearMonth;
+
+    // Totals of every row currently in the store; the rankings are sorted once at the end
+    // instead of being kept sorted row by row
+    SalesAnalytics(OrderStore store) {
+        byProduct.ranking = null;
+        byCustomer.ranking = null;
+        for (int row = 0; row < store.size(); row++) {
+            added(store.customerId(row), store.productId(row), store.quantity(row), store.epochDay(row),
+                    store.unitPriceCents(row));
+        }
+        byProduct.rank();
+        byCustomer.rank();
+    }
+
+    // Queries
+
+    public Totals overall() {
+        return new Totals(revenueCents, units, orders);
+    }
+
+    public Totals forProduct(long productId) {
+        return byProduct.totals(productId);
+    }
+
+    public Totals forCustomer(long customerId) {
+        return byCustomer.totals(customerId);
+    }
+
+    public Totals forMonth(YearMonth month) {
+        long[] totals = byYearMonth.get(month.getYear() * 12 + month.getMonthValue() - 1);
+        return totals == null ? NONE : new Totals(totals[0], totals[1], (int) totals[2]);
+    }
+
+    // Totals of every month with orders, oldest first
+    public SortedMap<YearMonth, Totals> byMonth() {
+        SortedMap<YearMonth, Totals> months = new TreeMap<>();
+        for (Map.Entry<Integer, long[]> entry : byYearMonth.entrySet()) {
+            long[] totals = entry.getValue();
+            months.put(YearMonth.of(entry.getKey() / 12, entry.getKey() % 12 + 1),
+                    new Totals(totals[0], totals[1], (int) totals[2]));
+        }
+        return Collections.unmodifiableSortedMap(months);
+    }
+
+    // Ids of up to n products with the highest revenue, highest first
+    public long[] topProducts(int n) {
+        return byProduct.top(n);
+    }
+
+    // Ids of up to n customers with the highest revenue, highest first
+    public long[] topCustomers(int n) {
+        return byCustomer.top(n);
+    }
+
+    // Maintenance, called by the OrderStore
+
+    void added(long customerId, long productId, int quantity, int epochDay, long unitPriceCents) {
+        update(customerId, productId, quantity, epochDay, unitPriceCents * quantity, 1);
+    }
+
+    void removed(long customerId, long productId, int quantity, int epochDay, long unitPriceCents) {
+        update(customerId, productId, -quantity, epochDay, -unitPriceCents * quantity, -1);
+    }
+
+    private void update(long customerId, long productId, int quantity, int epochDay, long revenue, int count) {
+        revenueCents += revenue;
+        units += quantity;
+        orders += count;
+        byProduct.update(productId, revenue, quantity, count);
+        byCustomer.update(customerId, revenue, quantity, count);
+
+        int yearMonth = yearMonth(epochDay);
+        long[] month = byYearMonth.computeIfAbsent(yearMonth, _ -> new long[3]);
+        month[0] += revenue;
+        month[1] += quantity;
+        month[2] += count;
+        if (month[2] == 0) {
+            byYearMonth.remove(yearMonth);
+        }
+    }
+
+    private int yearMonth(int epochDay) {
+        if (epochDay != cachedEpochDay) {
+            YearMonth month = YearMonth.from(LocalDate.ofEpochDay(epochDay));
+            cachedYearMonth = month.getYear() * 12 + month.getMonthValue() - 1;
+            cachedEpochDay = epochDay;
+        }
+        return cachedYearMonth;
+    }
+
+    // Totals per id in arrays indexed by a slot number, handed out in the order ids are first seen, so
+    // the arrays are sized by the number of products or customers with orders, not by the largest id.
+    // An open addressing table finds the slot of an id. The ids with orders are kept sorted by revenue.
+    private static final class Ranked {
+        private long[] ids = new long[64];
+        private long[] revenue = new long[64];
+        private long[] units = new long[64];
+        private int[] orders = new int[64];
+        private int size;
+
+        // Slot + 1 of the id hashed to each position, 0 if the position is free
+        private int[] table = new int[128];
+
+        // Slots of ids with orders, highest revenue first, then lowest id; a slot is taken out before its
+        // revenue changes. Null while the totals are first added up.
+        private TreeSet<Integer> ranking;
+
+        // Sorts every id with orders into a new ranking
+        void rank() {
+            ranking = new TreeSet<>((a, b) -> {
+                int byRevenue = Long.compare(revenue[b], revenue[a]);
+                return byRevenue != 0 ? byRevenue : Long.compare(ids[a], ids[b]);
+            });
+            for (int slot = 0; slot < size; slot++) {
+                if (orders[slot] > 0) {
+                    ranking.add(slot);
+                }
+            }
+        }
+
+        Totals totals(long id) {
+            int slot = slotOf(id);
+            if (slot < 0 || orders[slot] == 0) {
+                return NONE;
+            }
+            return new Totals(revenue[slot], units[slot], orders[slot]);
+        }
+
+        long[] top(int n) {
+            long[] top = new long[Math.min(n, ranking.size())];
+            Iterator<Integer> iterator = ranking.iterator();
+            for (int i = 0; i < top.length; i++) {
+                top[i] = ids[iterator.next()];
+            }
+            return top;
+        }
+
+        void update(long id, long revenueChange, int unitChange, int orderChange) {
+            int slot = slotOf(id);
+            if (slot < 0) {
+                slot = add(id);
+            }
+            if (ranking != null && orders[slot] > 0) {
+                ranking.remove(slot);
+            }
+            revenue[slot] += revenueChange;
+            units[slot] += unitChange;
+            orders[slot] += orderChange;
+            if (ranking != null && orders[slot] > 0) {
+                ranking.add(slot);
+            }
+        }
+
+        // Slot of the id, or -1 if it never had an order
+        private int slotOf(long id) {
+            int mask = table.length - 1;
+            for (int i = hash(id) & mask; table[i] != 0; i = (i + 1) & mask) {
+                if (ids[table[i] - 1] == id) {
+                    return table[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        // Gives the id the next slot; slots are kept when an id has no orders left
+        private int add(long id) {
+            if (size == ids.length) {
+                int length = size * 2;
+                ids = Arrays.copyOf(ids, length);
+                revenue = Arrays.copyOf(revenue, length);
+                units = Arrays.copyOf(units, length);
+                orders = Arrays.copyOf(orders, length);
+            }
+            int slot = size++;
+            ids[slot] = id;
+            if (size * 2 > table.length) {
+                table = new int[table.length * 2];
+                for (int i = 0; i < size; i++) {
+                    place(i);
+                }
+            } else {
+                place(slot);
+            }
+            return slot;
+        }
+
+        private void place(int slot) {
+            int mask = table.length - 1;
+            int i = hash(ids[slot]) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = slot + 1;
+        }
+
+        private static int hash(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
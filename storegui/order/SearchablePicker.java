@@ -0,0 +1,215 @@
+package com.example.storegui.order;
+
+import com.example.storegui.events.ViewRefreshEvent;
+import com.example.storegui.utils.PrefixIndex;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ComboBox;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A ComboBox to type into: it only ever holds the first matches for the text typed so far, looked up
+ * in a PrefixIndex over the keys of every item (e.g. a customer's name and email), instead of holding
+ * every item. Searches run on a background thread; when keys are typed faster than they are searched,
+ * only the latest text is searched. Items added to, removed from or replaced in the list are taken
+ * into and out of the index in the background, so editing one product never indexes all of them again;
+ * only a new source list is indexed from scratch.
+ */
+public class SearchablePicker<T> extends ComboBox<T> {
+
+    // Matches shown at once
+    private static final int LIMIT = 50;
+
+    // Items changed within this time are merged into the index together, e.g. pages loaded from the database
+    private static final Duration CHANGE_DELAY = Duration.millis(100);
+
+    // One thread for the searches and index builds of every picker, so they never pile up
+    private static final ExecutorService SEARCHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "picker-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Function<T, ? extends Collection<String>> keysOf;
+
+    // Only written on the search thread, so index changes apply in the order they were queued
+    private volatile PrefixIndex<T> index = PrefixIndex.empty();
+
+    // Text waiting to be searched, null while no search is queued
+    private final AtomicReference<Query> pendingQuery = new AtomicReference<>();
+
+    private List<T> source = List.of();
+    private final ListChangeListener<T> sourceListener = this::sourceChanged;
+
+    // Changes since the last merge into the index: whether every item was replaced, then the items
+    // taken out and put in
+    private boolean pendingClear;
+    private List<T> pendingRemoves = new ArrayList<>();
+    private List<T> pendingAdds = new ArrayList<>();
+    private final PauseTransition changeDelay = new PauseTransition(CHANGE_DELAY);
+
+    // Time from the last key typed to its matches being shown
+    private volatile long lastLatencyNanos;
+
+    public SearchablePicker(Function<T, ? extends Collection<String>> keysOf) {
+        this.keysOf = keysOf;
+        setEditable(true);
+        setConverter(new StringConverter<>() {
+            @Override
+            public String toString(T item) {
+                return item == null ? "" : item.toString();
+            }
+
+            // The match with exactly this text, or the only match left
+            @Override
+            public T fromString(String text) {
+                for (T item : getItems()) {
+                    if (toString(item).equals(text)) {
+                        return item;
+                    }
+                }
+                return getItems().size() == 1 ? getItems().get(0) : null;
+            }
+        });
+        changeDelay.setOnFinished(_ -> mergeChanges());
+        getEditor().textProperty().addListener((_, _, text) -> search(text));
+    }
+
+    // Items to pick from, e.g. every customer; changes to an observable list are picked up by themselves
+    public void setSource(List<T> items) {
+        if (source instanceof ObservableList<T> observable) {
+            observable.removeListener(sourceListener);
+        }
+        source = items;
+        if (items instanceof ObservableList<T> observable) {
+            observable.addListener(sourceListener);
+        }
+        rebuild();
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    // Only the items involved are copied here; the index is changed on the search thread
+    private void sourceChanged(ListChangeListener.Change<? extends T> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                // the same items, and matches are found by key rather than by position
+                continue;
+            }
+            if (change.wasUpdated()) {
+                // keys changed in place, so the item's keys are taken out and put in again
+                for (T item : change.getList().subList(change.getFrom(), change.getTo())) {
+                    removed(item);
+                    pendingAdds.add(item);
+                }
+                continue;
+            }
+            if (change.getAddedSize() == change.getList().size()) {
+                // every item was replaced, e.g. by loading a store, so the old ones needn't be looked at
+                pendingClear = true;
+                pendingRemoves = new ArrayList<>();
+                pendingAdds = new ArrayList<>(change.getAddedSubList());
+                continue;
+            }
+            for (T item : change.getRemoved()) {
+                removed(item);
+            }
+            pendingAdds.addAll(change.getAddedSubList());
+        }
+        changeDelay.playFromStart();
+    }
+
+    // An item added since the last merge is dropped from the adds, any other is taken out of the index
+    private void removed(T item) {
+        if (!pendingAdds.remove(item)) {
+            pendingRemoves.add(item);
+        }
+    }
+
+    private void mergeChanges() {
+        boolean clear = pendingClear;
+        List<T> removed = pendingRemoves;
+        List<T> added = pendingAdds;
+        pendingClear = false;
+        pendingRemoves = new ArrayList<>();
+        pendingAdds = new ArrayList<>();
+        if (clear) {
+            updateIndex(() -> new PrefixIndex<>(added, keysOf));
+        } else if (!removed.isEmpty() || !added.isEmpty()) {
+            updateIndex(() -> index.minus(removed).plus(added));
+        }
+    }
+
+    // Copies the items here, as the list may change on this thread while the index is built on the other
+    private void rebuild() {
+        changeDelay.stop();
+        pendingClear = false;
+        pendingRemoves = new ArrayList<>();
+        pendingAdds = new ArrayList<>();
+        List<T> snapshot = new ArrayList<>(source);
+        updateIndex(() -> new PrefixIndex<>(snapshot, keysOf));
+    }
+
+    // Makes the new index on the search thread, then searches the current text again
+    private void updateIndex(Supplier<PrefixIndex<T>> update) {
+        SEARCHER.execute(() -> {
+            index = update.get();
+            Platform.runLater(() -> search(getEditor().getText()));
+        });
+    }
+
+    private void search(String text) {
+        if (text == null) {
+            text = "";
+        }
+        // the text was set by picking an item, not typed
+        if (getValue() != null && text.equals(getConverter().toString(getValue()))) {
+            return;
+        }
+        // a search already queued takes the new text instead of queueing another one
+        if (pendingQuery.getAndSet(new Query(text, System.nanoTime())) == null) {
+            SEARCHER.execute(this::runSearch);
+        }
+    }
+
+    // Runs on the search thread
+    private void runSearch() {
+        Query query = pendingQuery.getAndSet(null);
+        if (query == null) {
+            return;
+        }
+        List<T> matches = index.search(query.text, LIMIT);
+        Platform.runLater(() -> {
+            // matches for text that has been typed over are dropped
+            if (!query.text.equals(Objects.toString(getEditor().getText(), ""))) {
+                return;
+            }
+            ViewRefreshEvent event = new ViewRefreshEvent();
+            event.begin();
+            getItems().setAll(matches);
+            event.finish("orders.picker", matches.size());
+            lastLatencyNanos = System.nanoTime() - query.typedNanos;
+            if (!isShowing() && getEditor().isFocused() && !matches.isEmpty()) {
+                show();
+            }
+        });
+    }
+
+    private record Query(String text, long typedNanos) {
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.storegui.order;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.product.Product;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongFunction;
+
+/**
+ * The orders of an OrderStore in sorted order, without moving the rows of the store. The view is a
+ * treap (a binary search tree kept balanced by random priorities) over the order ids, where every node
+ * also counts the nodes below it, so the order at any position is found in O(log n) as well.
+ * The OrderStore updates its views as orders are added and removed, in O(log n) each, so switching
+ * between views never sorts or copies anything. Orders that compare equal stay in the order they were
+ * added in.
+ */
+public class SortedOrderView extends AbstractList<Order> implements RandomAccess {
+
+    // What the orders are sorted by
+    public enum By {
+        DATE, PRODUCT, CUSTOMER
+    }
+
+    private static final int NIL = -1;
+
+    private final OrderStore store;
+    private final By by;
+
+    // Tree nodes, indexed by order id
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private int[] count = new int[0];
+    private int root = NIL;
+
+    // Builds the view over every order currently in the store, created through OrderStore.sortedBy
+    SortedOrderView(OrderStore store, By by) {
+        this.store = store;
+        this.by = by;
+        build();
+    }
+
+    public By getSortedBy() {
+        return by;
+    }
+
+    // Reading the view
+
+    @Override
+    public Order get(int index) {
+        return store.get(row(index));
+    }
+
+    @Override
+    public int size() {
+        return count(root);
+    }
+
+    // Row in the store of the order at the given position of the view
+    public int row(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        int node = root;
+        while (true) {
+            int before = count(left[node]);
+            if (index < before) {
+                node = left[node];
+            } else if (index == before) {
+                return store.rowOf(node);
+            } else {
+                index -= before + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    // Position in the view of the order in the given row, found in O(log n) by walking down to it
+    public int indexOfRow(int row) {
+        int id = store.orderId(row);
+        int index = 0;
+        int node = root;
+        while (node != NIL) {
+            int result = compare(id, node);
+            if (result < 0) {
+                node = left[node];
+            } else if (result > 0) {
+                index += count(left[node]) + 1;
+                node = right[node];
+            } else {
+                return index + count(left[node]);
+            }
+        }
+        return -1;
+    }
+
+    // Calls the action with the row of every order, in sorted order
+    public void forEachRow(IntConsumer action) {
+        // in-order walk with an explicit stack, the tree is O(log n) deep
+        int[] stack = new int[64];
+        int depth = 0;
+        int node = root;
+        while (node != NIL || depth > 0) {
+            while (node != NIL) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+                node = left[node];
+            }
+            node = stack[--depth];
+            action.accept(store.rowOf(node));
+            node = right[node];
+        }
+    }
+
+    // Updates, called by the OrderStore while the order's row holds its values
+
+    void inserted(int orderId) {
+        grow(orderId);
+        left[orderId] = NIL;
+        right[orderId] = NIL;
+        count[orderId] = 1;
+        root = insert(root, orderId);
+    }
+
+    void removed(int orderId) {
+        root = remove(root, orderId);
+    }
+
+    // Ordering of two orders by id
+
+    private int compare(int a, int b) {
+        int rowA = store.rowOf(a);
+        int rowB = store.rowOf(b);
+        int result = switch (by) {
+            case DATE -> Integer.compare(store.epochDay(rowA), store.epochDay(rowB));
+            case PRODUCT -> compareNamed(store.productId(rowA), store.productId(rowB),
+                    store.entities()::getProduct, Product::getName);
+            case CUSTOMER -> compareNamed(store.customerId(rowA), store.customerId(rowB),
+                    store.entities()::getCustomer, Customer::getName);
+        };
+        // ids are handed out in sequence, so equal orders keep the order they were added in
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    // By name, then by id for different entities with the same name; ids nobody has come first
+    private static <T> int compareNamed(long idA, long idB, LongFunction<T> lookup, Function<T, String> name) {
+        if (idA == idB) {
+            return 0;
+        }
+        T a = lookup.apply(idA);
+        T b = lookup.apply(idB);
+        int result = a == null || b == null
+                ? Boolean.compare(a != null, b != null)
+                : name.apply(a).compareTo(name.apply(b));
+        return result != 0 ? result : Long.compare(idA, idB);
+    }
+
+    // Treap operations
+
+    private int insert(int node, int id) {
+        if (node == NIL) {
+            return id;
+        }
+        if (priority(id) > priority(node)) {
+            // the new node goes here, and the subtree is split around it
+            split(node, id);
+            return update(id);
+        }
+        if (compare(id, node) < 0) {
+            left[node] = insert(left[node], id);
+        } else {
+            right[node] = insert(right[node], id);
+        }
+        return update(node);
+    }
+
+    // Splits the subtree into the nodes before and after the id, and hangs them below the id
+    private void split(int node, int id) {
+        if (node == NIL) {
+            left[id] = NIL;
+            right[id] = NIL;
+            return;
+        }
+        if (compare(node, id) < 0) {
+            split(right[node], id);
+            right[node] = left[id];
+            left[id] = update(node);
+        } else {
+            split(left[node], id);
+            left[node] = right[id];
+            right[id] = update(node);
+        }
+    }
+
+    private int remove(int node, int id) {
+        if (node == NIL) {
+            return NIL;
+        }
+        if (node == id) {
+            return merge(left[node], right[node]);
+        }
+        if (compare(id, node) < 0) {
+            left[node] = remove(left[node], id);
+        } else {
+            right[node] = remove(right[node], id);
+        }
+        return update(node);
+    }
+
+    // Joins two subtrees where every node of the first comes before every node of the second
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+        if (priority(a) > priority(b)) {
+            right[a] = merge(right[a], b);
+            return update(a);
+        }
+        left[b] = merge(a, left[b]);
+        return update(b);
+    }
+
+    private int update(int node) {
+        count[node] = count(left[node]) + count(right[node]) + 1;
+        return node;
+    }
+
+    private int count(int node) {
+        return node == NIL ? 0 : count[node];
+    }
+
+    // Priorities are a hash of the id, random enough to keep the tree balanced without storing them
+    private static int priority(int id) {
+        int h = id * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private void grow(int id) {
+        if (id >= left.length) {
+            int length = Math.max(id + 1, left.length * 2);
+            left = Arrays.copyOf(left, length);
+            right = Arrays.copyOf(right, length);
+            count = Arrays.copyOf(count, length);
+        }
+    }
+
+    // Building the whole view at once
+
+    private void build() {
+        int size = store.size();
+        // sort key in the high half and order id in the low half, so one primitive sort orders them
+        int[] rank = switch (by) {
+            case DATE -> null;
+            case PRODUCT -> ranks(size, store::productId, store.entities()::getProduct, Product::getName);
+            case CUSTOMER -> ranks(size, store::customerId, store.entities()::getCustomer, Customer::getName);
+        };
+        long[] keyed = new long[size];
+        int maxId = -1;
+        for (int row = 0; row < size; row++) {
+            int key = switch (by) {
+                case DATE -> store.epochDay(row);
+                case PRODUCT -> rank[(int) store.productId(row)];
+                case CUSTOMER -> rank[(int) store.customerId(row)];
+            };
+            int id = store.orderId(row);
+            keyed[row] = ((long) key << 32) | id;
+            maxId = Math.max(maxId, id);
+        }
+        Arrays.sort(keyed);
+        grow(maxId);
+
+        // the nodes come in sorted order, so the tree is built in one pass along its right edge
+        int[] spine = new int[64];
+        int depth = 0;
+        for (long key : keyed) {
+            int id = (int) key;
+            left[id] = NIL;
+            right[id] = NIL;
+            int last = NIL;
+            while (depth > 0 && priority(spine[depth - 1]) < priority(id)) {
+                last = update(spine[--depth]);
+            }
+            left[id] = last;
+            if (depth > 0) {
+                right[spine[depth - 1]] = id;
+            }
+            if (depth == spine.length) {
+                spine = Arrays.copyOf(spine, depth * 2);
+            }
+            spine[depth++] = id;
+        }
+        while (depth > 1) {
+            update(spine[--depth]);
+        }
+        root = depth == 0 ? NIL : update(spine[0]);
+    }
+
+    // Rank of every id in the column, in the order compareNamed puts them
+    private <T> int[] ranks(int size, IntToLongFunction column, LongFunction<T> lookup, Function<T, String> name) {
+        BitSet used = new BitSet();
+        for (int row = 0; row < size; row++) {
+            used.set((int) column.applyAsLong(row));
+        }
+        Integer[] ids = used.stream().boxed().toArray(Integer[]::new);
+        Comparator<Integer> byName = (a, b) -> compareNamed(a, b, lookup, name);
+        Arrays.sort(ids, byName);
+        int[] rank = new int[used.length()];
+        for (int i = 0; i < ids.length; i++) {
+            rank[ids[i]] = i;
+        }
+        return rank;
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.storegui.product;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Represents a product in the store system
 public class Product implements Serializable {
@@ -9,13 +14,37 @@ public class Product implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    // Atomic access to the stock field, see compareAndSetStock
+    private static final VarHandle STOCK;
+
+    static {
+        try {
+            STOCK = MethodHandles.lookup().findVarHandle(Product.class, "stock", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Id for the next product created without one, kept above every id created with so far
+    private static final AtomicLong nextId = new AtomicLong(1);
+
+    private long id;            // Stable id, orders refer to products by it
     private String name;        // Product name
     private double price;       // Price of the product
-    private int stock;          // Available stock quantity
+    private volatile int stock; // Available stock quantity, changed concurrently by InventoryService
     private String description; // Short description of the product
 
     // Constructor
     public Product(String name, double price, int stock, String description) {
+        this(0, name, price, stock, description);
+    }
+
+    // Constructor for a product that already has an id, e.g. one read from a file; 0 assigns a new id
+    public Product(long id, String name, double price, int stock, String description) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id cannot be negative.");
+        }
+        this.id = id != 0 ? reserved(id) : nextId.getAndIncrement();
         this.name = name;
         this.price = price;
         this.stock = stock;
@@ -23,6 +52,10 @@ public class Product implements Serializable {
     }
 
     // Getter methods
+    public long getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -56,6 +89,40 @@ public class Product implements Serializable {
         this.description = description;
     }
 
+    // Sets the stock only if it still is the expected value, so concurrent changes can't get lost
+    public boolean compareAndSetStock(int expected, int stock) {
+        return STOCK.compareAndSet(this, expected, stock);
+    }
+
+    // Products are the same product if they have the same id, even after being edited
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Product product = (Product) o;
+        return id == product.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    // Products saved before they had ids are given one when read
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        id = id != 0 ? reserved(id) : nextId.getAndIncrement();
+    }
+
+    // Keeps new ids above an id that is already taken
+    private static long reserved(long id) {
+        if (id >= nextId.get()) {
+            nextId.accumulateAndGet(id + 1, Math::max);
+        }
+        return id;
+    }
+
     // Format: "Customer - Product - Stock" , description can be seen when pressing on the item
     @Override
     public String toString() {
@@ -1,8 +1,15 @@
 package com.example.storegui.product;
 
+import com.example.storegui.events.ViewRefreshEvent;
+import com.example.storegui.metrics.Counter;
+import com.example.storegui.metrics.LatencyHistogram;
+import com.example.storegui.metrics.Metrics;
 import com.example.storegui.utils.DataManager;
+import com.example.storegui.utils.ObservableRecordList;
+import com.example.storegui.utils.StoreJournal;
 import com.example.storegui.model.StoreData;
 import com.example.storegui.customer.CustomerController;
+import com.example.storegui.inventory.InventoryService;
 import com.example.storegui.order.OrderController;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
@@ -10,13 +17,19 @@ import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
 import javafx.stage.Stage;
 
-import java.util.ArrayList;
+import java.util.List;
 
 // Represents the functions of the Product Tab in the store system
 public class ProductController {
 
-    // array to hold the list of products
-    private static ArrayList<Product> productList = new ArrayList<>();
+    // observable list of products, shown by the list view itself so every change updates only its own rows
+    private static final ObservableRecordList<Product> productList = new ObservableRecordList<>();
+
+    // Time from the click to the result of each action, and actions that failed, see Metrics
+    private static final LatencyHistogram CREATE_TIME = Metrics.getInstance().histogram("ui.product.create");
+    private static final LatencyHistogram SAVE_TIME = Metrics.getInstance().histogram("ui.product.save");
+    private static final LatencyHistogram LOAD_TIME = Metrics.getInstance().histogram("ui.product.load");
+    private static final Counter FAILURES = Metrics.getInstance().counter("ui.product.failures");
 
     // variable for using ProductView class
     private final ProductView view;
@@ -34,6 +47,7 @@ public class ProductController {
 
     // adding a product
     private void addProduct() {
+        long start = System.nanoTime();
         String name = view.getNameField().getText();
         String priceText = view.getPriceField().getText();
         String stockText = view.getStockField().getText();
@@ -45,16 +59,20 @@ public class ProductController {
                 // add a new product to list
                 double price = Double.parseDouble(priceText);
                 int stock = Integer.parseInt(stockText);
-                productList.add(new Product(name, price, stock, description));
+                Product product = new Product(name, price, stock, description);
+                productList.add(product);
+                DataManager.getInstance().recordChange(StoreJournal.Entry.productAdded(product), this::journalFailed);
 
                 // and then clears all the fields
                 view.getNameField().clear();
                 view.getPriceField().clear();
                 view.getStockField().clear();
                 view.getDescriptionField().clear();
+                CREATE_TIME.recordSince(start);
 
             } catch (NumberFormatException e) {
                 // make sure right characters are input
+                FAILURES.increment();
                 showAlert("Price and Stock must be numeric.");
             }
         } else {
@@ -70,21 +88,33 @@ public class ProductController {
         storeData.setProducts(productList);
         storeData.setOrders(OrderController.getOrders());
 
+        long start = System.nanoTime();
         DataManager.getInstance().saveAllDataInThread(storeData,
-                () -> showAlert("All data saved successfully."),
-                () -> showAlert("Error saving all data.")
+                () -> {
+                    SAVE_TIME.recordSince(start);
+                    showAlert("All data saved successfully.");
+                },
+                () -> {
+                    FAILURES.increment();
+                    showAlert("Error saving all data.");
+                }
         );
     }
 
-    // loading product list from a file
+    // loading product list from a file, records are only decoded once they are shown or used
     private void loadProducts() {
-        DataManager.getInstance().loadAllDataInThread(storeData -> {
-            productList = storeData.getProducts();
-            CustomerController.setCustomers(storeData.getCustomers());
-            OrderController.setOrders(storeData.getOrders());
+        long start = System.nanoTime();
+        DataManager.getInstance().openStoreInThread(store -> {
+            setProducts(store.products());
+            CustomerController.setCustomers(store.customers());
+            OrderController.setOrders(store.orderStore());
             updateDisplay();
+            LOAD_TIME.recordSince(start);
             showAlert("All data loaded successfully.");
-        }, () -> showAlert("Error loading all data."));
+        }, () -> {
+            FAILURES.increment();
+            showAlert("Error loading all data.");
+        });
     }
 
 
@@ -117,14 +147,20 @@ public class ProductController {
             int newStock = Integer.parseInt(stockText);
 
             // Update product details
+            String oldName = selected.getName();
             selected.setName(newName);
             selected.setPrice(newPrice);
             selected.setStock(newStock);
             selected.setDescription(newDescription);
 
-            // Refresh UI
-            updateDisplay();
-            saveProducts();
+            // Orders sorted by product name have to be sorted again
+            if (!oldName.equals(newName) && OrderController.getOrders() != null) {
+                OrderController.getOrders().namesChanged();
+            }
+
+            // Refresh UI, setting the product again tells the list view to redraw just that row
+            productList.set(productList.indexOf(selected), selected);
+            DataManager.getInstance().recordChange(StoreJournal.Entry.productEdited(oldName, selected), this::journalFailed);
 
             // and then clears all the fields
             view.getNameField().clear();
@@ -163,7 +199,7 @@ public class ProductController {
             if (choice == yes) {
                 productList.remove(selected); // Remove from list
                 updateDisplay(); // Refresh UI
-                saveProducts();}
+                DataManager.getInstance().recordChange(StoreJournal.Entry.productRemoved(selected), this::journalFailed);}
         });
     }
 
@@ -216,6 +252,12 @@ public class ProductController {
         });
     }
 
+    // The change stays queued and is written once the journal works again, or with the next save
+    private void journalFailed() {
+        FAILURES.increment();
+        showAlert("Error saving the change, it will be saved again shortly.");
+    }
+
     // displays warning when an issue occurs
     public void showAlert(String message) {
         Platform.runLater(() -> {
@@ -228,7 +270,7 @@ public class ProductController {
     }
 
     // assigning an action to each button
-    private void setupEventHandlers(ArrayList<Product> products) {
+    private void setupEventHandlers(List<Product> products) {
         view.getAddButton().setOnAction(_ -> addProduct());
         view.getListButton().setOnAction(_ -> updateDisplay());
         view.getEditButton().setOnAction(_ -> editProduct());
@@ -253,38 +295,46 @@ public class ProductController {
         });
     }
 
-    // clears text area and appends all product details
+    // shows the product list in the list view; changes to it show up by themselves after that
     private void updateDisplay() {
-        view.getProductListView().getItems().setAll(productList);
+        if (view.getProductListView().getItems() != productList) {
+            ViewRefreshEvent event = new ViewRefreshEvent();
+            event.begin();
+            view.getProductListView().setItems(productList);
+            event.finish("products.list", productList.size());
+        }
     }
 
     // returning the finished list of products
-    public static ArrayList<Product> getProducts() {
+    public static ObservableRecordList<Product> getProducts() {
         return productList;
     }
 
-    // Reduces stock for a product if enough stock is available
+    // Reduces stock for a product if enough stock is available, checked and reduced atomically
     public void reduceStock(Product product, int amount) {
-        if (sufficientStock(product, amount)) {
-            product.setStock(product.getStock() - amount);
-            saveProducts(); // Save changes after reducing stock
+        InventoryService inventory = InventoryService.getInstance();
+        InventoryService.Reservation reservation = inventory.reserve(product, amount);
+        if (reservation != null) {
+            inventory.commit(reservation); // Journals the new stock level
         } else {
             showAlert("Insufficient stock for " + product.getName());
         }
     }
 
     // Reload Customer and Product Lists after being added
-    private void refreshView(ArrayList<Product> products) {
+    private void refreshView(List<Product> products) {
         setupEventHandlers(products);
     }
 
     // Checks if there is enough stock for the requested amount
     public boolean sufficientStock(Product product, int amount) {
-        return product.getStock() >= amount;
+        return InventoryService.getInstance().available(product) >= amount;
     }
 
-    // Method to help load products
-    public static void setProducts(ArrayList<Product> products) {
-        productList = products;
+    // Method to help load products, the one product list holds these from now on without copying them
+    public static void setProducts(List<Product> products) {
+        if (products != productList) {
+            productList.setContents(products);
+        }
     }
 }
\ No newline at end of file
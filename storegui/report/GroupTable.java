@@ -0,0 +1,123 @@
+package com.example.storegui.report;
+
+/**
+ * Sums of revenue, units and orders per group, where a group is a fixed number of int key values,
+ * e.g. customer id, product id and week. Keys and sums live in flat arrays with open addressing,
+ * so adding an order neither boxes nor allocates. Used by one thread at a time.
+ */
+final class GroupTable {
+
+    // Sums per slot: revenue in cents, units, orders; a slot is in use once it has an order
+    static final int REVENUE = 0;
+    static final int UNITS = 1;
+    static final int ORDERS = 2;
+    private static final int SUMS = 3;
+
+    private final int width;
+    private int[] keys;
+    private long[] sums;
+    private int mask;
+    private int size;
+
+    GroupTable(int width) {
+        this.width = width;
+        allocate(64);
+    }
+
+    int width() {
+        return width;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Adds an order to the group with the given key values, the first width values of key
+    void add(int[] key, long revenueCents, long units, long orders) {
+        int slot = slotOf(key, 0);
+        int base = slot * SUMS;
+        if (sums[base + ORDERS] == 0) {
+            System.arraycopy(key, 0, keys, slot * width, width);
+            size++;
+        }
+        sums[base + REVENUE] += revenueCents;
+        sums[base + UNITS] += units;
+        sums[base + ORDERS] += orders;
+        if (size * 2 > mask + 1) {
+            grow();
+        }
+    }
+
+    // Adds every group of the other table to this one
+    void merge(GroupTable other) {
+        int[] key = new int[width];
+        for (int slot = 0; slot <= other.mask; slot++) {
+            long orders = other.sums[slot * SUMS + ORDERS];
+            if (orders != 0) {
+                System.arraycopy(other.keys, slot * width, key, 0, width);
+                add(key, other.sums[slot * SUMS + REVENUE], other.sums[slot * SUMS + UNITS], orders);
+            }
+        }
+    }
+
+    // Calls the visitor with the key values and sums of every group, in no particular order
+    void forEach(Visitor visitor) {
+        int[] key = new int[width];
+        for (int slot = 0; slot <= mask; slot++) {
+            long orders = sums[slot * SUMS + ORDERS];
+            if (orders != 0) {
+                System.arraycopy(keys, slot * width, key, 0, width);
+                visitor.visit(key, sums[slot * SUMS + REVENUE], sums[slot * SUMS + UNITS], orders);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(int[] key, long revenueCents, long units, long orders);
+    }
+
+    // Slot holding the key, or the free slot where it goes
+    private int slotOf(int[] key, int offset) {
+        int hash = 0;
+        for (int i = 0; i < width; i++) {
+            hash = hash * 0x9E3779B9 + key[offset + i];
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            if (sums[slot * SUMS + ORDERS] == 0 || matches(slot, key, offset)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean matches(int slot, int[] key, int offset) {
+        int base = slot * width;
+        for (int i = 0; i < width; i++) {
+            if (keys[base + i] != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldSums = sums;
+        allocate((mask + 1) * 2);
+        for (int slot = 0; slot < oldSums.length / SUMS; slot++) {
+            if (oldSums[slot * SUMS + ORDERS] != 0) {
+                int to = slotOf(oldKeys, slot * width);
+                System.arraycopy(oldKeys, slot * width, keys, to * width, width);
+                System.arraycopy(oldSums, slot * SUMS, sums, to * SUMS, SUMS);
+            }
+        }
+    }
+
+    private void allocate(int slots) {
+        keys = new int[slots * Math.max(width, 1)];
+        sums = new long[slots * SUMS];
+        mask = slots - 1;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.storegui.report;
+
+import com.example.storegui.model.StoreData;
+import com.example.storegui.utils.DataManager;
+
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Runs a report over the saved orders from the command line, without starting the GUI, and prints it as CSV:
+// ReportCli [--group-by customer,product,week] [--measures revenue,units,orders,average_order]
+//           [--from yyyy-mm-dd] [--to yyyy-mm-dd] [--top N] [--threads N]
+public class ReportCli {
+
+    public static void main(String[] args) throws Exception {
+        ReportEngine.Builder builder = new ReportEngine.Builder();
+        try {
+            LocalDate from = null;
+            LocalDate to = null;
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--group-by" -> builder.groupBy(parse(args[++i], ReportEngine.Key.class).toArray(new ReportEngine.Key[0]));
+                    case "--measures" -> builder.measures(parse(args[++i], ReportEngine.Measure.class).toArray(new ReportEngine.Measure[0]));
+                    case "--from" -> from = LocalDate.parse(args[++i]);
+                    case "--to" -> to = LocalDate.parse(args[++i]);
+                    case "--top" -> builder.limit(Integer.parseInt(args[++i]));
+                    case "--threads" -> builder.parallelism(Integer.parseInt(args[++i]));
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            builder.between(from, to);
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ReportCli [--group-by customer,product,year,month,week,day_of_week] "
+                    + "[--measures revenue,units,orders,average_order] [--from yyyy-mm-dd] [--to yyyy-mm-dd] "
+                    + "[--top N] [--threads N]");
+            System.exit(2);
+        }
+        ReportEngine engine = builder.build();
+
+        StoreData storeData = DataManager.getInstance().loadAllData();
+        ReportEngine.Report report = engine.run(storeData.getOrders());
+
+        PrintWriter out = new PrintWriter(System.out);
+        report.writeCsv(out);
+        out.flush();
+        System.err.printf("%d groups from %d orders in %.1f ms%n",
+                report.getGroupCount(), report.getOrdersScanned(), report.getElapsedNanos() / 1e6);
+    }
+
+    // Comma separated enum names, in any case
+    private static <E extends Enum<E>> List<E> parse(String names, Class<E> type) {
+        List<E> values = new ArrayList<>();
+        for (String name : names.split(",")) {
+            values.add(Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT)));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.storegui.report;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.EntityTables;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Ad-hoc reports over every order of an OrderStore, grouped by any combination of customer, product
+ * and period, e.g. revenue by customer x product x week. The rows are split into ranges that a
+ * ForkJoinPool scans in parallel; every worker thread adds the orders it scans into a GroupTable of
+ * its own, and the tables are merged once all ranges are done, so threads never share a table.
+ * The store must not change while a report runs; run it on a copy if it may.
+ */
+public class ReportEngine {
+
+    // What orders can be grouped by
+    public enum Key {
+        CUSTOMER, PRODUCT, YEAR, MONTH, WEEK, DAY_OF_WEEK
+    }
+
+    // What is reported per group; reports are sorted by the first measure, highest first
+    public enum Measure {
+        REVENUE, UNITS, ORDERS, AVERAGE_ORDER
+    }
+
+    // Rows scanned as one task; a multiple of the OrderStore's chunk size, so tasks split on chunk boundaries
+    private static final int RANGE_ROWS = 1 << 16;
+
+    private final List<Key> groupBy;
+    private final List<Measure> measures;
+    private final int fromEpochDay;
+    private final int toEpochDay;
+    private final int parallelism;
+    private final int limit;
+
+    private ReportEngine(Builder builder) {
+        this.groupBy = List.copyOf(builder.groupBy);
+        // revenue unless something else was asked for; the builder's list is left as it is, so it can build again
+        this.measures = builder.measures.isEmpty() ? List.of(Measure.REVENUE) : List.copyOf(builder.measures);
+        this.fromEpochDay = builder.from == null ? Integer.MIN_VALUE : Math.toIntExact(builder.from.toEpochDay());
+        this.toEpochDay = builder.to == null ? Integer.MAX_VALUE : Math.toIntExact(builder.to.toEpochDay());
+        this.parallelism = builder.parallelism;
+        this.limit = builder.limit;
+    }
+
+    // Runs the report over every order of the store in the date range
+    public Report run(OrderStore store) {
+        long start = System.nanoTime();
+        Queue<GroupTable> partials = new ConcurrentLinkedQueue<>();
+        ThreadLocal<GroupTable> partial = ThreadLocal.withInitial(() -> {
+            GroupTable table = new GroupTable(groupBy.size());
+            partials.add(table);
+            return table;
+        });
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Scan(store, 0, store.size(), partial));
+        } finally {
+            pool.shutdown();
+        }
+
+        // merge into the largest table, so the fewest groups are added again
+        List<GroupTable> tables = new ArrayList<>(partials);
+        tables.sort(Comparator.comparingInt(GroupTable::size).reversed());
+        GroupTable total = tables.isEmpty() ? new GroupTable(groupBy.size()) : tables.get(0);
+        for (int i = 1; i < tables.size(); i++) {
+            total.merge(tables.get(i));
+        }
+        return new Report(total, store.entities(), store.size(), System.nanoTime() - start);
+    }
+
+    // Scans a range of rows, splitting it until it is small enough for one task. ForkJoinTask is
+    // Serializable, but a Scan only lives for one run and is never serialized.
+    private final class Scan extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient OrderStore store;
+        private final int from;
+        private final int to;
+        private final transient ThreadLocal<GroupTable> partial;
+
+        // Last date converted to a month, years * 12 + month - 1; orders are usually stored in date order
+        private int cachedEpochDay = Integer.MIN_VALUE;
+        private int cachedYearMonth;
+
+        Scan(OrderStore store, int from, int to, ThreadLocal<GroupTable> partial) {
+            this.store = store;
+            this.from = from;
+            this.to = to;
+            this.partial = partial;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > RANGE_ROWS) {
+                int middle = from + Math.max(1, (to - from) / 2 / RANGE_ROWS) * RANGE_ROWS;
+                invokeAll(new Scan(store, from, middle, partial), new Scan(store, middle, to, partial));
+                return;
+            }
+            GroupTable table = partial.get();
+            Key[] keys = groupBy.toArray(new Key[0]);
+            int[] key = new int[keys.length];
+            for (int row = from; row < to; row++) {
+                int epochDay = store.epochDay(row);
+                if (epochDay < fromEpochDay || epochDay > toEpochDay) {
+                    continue;
+                }
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = keyValue(keys[i], row, epochDay);
+                }
+                int quantity = store.quantity(row);
+                table.add(key, store.unitPriceCents(row) * quantity, quantity, 1);
+            }
+        }
+
+        private int keyValue(Key by, int row, int epochDay) {
+            return switch (by) {
+                case CUSTOMER -> Math.toIntExact(store.customerId(row));
+                case PRODUCT -> Math.toIntExact(store.productId(row));
+                case YEAR -> Math.floorDiv(yearMonth(epochDay), 12);
+                case MONTH -> yearMonth(epochDay);
+                // weeks start on Monday; epoch day 0 was a Thursday
+                case WEEK -> Math.floorDiv(epochDay + 3, 7);
+                case DAY_OF_WEEK -> Math.floorMod(epochDay + 3, 7);
+            };
+        }
+
+        private int yearMonth(int epochDay) {
+            if (epochDay != cachedEpochDay) {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                cachedYearMonth = date.getYear() * 12 + date.getMonthValue() - 1;
+                cachedEpochDay = epochDay;
+            }
+            return cachedYearMonth;
+        }
+    }
+
+    // One group of a report with its totals
+    public record Row(int[] keys, long revenueCents, long units, long orders) {
+        public long value(Measure measure) {
+            return switch (measure) {
+                case REVENUE -> revenueCents;
+                case UNITS -> units;
+                case ORDERS -> orders;
+                case AVERAGE_ORDER -> revenueCents / orders;
+            };
+        }
+    }
+
+    // The groups of a report, sorted by the first measure, and how long the report took
+    public final class Report {
+        private final List<Row> rows;
+        private final int groups;
+        private final EntityTables entities;
+        private final long ordersScanned;
+        private final long elapsedNanos;
+
+        private Report(GroupTable table, EntityTables entities, long ordersScanned, long elapsedNanos) {
+            List<Row> all = new ArrayList<>(table.size());
+            table.forEach((key, revenueCents, units, orders) -> all.add(new Row(key.clone(), revenueCents, units, orders)));
+            Measure sortBy = measures.get(0);
+            // ties in key order, so the same orders always give the same report
+            all.sort(Comparator.comparingLong((Row row) -> row.value(sortBy)).reversed()
+                    .thenComparing(Row::keys, Arrays::compare));
+            this.groups = all.size();
+            this.entities = entities;
+            this.rows = Collections.unmodifiableList(limit > 0 && all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all);
+            this.ordersScanned = ordersScanned;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<Key> getGroupBy() {
+            return groupBy;
+        }
+
+        public List<Measure> getMeasures() {
+            return measures;
+        }
+
+        // The groups kept, at most the limit
+        public List<Row> getRows() {
+            return rows;
+        }
+
+        // Number of groups before the limit was applied
+        public int getGroupCount() {
+            return groups;
+        }
+
+        public long getOrdersScanned() {
+            return ordersScanned;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // Readable value of one key of a row, e.g. a customer name or "2024-W05"
+        public String label(Row row, int keyIndex) {
+            int value = row.keys()[keyIndex];
+            return switch (groupBy.get(keyIndex)) {
+                case CUSTOMER -> {
+                    Customer customer = entities.getCustomer(value);
+                    yield customer == null ? "#" + value : customer.getName();
+                }
+                case PRODUCT -> {
+                    Product product = entities.getProduct(value);
+                    yield product == null ? "#" + value : product.getName();
+                }
+                case YEAR -> String.valueOf(value);
+                case MONTH -> YearMonth.of(Math.floorDiv(value, 12), Math.floorMod(value, 12) + 1).toString();
+                case WEEK -> {
+                    LocalDate monday = LocalDate.ofEpochDay(value * 7L - 3);
+                    yield String.format("%d-W%02d", monday.get(IsoFields.WEEK_BASED_YEAR),
+                            monday.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                }
+                case DAY_OF_WEEK -> DayOfWeek.of(value + 1).toString();
+            };
+        }
+
+        // Readable value of one measure of a row, amounts in euros
+        public String format(Row row, Measure measure) {
+            long value = row.value(measure);
+            return measure == Measure.REVENUE || measure == Measure.AVERAGE_ORDER
+                    ? String.format("%d.%02d", value / 100, Math.abs(value % 100))
+                    : String.valueOf(value);
+        }
+
+        // Writes the rows as CSV with a header line, quoting labels that need it
+        public void writeCsv(Appendable out) throws IOException {
+            List<String> header = new ArrayList<>();
+            groupBy.forEach(key -> header.add(key.name().toLowerCase(Locale.ROOT)));
+            measures.forEach(measure -> header.add(measure.name().toLowerCase(Locale.ROOT)));
+            out.append(String.join(",", header)).append('\n');
+            for (Row row : rows) {
+                List<String> fields = new ArrayList<>();
+                for (int i = 0; i < groupBy.size(); i++) {
+                    fields.add(csvField(label(row, i)));
+                }
+                for (Measure measure : measures) {
+                    fields.add(format(row, measure));
+                }
+                out.append(String.join(",", fields)).append('\n');
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("Report by %s: %d groups from %d orders in %.1f ms%n",
+                    groupBy, groups, ordersScanned, elapsedNanos / 1e6));
+            for (Row row : rows) {
+                for (int i = 0; i < groupBy.size(); i++) {
+                    text.append(label(row, i)).append(" | ");
+                }
+                for (int i = 0; i < measures.size(); i++) {
+                    text.append(i == 0 ? "" : ", ").append(measures.get(i).name().toLowerCase(Locale.ROOT)).append(' ')
+                            .append(format(row, measures.get(i)));
+                }
+                text.append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Builds a ReportEngine; grouping by nothing reports the totals of all orders as a single row
+    public static class Builder {
+        private final List<Key> groupBy = new ArrayList<>();
+        private final List<Measure> measures = new ArrayList<>();
+        private LocalDate from;
+        private LocalDate to;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int limit;
+
+        public Builder groupBy(Key... keys) {
+            this.groupBy.addAll(List.of(keys));
+            return this;
+        }
+
+        public Builder measures(Measure... measures) {
+            this.measures.addAll(List.of(measures));
+            return this;
+        }
+
+        // Only orders dated between from and to, both included; null leaves that end open
+        public Builder between(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        // Number of threads to scan with
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        // Keep only the first rows, 0 to keep them all
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public ReportEngine build() {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive.");
+            }
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative.");
+            }
+            if (groupBy.size() != groupBy.stream().distinct().count()) {
+                throw new IllegalArgumentException("Cannot group by the same key twice.");
+            }
+            return new ReportEngine(this);
+        }
+    }
+}
@@ -1,24 +1,134 @@
 package com.example.storegui.utils;
 
+import com.example.storegui.events.JournalCommitEvent;
+import com.example.storegui.events.StoreLoadEvent;
+import com.example.storegui.events.StoreOpenEvent;
+import com.example.storegui.events.StoreSaveEvent;
+import com.example.storegui.metrics.Counter;
+import com.example.storegui.metrics.LatencyHistogram;
+import com.example.storegui.metrics.Metrics;
+import com.example.storegui.metrics.TimedEvent;
 import com.example.storegui.model.StoreData;
 import javafx.application.Platform;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * DataManager is a Singleton class responsible for managing the storage and retrieval of
  * StoreData objects. It provides methods to save and load data from a single unified file.
+ * All file access goes through one writer thread; bursts of save requests are coalesced
+ * into a single write of the most recent snapshot. Individual changes are appended to a
+ * journal instead, which is periodically compacted into a new snapshot.
  */
 public class DataManager {
     // Singleton instance
     private static DataManager instance;
 
-    // File path for single unified file
-    private static final String STORE_FILE = "storeData.ser";
+    // Directory of the store files: the working directory, unless the storegui.dataDir property names another
+    private static Path directory = Path.of(System.getProperty("storegui.dataDir", "."));
+
+    // File name of the single unified file, written with StoreCodec
+    private static final String STORE_FILE = "storeData.bin";
+
+    // Number of previous snapshots kept as storeData.bin.1, .2, ... to fall back on if the latest is damaged
+    private static final int GENERATIONS = 3;
+
+    // Java-serialized file written by earlier versions, read once if STORE_FILE doesn't exist yet
+    private static final String LEGACY_STORE_FILE = "storeData.ser";
+
+    // Changes made since the snapshot in STORE_FILE
+    private static final String JOURNAL_FILE = "storeData.journal";
+
+    // Journaled changes are fsynced together once per group commit window
+    private static final long GROUP_COMMIT_MILLIS = 10;
+
+    // Changes that couldn't be journaled are tried again after this delay
+    private static final long JOURNAL_RETRY_MILLIS = 1_000;
+
+    // The journal is folded into a new snapshot once it holds this many entries
+    private static final int COMPACTION_THRESHOLD = 10_000;
+
+    // A write happens once saves have been quiet for the debounce delay,
+    // but never later than the max latency after the first request of a burst
+    private static final long DEBOUNCE_MILLIS = 250;
+    private static final long MAX_LATENCY_MILLIS = 2_000;
+
+    // Timings and failures of the file access, see Metrics
+    private static final LatencyHistogram SAVE_TIME = Metrics.getInstance().histogram("store.save");
+    private static final LatencyHistogram LOAD_TIME = Metrics.getInstance().histogram("store.load");
+    private static final LatencyHistogram OPEN_TIME = Metrics.getInstance().histogram("store.open");
+    private static final LatencyHistogram JOURNAL_COMMIT_TIME = Metrics.getInstance().histogram("store.journal.commit");
+    private static final Counter SAVE_REQUESTS = Metrics.getInstance().counter("store.save.requests");
+    private static final Counter SAVE_FAILURES = Metrics.getInstance().counter("store.save.failures");
+    private static final Counter LOAD_FAILURES = Metrics.getInstance().counter("store.load.failures");
+    private static final Counter JOURNAL_ENTRIES = Metrics.getInstance().counter("store.journal.entries");
+    private static final Counter JOURNAL_FAILURES = Metrics.getInstance().counter("store.journal.failures");
+
+    // The single thread that reads and writes the store file
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "store-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Pending write state, guarded by this
+    private StoreData pendingSnapshot;
+    private final List<Runnable> pendingSuccess = new ArrayList<>();
+    private final List<Runnable> pendingError = new ArrayList<>();
+    private long burstStartNanos;
+    private int queueDepth;
+    private ScheduledFuture<?> scheduledWrite;
+
+    // The files in the store directory
+    private final Path storeFile = directory.resolve(STORE_FILE);
+    private final Path legacyStoreFile = directory.resolve(LEGACY_STORE_FILE);
+
+    // Journal state, guarded by this
+    private final StoreJournal journal = new StoreJournal(directory.resolve(JOURNAL_FILE));
+    private final List<StoreJournal.Entry> pendingEntries = new ArrayList<>();
+    private final List<Runnable> pendingJournalErrors = new ArrayList<>();
+    private boolean journalFlushScheduled;
+    private boolean journalFailed;
+    private long lastSequence;
+    private long entriesSinceSnapshot;
+    private long journalCommitCount;
+
+    // Write statistics, guarded by this
+    private long requestCount;
+    private long writeCount;
+    private long lastWriteNanos;
+    private long totalWriteNanos;
+    private long maxWriteNanos;
 
     // Private constructor to prevent instantiation
-    private DataManager() {}
+    private DataManager() {
+        // Continue numbering after the last change already on disk
+        try {
+            lastSequence = journal.recover();
+            SnapshotFile.Header header = SnapshotFile.readHeader(storeFile);
+            entriesSinceSnapshot = journal.read(header == null ? Long.MIN_VALUE : header.journalSequence()).size();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        Metrics.getInstance().gauge("store.save.queueDepth", () -> getWriterStats().queueDepth());
+        Metrics.getInstance().gauge("store.journal.pendingEntries", () -> getWriterStats().pendingJournalEntries());
+
+        // Make sure a save requested just before exit still reaches the disk
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "store-writer-flush"));
+    }
 
     // Public method to get the Singleton instance
     public static synchronized DataManager getInstance() {
@@ -28,29 +138,468 @@ public class DataManager {
         return instance;
     }
 
-    // Save all data at once in a thread
+    // Keeps the store files in another directory from now on, e.g. a temporary one in tests.
+    // Whatever the current instance still has pending is written to the old directory first.
+    public static synchronized void useDirectory(Path storeDirectory) {
+        if (instance != null) {
+            instance.flush();
+            instance.writer.shutdown();
+            instance = null;
+        }
+        directory = storeDirectory;
+    }
+
+    // Queue a save of all data; it is written on the writer thread together with any other saves in the same burst
     public void saveAllDataInThread(StoreData storeData, Runnable onSuccess, Runnable onError) {
-        new Thread(() -> {
-            // Check if the file exists before trying to write to it
-            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(STORE_FILE))) {
-                out.writeObject(storeData);
-                if (onSuccess != null) Platform.runLater(onSuccess);
-            } catch (IOException e) {
-                if (onError != null) Platform.runLater(onError);
+        synchronized (this) {
+            // Copy the lists now, on the caller's thread, so later edits can't race with the write.
+            // The copy already includes every change journaled so far.
+            StoreData snapshot = storeData.copy();
+            snapshot.setJournalSequence(lastSequence);
+
+            long now = System.nanoTime();
+            if (pendingSnapshot == null) {
+                burstStartNanos = now;
             }
-        }).start();
+            pendingSnapshot = snapshot;
+            if (onSuccess != null) pendingSuccess.add(onSuccess);
+            if (onError != null) pendingError.add(onError);
+            queueDepth++;
+            requestCount++;
+            SAVE_REQUESTS.increment();
+
+            // Push the write back to the end of the debounce window, bounded by the max latency
+            long deadline = burstStartNanos + TimeUnit.MILLISECONDS.toNanos(MAX_LATENCY_MILLIS);
+            long delay = Math.min(TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS), Math.max(0, deadline - now));
+            if (scheduledWrite == null || scheduledWrite.cancel(false)) {
+                scheduledWrite = writer.schedule(this::writePending, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // Record a single change; it is appended to the journal with the other changes of the same group commit
+    public void recordChange(StoreJournal.Entry entry) {
+        recordChange(entry, null);
     }
 
-    // Load all data at once in a thread
+    // Record a single change; onError runs on the FX thread if the journal can't be written. The change
+    // stays queued and is written once the journal can be written again, or with the next full save.
+    public void recordChange(StoreJournal.Entry entry, Runnable onError) {
+        synchronized (this) {
+            pendingEntries.add(entry.withSequence(++lastSequence));
+            if (onError != null) pendingJournalErrors.add(onError);
+            if (!journalFlushScheduled) {
+                journalFlushScheduled = true;
+                writer.schedule(this::flushJournal, GROUP_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Load all data at once in a thread: the last snapshot plus every change journaled after it
     public void loadAllDataInThread(Consumer<StoreData> onSuccess, Runnable onError) {
-        new Thread(() -> {
-            // Check if the file exists before trying to read it
-            try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(STORE_FILE))) {
-                StoreData storeData = (StoreData) in.readObject();
-                if (onSuccess != null) Platform.runLater(() -> onSuccess.accept(storeData));
+        writer.execute(() -> {
+            // Write anything still pending first so the load sees the latest save
+            writePending();
+            flushJournal();
+            try {
+                StoreData storeData = readStore();
+                if (onSuccess != null) runOnFxThread(() -> onSuccess.accept(storeData));
             } catch (IOException | ClassNotFoundException e) {
-                if (onError != null) Platform.runLater(onError);
+                if (onError != null) runOnFxThread(onError);
+            }
+        });
+    }
+
+    // Load all data and wait for it, for callers without an FX thread such as command line tools
+    public StoreData loadAllData() throws IOException {
+        return await(writer.submit(() -> {
+            writePending();
+            flushJournal();
+            return readStore();
+        }));
+    }
+
+    // Save all data and wait for the write, for callers without an FX thread; false if it failed
+    public boolean saveAllData(StoreData storeData) throws IOException {
+        StoreData snapshot;
+        synchronized (this) {
+            snapshot = storeData.copy();
+            snapshot.setJournalSequence(lastSequence);
+        }
+        return await(writer.submit(() -> {
+            writePending();
+            flushJournal();
+            return writeSnapshot(snapshot);
+        }));
+    }
+
+    // Open the store file for lazy reading: only the header is read, records are decoded as they are used
+    public void openStoreInThread(Consumer<MappedStore> onSuccess, Runnable onError) {
+        writer.execute(() -> {
+            writePending();
+            flushJournal();
+            try {
+                MappedStore store = openMappedStore();
+                if (onSuccess != null) runOnFxThread(() -> onSuccess.accept(store));
+            } catch (IOException | ClassNotFoundException e) {
+                if (onError != null) runOnFxThread(onError);
+            }
+        });
+    }
+
+    // Open the store file for lazy reading and wait for it, for callers already on a background thread
+    public MappedStore openStore() throws IOException {
+        return await(writer.submit(() -> {
+            writePending();
+            flushJournal();
+            return openMappedStore();
+        }));
+    }
+
+    // Write any pending save and journal entries immediately and wait for them to finish
+    public void flush() {
+        Future<?> write;
+        try {
+            write = writer.submit(() -> {
+                writePending();
+                flushJournal();
+            });
+        } catch (RejectedExecutionException e) {
+            return; // already flushed by useDirectory
+        }
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Returns a snapshot of the writer's queue depth and write timings
+    public synchronized WriterStats getWriterStats() {
+        return new WriterStats(queueDepth, requestCount, writeCount, lastWriteNanos,
+                writeCount == 0 ? 0 : totalWriteNanos / writeCount, maxWriteNanos,
+                pendingEntries.size(), entriesSinceSnapshot, journalCommitCount);
+    }
+
+    // Runs on the writer thread: writes the latest snapshot and notifies everyone who asked for it
+    private void writePending() {
+        StoreData snapshot;
+        List<Runnable> onSuccess;
+        List<Runnable> onError;
+        synchronized (this) {
+            scheduledWrite = null;
+            if (pendingSnapshot == null) {
+                return;
+            }
+            snapshot = pendingSnapshot;
+            onSuccess = new ArrayList<>(pendingSuccess);
+            onError = new ArrayList<>(pendingError);
+            pendingSnapshot = null;
+            pendingSuccess.clear();
+            pendingError.clear();
+            queueDepth = 0;
+        }
+
+        boolean written = writeSnapshot(snapshot);
+        for (Runnable callback : written ? onSuccess : onError) {
+            runOnFxThread(callback);
+        }
+    }
+
+    // Runs on the writer thread: appends every queued change and fsyncs once for the whole group.
+    // If that fails, the changes are queued again in front of any newer ones and retried later.
+    private void flushJournal() {
+        List<StoreJournal.Entry> batch;
+        List<Runnable> onError;
+        boolean retry;
+        synchronized (this) {
+            journalFlushScheduled = false;
+            if (pendingEntries.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingEntries);
+            onError = new ArrayList<>(pendingJournalErrors);
+            pendingEntries.clear();
+            pendingJournalErrors.clear();
+            retry = journalFailed;
+        }
+
+        TimedEvent<JournalCommitEvent> timing = TimedEvent.start(JOURNAL_COMMIT_TIME, new JournalCommitEvent());
+        long bytes;
+        try {
+            if (retry) {
+                // cut off whatever part of the failed append did reach the file
+                journal.recover();
             }
-        }).start();
+            bytes = journal.append(batch);
+        } catch (IOException e) {
+            JOURNAL_FAILURES.increment();
+            timing.fail(event -> event.entries = batch.size());
+            e.printStackTrace();
+            // each failure is reported once, the retries of the same changes aren't
+            synchronized (this) {
+                journalFailed = true;
+                pendingEntries.addAll(0, batch);
+                if (!journalFlushScheduled) {
+                    journalFlushScheduled = true;
+                    writer.schedule(this::flushJournal, JOURNAL_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            for (Runnable callback : onError) {
+                runOnFxThread(callback);
+            }
+            return;
+        }
+        synchronized (this) {
+            journalFailed = false;
+        }
+        long written = bytes;
+        timing.finish(event -> {
+            event.entries = batch.size();
+            event.bytes = written;
+            event.succeeded = true;
+        });
+        JOURNAL_ENTRIES.add(batch.size());
+
+        boolean compact;
+        synchronized (this) {
+            journalCommitCount++;
+            entriesSinceSnapshot += batch.size();
+            compact = entriesSinceSnapshot >= COMPACTION_THRESHOLD;
+        }
+        if (compact) {
+            compact();
+        }
+    }
+
+    // Runs on the writer thread: folds the journal into a new snapshot so replay stays short
+    private void compact() {
+        synchronized (this) {
+            // a full save is already on its way and will reset the journal itself
+            if (pendingSnapshot != null) {
+                return;
+            }
+        }
+        // the store read has id tables of its own, so the application's customers and products aren't touched
+        try {
+            writeSnapshot(readStore());
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Timed as a whole; a failed read or rewrite is counted by readStore or writeSnapshot
+    private MappedStore openMappedStore() throws IOException, ClassNotFoundException {
+        TimedEvent<StoreOpenEvent> timing = TimedEvent.start(OPEN_TIME, new StoreOpenEvent());
+        MappedStore store;
+        try {
+            store = mapStore(timing.event());
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            timing.fail(event -> event.succeeded = false);
+            throw e;
+        }
+        timing.finish(event -> {
+            event.bytes = fileSize(storeFile);
+            event.succeeded = true;
+        });
+        return store;
+    }
+
+    // Maps the snapshot file. A missing, older-format or out-of-date snapshot is rewritten first,
+    // so that the mapped file alone holds every change.
+    private MappedStore mapStore(StoreOpenEvent event) throws IOException, ClassNotFoundException {
+        Path file = storeFile;
+        if (Files.exists(file)) {
+            try {
+                MappedStore store = MappedStore.open(file);
+                if (journal.read(store.getJournalSequence()).isEmpty()) {
+                    return store;
+                }
+            } catch (IOException e) {
+                // damaged or not in the indexed format yet
+                System.err.println("Rebuilding " + STORE_FILE + ": " + e.getMessage());
+            }
+        }
+        event.rebuilt = true;
+        StoreData storeData = readStore();
+        if (!writeSnapshot(storeData)) {
+            throw new IOException("Could not write " + STORE_FILE + ".");
+        }
+        return MappedStore.open(file);
+    }
+
+    // Reads the newest snapshot that passes verification and replays the journaled changes made after it
+    private StoreData readStore() throws IOException, ClassNotFoundException {
+        TimedEvent<StoreLoadEvent> timing = TimedEvent.start(LOAD_TIME, new StoreLoadEvent());
+        // newest first; the legacy file is migrated to the binary format by the next snapshot write
+        List<Path> candidates = new ArrayList<>();
+        candidates.add(storeFile);
+        for (int i = 1; i <= GENERATIONS; i++) {
+            candidates.add(SnapshotFile.generation(storeFile, i));
+        }
+        candidates.add(legacyStoreFile);
+
+        StoreData storeData = null;
+        Path readFrom = null;
+        IOException failure = null;
+        for (Path candidate : candidates) {
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+            try {
+                storeData = StoreCodec.read(candidate);
+                readFrom = candidate;
+                if (failure != null) {
+                    System.err.println("Recovered store data from " + candidate + ".");
+                }
+                break;
+            } catch (IOException e) {
+                System.err.println("Skipping damaged store file " + candidate + ": " + e.getMessage());
+                failure = e;
+            }
+        }
+        if (storeData == null) {
+            if (failure != null) {
+                LOAD_FAILURES.increment();
+                timing.fail(event -> event.succeeded = false);
+                throw failure;
+            }
+            storeData = new StoreData();
+        }
+
+        int replayed = 0;
+        long journalBase = journal.baseSequence();
+        if (storeData.getJournalSequence() < journalBase) {
+            // the journal was truncated past this snapshot, so the changes in between can't be replayed
+            System.err.println("WARNING: " + readFrom + " is older than the store journal; the changes numbered "
+                    + (storeData.getJournalSequence() + 1) + " to " + journalBase + " are lost.");
+        }
+        for (StoreJournal.Entry entry : journal.read(storeData.getJournalSequence())) {
+            StoreJournal.apply(storeData, entry);
+            storeData.setJournalSequence(entry.sequence());
+            replayed++;
+        }
+        StoreData loaded = storeData;
+        Path file = readFrom;
+        int replayedEntries = replayed;
+        timing.finish(event -> {
+            event.file = file == null ? null : file.toString();
+            event.bytes = file == null ? 0 : fileSize(file);
+            event.customers = loaded.getCustomers().size();
+            event.products = loaded.getProducts().size();
+            event.orders = loaded.getOrders().size();
+            event.replayedEntries = replayedEntries;
+            event.succeeded = true;
+        });
+        return storeData;
+    }
+
+    // Writes a full snapshot, then drops the journal entries covered by every generation kept.
+    // Entries after the oldest generation are kept so falling back to any of them loses nothing.
+    private boolean writeSnapshot(StoreData snapshot) {
+        TimedEvent<StoreSaveEvent> timing = TimedEvent.start(SAVE_TIME, new StoreSaveEvent());
+        boolean written;
+        try {
+            SnapshotFile.write(storeFile, snapshot, GENERATIONS);
+            written = true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            written = false;
+        }
+
+        if (written) {
+            try {
+                long oldest = oldestSnapshotSequence();
+                if (oldest > journal.baseSequence()) {
+                    journal.truncate(oldest);
+                }
+                synchronized (this) {
+                    entriesSinceSnapshot = journal.read(snapshot.getJournalSequence()).size();
+                }
+            } catch (IOException e) {
+                // the snapshot is intact, the covered entries are simply skipped on the next load
+                e.printStackTrace();
+            }
+        }
+        if (!written) {
+            SAVE_FAILURES.increment();
+        }
+        boolean succeeded = written;
+        Consumer<StoreSaveEvent> fields = event -> {
+            event.file = storeFile.toString();
+            event.bytes = succeeded ? fileSize(storeFile) : 0;
+            event.customers = snapshot.getCustomers().size();
+            event.products = snapshot.getProducts().size();
+            event.orders = snapshot.getOrders().size();
+            event.succeeded = succeeded;
+        };
+        long elapsed = written ? timing.finish(fields) : timing.fail(fields);
+
+        synchronized (this) {
+            writeCount++;
+            lastWriteNanos = elapsed;
+            totalWriteNanos += elapsed;
+            maxWriteNanos = Math.max(maxWriteNanos, elapsed);
+        }
+        return written;
+    }
+
+    // Waits for a task of the writer thread, passing on its IOException
+    private static <T> T await(Future<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the store writer.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // Journal sequence of the oldest snapshot generation that could still be loaded; the journal is
+    // kept back to it so falling back to any generation replays every change made after it
+    private long oldestSnapshotSequence() {
+        Path file = storeFile;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i <= GENERATIONS; i++) {
+            try {
+                SnapshotFile.Header header = SnapshotFile.readHeader(i == 0 ? file : SnapshotFile.generation(file, i));
+                if (header != null) {
+                    oldest = Math.min(oldest, header.journalSequence());
+                }
+            } catch (IOException e) {
+                // a generation that can't be read can't be loaded either
+            }
+        }
+        return oldest == Long.MAX_VALUE ? 0 : oldest;
+    }
+
+    // Size of a file for the JFR events, 0 if it can't be read
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Callbacks update the UI, so they run on the FX thread (which may already be gone at exit)
+    private static void runOnFxThread(Runnable callback) {
+        try {
+            Platform.runLater(callback);
+        } catch (IllegalStateException e) {
+            // FX toolkit not running
+        }
+    }
+
+    // Queue depth is the number of save requests waiting to be coalesced into the next write, timings are in nanoseconds
+    public record WriterStats(int queueDepth, long requestCount, long writeCount,
+                              long lastWriteNanos, long averageWriteNanos, long maxWriteNanos,
+                              int pendingJournalEntries, long journalEntriesSinceSnapshot, long journalCommitCount) {
     }
-}
\ No newline at end of file
+}
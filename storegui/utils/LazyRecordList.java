@@ -0,0 +1,105 @@
+package com.example.storegui.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * A list over records that are decoded on demand, e.g. from a MappedStore. Reading never decodes
+ * more than the elements asked for, and appending keeps the decoded part lazy. Any other change
+ * first copies the list into an ArrayList and works on that from then on.
+ */
+public class LazyRecordList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final IntFunction<T> decoder;
+    private final int lazySize;
+
+    // Elements appended after the lazy part
+    private final List<T> appended = new ArrayList<>();
+
+    // Set once the list has been copied because of a change other than an append
+    private List<T> materialized;
+
+    public LazyRecordList(int size, IntFunction<T> decoder) {
+        this.lazySize = size;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public T get(int index) {
+        if (materialized != null) {
+            return materialized.get(index);
+        }
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        return index < lazySize ? decoder.apply(index) : appended.get(index - lazySize);
+    }
+
+    @Override
+    public int size() {
+        return materialized != null ? materialized.size() : lazySize + appended.size();
+    }
+
+    @Override
+    public boolean add(T element) {
+        modCount++;
+        return materialized != null ? materialized.add(element) : appended.add(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> elements) {
+        modCount++;
+        return materialized != null ? materialized.addAll(elements) : appended.addAll(elements);
+    }
+
+    @Override
+    public void add(int index, T element) {
+        if (materialized == null && index == size()) {
+            add(element);
+            return;
+        }
+        modCount++;
+        materialize().add(index, element);
+    }
+
+    @Override
+    public T set(int index, T element) {
+        return materialize().set(index, element);
+    }
+
+    @Override
+    public T remove(int index) {
+        modCount++;
+        return materialize().remove(index);
+    }
+
+    @Override
+    public void clear() {
+        // nothing needs decoding to end up empty
+        modCount++;
+        appended.clear();
+        materialized = new ArrayList<>();
+    }
+
+    // True until the list has been copied into memory
+    public boolean isLazy() {
+        return materialized == null;
+    }
+
+    private List<T> materialize() {
+        if (materialized == null) {
+            List<T> copy = new ArrayList<>(lazySize + appended.size());
+            for (int i = 0; i < lazySize; i++) {
+                copy.add(decoder.apply(i));
+            }
+            copy.addAll(appended);
+            appended.clear();
+            materialized = copy;
+        }
+        return materialized;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.EntityTables;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of a store file. Opening it only reads the header. Customers and products are decoded
+ * one at a time when first asked for, by position through the offset indexes or by id through the id
+ * indexes, and then cached so every caller sees the same object for the same record.
+ * Orders are decoded into an OrderStore in one pass; its id tables find customers and products through
+ * the id indexes, so only the ones that are shown or looked up are ever decoded.
+ */
+public class MappedStore implements EntityTables.Source {
+
+    private final ByteBuffer buffer;
+
+    // Header
+    private final long journalSequence;
+    private final int stringCount;
+    private final int stringIndex;
+    private final int listedCustomers;
+    private final int customerCount;
+    private final int customerIndex;
+    private final int listedProducts;
+    private final int productCount;
+    private final int productIndex;
+    private final int orderCount;
+    private final int orderIndex;
+
+    // Records decoded so far, guarded by this
+    private final String[] strings;
+    private final Customer[] customers;
+    private final Product[] products;
+
+    // Reads the header of a store held in the buffer, starting at position 0
+    MappedStore(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt(0) != StoreCodec.MAGIC || buffer.get(Integer.BYTES) != StoreCodec.VERSION) {
+                throw new IOException("Not an indexed store file.");
+            }
+            ByteBuffer header = buffer.duplicate().position(StoreCodec.HEADER_OFFSET);
+            journalSequence = header.getLong();
+            stringCount = header.getInt();
+            stringIndex = header.getInt();
+            listedCustomers = header.getInt();
+            customerCount = header.getInt();
+            customerIndex = header.getInt();
+            listedProducts = header.getInt();
+            productCount = header.getInt();
+            productIndex = header.getInt();
+            orderCount = header.getInt();
+            orderIndex = header.getInt();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Store file is truncated or corrupt.", e);
+        }
+
+        // Check that every index lies inside the file before anything is decoded
+        checkIndex(stringIndex, stringCount, Integer.BYTES);
+        checkIndex(customerIndex, customerCount, Integer.BYTES + StoreCodec.ID_ENTRY_SIZE);
+        checkIndex(productIndex, productCount, Integer.BYTES + StoreCodec.ID_ENTRY_SIZE);
+        checkIndex(orderIndex, orderCount, Integer.BYTES);
+        if (listedCustomers > customerCount || listedProducts > productCount) {
+            throw new IOException("Store file is truncated or corrupt.");
+        }
+
+        strings = new String[stringCount + 1];
+        customers = new Customer[customerCount];
+        products = new Product[productCount];
+    }
+
+    // Map a store file into memory, verify its checksum and read its header
+    public static MappedStore open(Path file) throws IOException {
+        return new MappedStore(SnapshotFile.map(file).slice());
+    }
+
+    // Header getters
+
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    public int getCustomerCount() {
+        return listedCustomers;
+    }
+
+    public int getProductCount() {
+        return listedProducts;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    // Listed customers and products, in lists that decode records as they are read and only copy them
+    // into memory when changed
+
+    public List<Customer> customers() {
+        return new LazyRecordList<>(listedCustomers, this::getCustomer);
+    }
+
+    public List<Product> products() {
+        return new LazyRecordList<>(listedProducts, this::getProduct);
+    }
+
+    // Every order decoded straight into a new column store, without creating Order objects.
+    // Its id tables decode customers and products from this file when they are first looked up.
+    public synchronized OrderStore orderStore() {
+        OrderStore store = new OrderStore(orderCount, new EntityTables(this));
+        for (int i = 0; i < orderCount; i++) {
+            ByteBuffer record = record(orderIndex, i);
+            int orderId = StoreCodec.readVarInt(record);
+            long customerId = StoreCodec.readVarLong(record);
+            long productId = StoreCodec.readVarLong(record);
+            int quantity = StoreCodec.readSignedVarInt(record);
+            int epochDay = Math.toIntExact(StoreCodec.readSignedVarLong(record));
+            store.appendWithId(orderId, customerId, productId, quantity, epochDay, StoreCodec.readVarLong(record));
+        }
+        return store;
+    }
+
+    // Record access by position
+
+    public synchronized Customer getCustomer(int i) {
+        if (customers[i] == null) {
+            customers[i] = StoreCodec.readCustomer(record(customerIndex, i), stringTable());
+        }
+        return customers[i];
+    }
+
+    public synchronized Product getProduct(int i) {
+        if (products[i] == null) {
+            products[i] = StoreCodec.readProduct(record(productIndex, i), stringTable());
+        }
+        return products[i];
+    }
+
+    // Record access by id, including the customers and products only orders still refer to;
+    // null if the file has no record with the id
+
+    @Override
+    public Customer findCustomer(long id) {
+        int i = recordOf(customerIndex, customerCount, id);
+        return i < 0 ? null : getCustomer(i);
+    }
+
+    @Override
+    public Product findProduct(long id) {
+        int i = recordOf(productIndex, productCount, id);
+        return i < 0 ? null : getProduct(i);
+    }
+
+    // Decodes the listed records and the orders into a regular StoreData; customers and products only
+    // orders refer to are still decoded when looked up
+    public StoreData toStoreData() {
+        ArrayList<Customer> customerList = new ArrayList<>(listedCustomers);
+        for (int i = 0; i < listedCustomers; i++) {
+            customerList.add(getCustomer(i));
+        }
+        ArrayList<Product> productList = new ArrayList<>(listedProducts);
+        for (int i = 0; i < listedProducts; i++) {
+            productList.add(getProduct(i));
+        }
+
+        StoreData storeData = new StoreData();
+        storeData.setOrders(orderStore());
+        storeData.setCustomers(customerList);
+        storeData.setProducts(productList);
+        storeData.setJournalSequence(journalSequence);
+        return storeData;
+    }
+
+    // The string table is small (names, emails, descriptions), so it is decoded as a whole on first use
+    private String[] stringTable() {
+        if (stringCount > 0 && strings[1] == null) {
+            for (int i = 1; i <= stringCount; i++) {
+                strings[i] = StoreCodec.readString(record(stringIndex, i - 1));
+            }
+        }
+        return strings;
+    }
+
+    // A buffer positioned at the i-th record of the section with the given index
+    private ByteBuffer record(int index, int i) {
+        return buffer.duplicate().position(buffer.getInt(index + i * Integer.BYTES));
+    }
+
+    // Binary search of the id index that follows the offset index of a section; -1 if the id isn't there.
+    // Only absolute reads, so it needs no lock.
+    private int recordOf(int index, int count, long id) {
+        int ids = index + count * Integer.BYTES;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long found = buffer.getLong(ids + middle * StoreCodec.ID_ENTRY_SIZE);
+            if (found < id) {
+                low = middle + 1;
+            } else if (found > id) {
+                high = middle - 1;
+            } else {
+                int record = buffer.getInt(ids + middle * StoreCodec.ID_ENTRY_SIZE + Long.BYTES);
+                return record >= 0 && record < count ? record : -1;
+            }
+        }
+        return -1;
+    }
+
+    private void checkIndex(int index, int count, int bytesPerRecord) throws IOException {
+        if (count < 0 || index < 0 || (long) index + (long) count * bytesPerRecord > buffer.limit()) {
+            throw new IOException("Store file is truncated or corrupt.");
+        }
+    }
+}
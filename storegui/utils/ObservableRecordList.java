@@ -0,0 +1,127 @@
+package com.example.storegui.utils;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The one observable list of a kind of record, e.g. every customer, that list views, pickers and
+ * dropdowns all listen to. Loading a store replaces what the list holds rather than the list itself,
+ * so nothing is left showing the records from before. The records are kept in the list they were
+ * handed over in, so a LazyRecordList stays lazy, and every change fires for just the records involved.
+ */
+public class ObservableRecordList<T> extends ObservableListBase<T> implements RandomAccess {
+
+    private List<T> contents;
+
+    public ObservableRecordList() {
+        this(new ArrayList<>());
+    }
+
+    public ObservableRecordList(List<T> contents) {
+        this.contents = contents;
+    }
+
+    // The list holding the records right now; replaced, not changed, by setContents
+    public List<T> getContents() {
+        return contents;
+    }
+
+    // Holds the given records from now on, without copying them; listeners see every record replaced at once
+    public void setContents(List<T> records) {
+        List<T> previous = contents;
+        contents = records;
+        beginChange();
+        if (!previous.isEmpty()) {
+            nextRemove(0, previous);
+        }
+        if (!records.isEmpty()) {
+            nextAdd(0, records.size());
+        }
+        endChange();
+    }
+
+    @Override
+    public T get(int index) {
+        return contents.get(index);
+    }
+
+    @Override
+    public int size() {
+        return contents.size();
+    }
+
+    @Override
+    public void add(int index, T element) {
+        contents.add(index, element);
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    // One change for the whole page, e.g. records streamed in from the database
+    @Override
+    public boolean addAll(Collection<? extends T> elements) {
+        int from = contents.size();
+        if (!contents.addAll(elements)) {
+            return false;
+        }
+        beginChange();
+        nextAdd(from, contents.size());
+        endChange();
+        return true;
+    }
+
+    @Override
+    public T remove(int index) {
+        T removed = contents.remove(index);
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T previous = contents.set(index, element);
+        beginChange();
+        nextSet(index, previous);
+        endChange();
+        return previous;
+    }
+
+    // Swaps in an empty list rather than clearing a lazy one, which would decode it first
+    @Override
+    public void clear() {
+        setContents(new ArrayList<>());
+    }
+
+    @Override
+    public boolean setAll(Collection<? extends T> elements) {
+        setContents(new ArrayList<>(elements));
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return contents.indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return contents.contains(o);
+    }
+}
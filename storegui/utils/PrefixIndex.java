@@ -0,0 +1,239 @@
+package com.example.storegui.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Finds items by the start of any of their keys, e.g. customers by name or email. Every key, and every
+ * word in it, is stored lower-cased in one sorted array, so the keys starting with a prefix are a
+ * single range found by binary search, and the first matches are read straight from it.
+ * The index is immutable; plus() and minus() make a new one with items added or taken out without
+ * sorting the existing keys again.
+ */
+public class PrefixIndex<T> {
+
+    // Up to this many items are taken out by comparing them with every item, more through a set
+    private static final int FEW = 8;
+
+    private final Object[] items;
+
+    // Sorted keys and the item each belongs to
+    private final String[] keys;
+    private final int[] owners;
+
+    private final Function<? super T, ? extends Collection<String>> keysOf;
+
+    public PrefixIndex(Collection<? extends T> items, Function<? super T, ? extends Collection<String>> keysOf) {
+        this.items = items.toArray();
+        this.keysOf = keysOf;
+        Entry[] sorted = entries(this.items, 0, keysOf);
+        keys = new String[sorted.length];
+        owners = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = sorted[i].key;
+            owners[i] = sorted[i].owner;
+        }
+    }
+
+    private PrefixIndex(Object[] items, String[] keys, int[] owners,
+                        Function<? super T, ? extends Collection<String>> keysOf) {
+        this.items = items;
+        this.keys = keys;
+        this.owners = owners;
+        this.keysOf = keysOf;
+    }
+
+    // This index with the given items added after the existing ones; only the new keys are sorted,
+    // then each is put in its place among the existing ones, which are copied across in blocks
+    public PrefixIndex<T> plus(Collection<? extends T> added) {
+        Object[] allItems = Arrays.copyOf(items, items.length + added.size());
+        System.arraycopy(added.toArray(), 0, allItems, items.length, added.size());
+        Entry[] sorted = entries(Arrays.copyOfRange(allItems, items.length, allItems.length), items.length, keysOf);
+
+        String[] allKeys = new String[keys.length + sorted.length];
+        int[] allOwners = new int[allKeys.length];
+        int i = 0;
+        int k = 0;
+        for (Entry entry : sorted) {
+            // new items come after the existing ones, so on equal keys the existing entries go first
+            int before = upperBound(entry.key, i);
+            System.arraycopy(keys, i, allKeys, k, before - i);
+            System.arraycopy(owners, i, allOwners, k, before - i);
+            k += before - i;
+            i = before;
+            allKeys[k] = entry.key;
+            allOwners[k++] = entry.owner;
+        }
+        System.arraycopy(keys, i, allKeys, k, keys.length - i);
+        System.arraycopy(owners, i, allOwners, k, keys.length - i);
+        return new PrefixIndex<>(allItems, allKeys, allOwners, keysOf);
+    }
+
+    // This index without the given items, the same objects rather than equal ones, so a few are found
+    // without reading every item; the keys left keep their order, so they are only copied, and the
+    // items after a removed one move up
+    public PrefixIndex<T> minus(Collection<?> removed) {
+        Object[] few = removed.size() <= FEW ? removed.toArray() : null;
+        Set<Object> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (few == null) {
+            gone.addAll(removed);
+        }
+        int[] renumbered = new int[items.length];
+        int count = 0;
+        for (int i = 0; i < items.length; i++) {
+            renumbered[i] = few != null ? containsSame(few, items[i]) ? -1 : count++
+                    : gone.contains(items[i]) ? -1 : count++;
+        }
+        if (count == items.length) {
+            return this;
+        }
+        Object[] kept = new Object[count];
+        for (int i = 0; i < items.length; i++) {
+            if (renumbered[i] >= 0) {
+                kept[renumbered[i]] = items[i];
+            }
+        }
+        int[] newOwners = new int[keys.length];
+        int keyCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            newOwners[i] = renumbered[owners[i]];
+            if (newOwners[i] >= 0) {
+                keyCount++;
+            }
+        }
+        String[] keptKeys = new String[keyCount];
+        int[] keptOwners = new int[keyCount];
+        for (int i = 0, k = 0; i < keys.length; i++) {
+            if (newOwners[i] >= 0) {
+                keptKeys[k] = keys[i];
+                keptOwners[k++] = newOwners[i];
+            }
+        }
+        return new PrefixIndex<>(kept, keptKeys, keptOwners, keysOf);
+    }
+
+    // Sorted keys of the items, and every word in them, numbered from the given owner on
+    @SuppressWarnings("unchecked")
+    private static <T> Entry[] entries(Object[] items, int firstOwner,
+                                       Function<? super T, ? extends Collection<String>> keysOf) {
+        List<Entry> entries = new ArrayList<>(items.length * 2);
+        for (int i = 0; i < items.length; i++) {
+            for (String key : keysOf.apply((T) items[i])) {
+                if (key == null || key.isBlank()) {
+                    continue;
+                }
+                String lower = key.strip().toLowerCase(Locale.ROOT);
+                entries.add(new Entry(lower, firstOwner + i));
+                // later words too, so "doe" finds "John Doe"
+                for (int space = lower.indexOf(' '); space >= 0; space = lower.indexOf(' ', space + 1)) {
+                    if (space + 1 < lower.length() && lower.charAt(space + 1) != ' ') {
+                        entries.add(new Entry(lower.substring(space + 1), firstOwner + i));
+                    }
+                }
+            }
+        }
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // An index over nothing, finding nothing
+    public static <T> PrefixIndex<T> empty() {
+        return new PrefixIndex<>(List.of(), _ -> List.of());
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    // Up to limit items with a key or word starting with the prefix, ignoring case, in key order.
+    // An empty prefix returns the first items in their original order.
+    @SuppressWarnings("unchecked")
+    public List<T> search(String prefix, int limit) {
+        String lower = prefix.strip().toLowerCase(Locale.ROOT);
+        List<T> results = new ArrayList<>(Math.min(limit, 64));
+        if (lower.isEmpty()) {
+            for (int i = 0; i < items.length && results.size() < limit; i++) {
+                results.add((T) items[i]);
+            }
+            return results;
+        }
+        int[] found = new int[Math.min(limit, 64)];
+        int count = 0;
+        for (int i = lowerBound(lower); i < keys.length && count < limit && keys[i].startsWith(lower); i++) {
+            int owner = owners[i];
+            // an item matching by several keys is listed once
+            if (!contains(found, count, owner)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = owner;
+                results.add((T) items[owner]);
+            }
+        }
+        return results;
+    }
+
+    // First key not before the prefix
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First key after the given one, from the given position on
+    private int upperBound(String key, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean containsSame(Object[] values, Object value) {
+        for (Object candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Entry(String key, int owner) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int result = key.compareTo(other.key);
+            return result != 0 ? result : Integer.compare(owner, other.owner);
+        }
+    }
+}
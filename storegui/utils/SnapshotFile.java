@@ -0,0 +1,155 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.model.StoreData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Crash-safe snapshot files. A snapshot is the StoreCodec payload behind a header holding the
+ * record counts, the journal sequence and a CRC32C of the payload:
+ * [magic][version][customers][products][orders][journal sequence][payload length][crc32c][payload]
+ * It is written to a temp file, fsynced and renamed over the previous one, which is kept as
+ * generation 1 (file.1), generation 1 as generation 2, and so on. The current file is only ever
+ * replaced by a rename, so there is always a complete snapshot under its name.
+ */
+public final class SnapshotFile {
+
+    // "SGSN"
+    private static final int MAGIC = 0x5347534E;
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 5 * Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private SnapshotFile() {}
+
+    // Header fields of a snapshot, readable without touching the payload
+    public record Header(int customerCount, int productCount, int orderCount, long journalSequence,
+                         long payloadLength, int checksum) {
+    }
+
+    // Writes a snapshot and keeps the given number of previous generations
+    public static void write(Path file, StoreData storeData, int generations) throws IOException {
+        byte[] payload = StoreCodec.encode(storeData);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(storeData.getCustomers().size())
+                .putInt(storeData.getProducts().size())
+                .putInt(storeData.getOrders().size())
+                .putLong(storeData.getJournalSequence())
+                .putLong(payload.length)
+                .putInt((int) crc.getValue())
+                .flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer body = ByteBuffer.wrap(payload);
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, body});
+            }
+            channel.force(true);
+        }
+
+        // Shift older generations up, dropping the oldest, and keep the current file as generation 1
+        // while it stays in place; then rename the new file over it
+        if (generations > 0) {
+            Files.deleteIfExists(generation(file, generations));
+            for (int i = generations - 1; i >= 1; i--) {
+                if (Files.exists(generation(file, i))) {
+                    Files.move(generation(file, i), generation(file, i + 1), StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            if (Files.exists(file)) {
+                keepCopy(file, generation(file, 1));
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file);
+    }
+
+    // Maps a store file. Snapshots written by write() are checksummed and only their payload is returned;
+    // any other file, such as a legacy Java-serialized store, is returned whole.
+    public static ByteBuffer map(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.limit() < Integer.BYTES || mapped.getInt(0) != MAGIC) {
+            return mapped;
+        }
+
+        Header header = readHeader(mapped);
+        if (HEADER_SIZE + header.payloadLength() != mapped.limit()) {
+            throw new IOException(file + " is truncated.");
+        }
+        ByteBuffer payload = mapped.slice(HEADER_SIZE, (int) header.payloadLength());
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != header.checksum()) {
+            throw new IOException(file + " failed its checksum.");
+        }
+        return payload;
+    }
+
+    // Reads only the header of a snapshot, or returns null if the file isn't one
+    public static Header readHeader(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // keep reading until the header is complete
+            }
+        }
+        bytes.flip();
+        return bytes.getInt(0) == MAGIC ? readHeader(bytes) : null;
+    }
+
+    // Path of an older generation, e.g. storeData.bin.1
+    public static Path generation(Path file, int generation) {
+        return file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    private static Header readHeader(ByteBuffer buffer) throws IOException {
+        ByteBuffer header = buffer.duplicate().position(0);
+        header.getInt(); // magic
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ".");
+        }
+        return new Header(header.getInt(), header.getInt(), header.getInt(), header.getLong(),
+                header.getLong(), header.getInt());
+    }
+
+    // Hard-links the file under the new name, or copies it where links aren't supported
+    private static void keepCopy(Path file, Path copy) throws IOException {
+        Files.deleteIfExists(copy);
+        try {
+            Files.createLink(copy, file);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    // Makes the renames durable; not every platform allows opening a directory, which is harmless
+    private static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directory fsync not supported here
+        }
+    }
+}
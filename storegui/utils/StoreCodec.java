@@ -0,0 +1,380 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compact binary format for StoreData, used instead of default Java serialization.
+ * Every string is written once in a string table and referenced by index, ints are varint encoded
+ * and dates are stored as epoch days. A fixed-size header and an offset index in front of every section
+ * let a MappedStore decode any single record without reading the rest of the file:
+ * [magic][version][header][string index][strings][customer index][customer id index][customers]
+ * [product index][product id index][products][order index][orders]
+ * Customers and products are written with their ids, and orders with their order id; orders refer to
+ * customers and products by id and keep the unit price, in cents, they were stored with. The id indexes hold (id, record number) pairs sorted by id,
+ * so a MappedStore finds the customer or product of an order without decoding the others.
+ */
+public final class StoreCodec {
+
+    // "SGBS", chosen so it can't be mistaken for the 0xACED header of a Java serialization stream
+    static final int MAGIC = 0x53474253;
+    static final int VERSION = 2;
+
+    // Fixed header: journal sequence, then count/listed count/index offset per section
+    static final int HEADER_OFFSET = Integer.BYTES + 1;
+    static final int HEADER_SIZE = Long.BYTES + 10 * Integer.BYTES;
+
+    // An id and a record number in a customer or product id index
+    static final int ID_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+    private static final int LEGACY_MAGIC = 0xACED;
+
+    private StoreCodec() {}
+
+    // Encode the store into a byte array
+    public static byte[] encode(StoreData storeData) {
+        Encoder out = new Encoder(1024 + storeData.getOrders().size() * 10);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+
+        // Orders may still point at customers/products that have since been removed from the lists,
+        // those are appended to the tables after the listed ones
+        List<Customer> customers = new ArrayList<>(storeData.getCustomers());
+        List<Product> products = new ArrayList<>(storeData.getProducts());
+        Set<Long> customerIds = idsOf(customers, Customer::getId);
+        Set<Long> productIds = idsOf(products, Product::getId);
+        OrderStore orders = storeData.getOrders();
+        for (int row = 0; row < orders.size(); row++) {
+            if (customerIds.add(orders.customerId(row))) {
+                Customer customer = storeData.getCustomer(orders.customerId(row));
+                if (customer != null) {
+                    customers.add(customer);
+                }
+            }
+            if (productIds.add(orders.productId(row))) {
+                Product product = storeData.getProduct(orders.productId(row));
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+        }
+
+        StringTable strings = new StringTable();
+        for (Customer customer : customers) {
+            strings.intern(customer.getName());
+            strings.intern(customer.getEmail());
+        }
+        for (Product product : products) {
+            strings.intern(product.getName());
+            strings.intern(product.getDescription());
+        }
+
+        // Header, the index offsets are filled in once the sections are written
+        out.writeLong(storeData.getJournalSequence());
+        out.writeInt(strings.size());
+        int stringIndexSlot = out.reserveInt();
+        out.writeInt(storeData.getCustomers().size());
+        out.writeInt(customers.size());
+        int customerIndexSlot = out.reserveInt();
+        out.writeInt(storeData.getProducts().size());
+        out.writeInt(products.size());
+        int productIndexSlot = out.reserveInt();
+        out.writeInt(orders.size());
+        int orderIndexSlot = out.reserveInt();
+
+        // String table
+        out.putInt(stringIndexSlot, out.size());
+        int index = out.reserveInts(strings.size());
+        for (String value : strings.values) {
+            out.putInt(index, out.size());
+            index += Integer.BYTES;
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarInt(utf8.length);
+            out.writeBytes(utf8);
+        }
+
+        // Customers
+        out.putInt(customerIndexSlot, out.size());
+        index = out.reserveInts(customers.size());
+        writeIdIndex(out, customers, Customer::getId);
+        for (Customer customer : customers) {
+            out.putInt(index, out.size());
+            index += Integer.BYTES;
+            out.writeVarLong(customer.getId());
+            out.writeVarInt(strings.indexOf(customer.getName()));
+            out.writeVarInt(strings.indexOf(customer.getEmail()));
+            out.writeSignedVarLong(customer.getDob().toEpochDay());
+        }
+
+        // Products
+        out.putInt(productIndexSlot, out.size());
+        index = out.reserveInts(products.size());
+        writeIdIndex(out, products, Product::getId);
+        for (Product product : products) {
+            out.putInt(index, out.size());
+            index += Integer.BYTES;
+            out.writeVarLong(product.getId());
+            out.writeVarInt(strings.indexOf(product.getName()));
+            out.writeDouble(product.getPrice());
+            out.writeSignedVarInt(product.getStock());
+            out.writeVarInt(strings.indexOf(product.getDescription()));
+        }
+
+        // Orders
+        out.putInt(orderIndexSlot, out.size());
+        index = out.reserveInts(orders.size());
+        for (int row = 0; row < orders.size(); row++) {
+            out.putInt(index, out.size());
+            index += Integer.BYTES;
+            out.writeVarInt(orders.orderId(row));
+            out.writeVarLong(orders.customerId(row));
+            out.writeVarLong(orders.productId(row));
+            out.writeSignedVarInt(orders.quantity(row));
+            out.writeSignedVarLong(orders.epochDay(row));
+            out.writeVarLong(orders.unitPriceCents(row));
+        }
+        return out.toByteArray();
+    }
+
+    // Decode a whole store written by encode()
+    public static StoreData decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt(buffer.position()) != MAGIC) {
+                throw new IOException("Not a store file.");
+            }
+            int version = buffer.get(buffer.position() + Integer.BYTES);
+            if (version == VERSION) {
+                return new MappedStore(buffer.slice()).toStoreData();
+            }
+            throw new IOException("Unsupported store file version " + version + ".");
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Store file is truncated or corrupt.", e);
+        }
+    }
+
+    // Read a store file, accepting checksummed snapshots and the legacy Java-serialized .ser format
+    public static StoreData read(Path file) throws IOException, ClassNotFoundException {
+        ByteBuffer buffer = SnapshotFile.map(file);
+        if (isLegacy(buffer)) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return (StoreData) in.readObject();
+            }
+        }
+        return decode(buffer);
+    }
+
+    // True if the buffer starts with the Java serialization stream header
+    public static boolean isLegacy(ByteBuffer buffer) {
+        return buffer.remaining() >= 2 && (buffer.getShort(buffer.position()) & 0xFFFF) == LEGACY_MAGIC;
+    }
+
+    // Ids and record numbers, sorted by id; ids fit in an int, as in an OrderStore
+    private static <T> void writeIdIndex(Encoder out, List<T> items, ToLongFunction<T> id) {
+        long[] keyed = new long[items.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            keyed[i] = ((long) Math.toIntExact(id.applyAsLong(items.get(i))) << 32) | i;
+        }
+        Arrays.sort(keyed);
+        for (long key : keyed) {
+            out.writeLong(key >>> 32);
+            out.writeInt((int) key);
+        }
+    }
+
+    private static <T> Set<Long> idsOf(List<T> items, ToLongFunction<T> id) {
+        Set<Long> ids = new HashSet<>(items.size() * 2);
+        for (T item : items) {
+            ids.add(id.applyAsLong(item));
+        }
+        return ids;
+    }
+
+    // Record decoding, shared with MappedStore
+
+    static String readString(ByteBuffer buffer) {
+        byte[] utf8 = new byte[readVarInt(buffer)];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    static Customer readCustomer(ByteBuffer buffer, String[] strings) {
+        return new Customer.Builder()
+                .setId(readVarLong(buffer))
+                .setName(strings[readVarInt(buffer)])
+                .setEmail(strings[readVarInt(buffer)])
+                .setDob(LocalDate.ofEpochDay(readSignedVarLong(buffer)))
+                .build();
+    }
+
+    static Product readProduct(ByteBuffer buffer, String[] strings) {
+        long id = readVarLong(buffer);
+        String name = strings[readVarInt(buffer)];
+        double price = buffer.getDouble();
+        int stock = readSignedVarInt(buffer);
+        return new Product(id, name, price, stock, strings[readVarInt(buffer)]);
+    }
+
+    static int readVarInt(ByteBuffer buffer) {
+        return (int) readVarLong(buffer);
+    }
+
+    static int readSignedVarInt(ByteBuffer buffer) {
+        return (int) readSignedVarLong(buffer);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalArgumentException("Malformed varint.");
+            }
+        }
+    }
+
+    static long readSignedVarLong(ByteBuffer buffer) {
+        long zigzag = readVarLong(buffer);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    // Growable byte buffer with varint writers
+    static final class Encoder {
+        private byte[] bytes;
+        private int size;
+
+        Encoder(int initialCapacity) {
+            bytes = new byte[Math.max(16, initialCapacity)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            putInt(size, value);
+            size += 4;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeDouble(double value) {
+            writeLong(Double.doubleToLongBits(value));
+        }
+
+        void writeBytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeSignedVarInt(int value) {
+            writeSignedVarLong(value);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        // Skip space for an int that is only known later, returns its position
+        int reserveInt() {
+            return reserveInts(1);
+        }
+
+        int reserveInts(int count) {
+            int position = size;
+            ensure(count * Integer.BYTES);
+            size += count * Integer.BYTES;
+            return position;
+        }
+
+        // Overwrite a big-endian int at an earlier position
+        void putInt(int position, int value) {
+            bytes[position] = (byte) (value >>> 24);
+            bytes[position + 1] = (byte) (value >>> 16);
+            bytes[position + 2] = (byte) (value >>> 8);
+            bytes[position + 3] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if ((long) size + extra > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Store is too large for a single file.");
+            }
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max((long) size + extra, bytes.length * 2L)));
+            }
+        }
+    }
+
+    // Strings written once and referred to by index; index 0 is reserved for null
+    static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        void intern(String value) {
+            if (value != null && !indexes.containsKey(value)) {
+                indexes.put(value, values.size() + 1);
+                values.add(value);
+            }
+        }
+
+        int indexOf(String value) {
+            return value == null ? 0 : indexes.get(value);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.Order;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of changes made since the last full snapshot of the store.
+ * The file starts with [magic][base sequence], the sequence of the snapshot it follows. Each record
+ * is framed as [length][sequence][type][fields][crc32] so a record torn by a crash is detected and
+ * ignored on replay. Only the DataManager writer thread touches the file.
+ * Customers and products are identified by id, and a created order keeps the unit price it was stored
+ * with, so a replayed order keeps it even if the product's price changed later. Orders are identified
+ * by their OrderStore order id, so removing one of two orders with the same values replays exactly.
+ */
+public class StoreJournal {
+
+    private static final int MAGIC = 0x53474A32; // "SGJ2"
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    // The kinds of change that are journaled
+    public enum Type {
+        ORDER_CREATED, ORDER_REMOVED, STOCK_CHANGED, PRODUCT_ADDED, PRODUCT_EDITED, PRODUCT_REMOVED,
+        CUSTOMER_ADDED, CUSTOMER_REMOVED
+    }
+
+    // A single change; fields that don't apply to the type are left null/zero.
+    // unitPriceCents is only used by ORDER_CREATED, orderId by ORDER_CREATED and ORDER_REMOVED.
+    public record Entry(Type type, long sequence,
+                        long customerId, String customerName, String customerEmail, LocalDate customerDob,
+                        long productId, String productName, String newProductName, double price, int stock,
+                        String description, int quantity, LocalDate date, long unitPriceCents, int orderId) {
+
+        // Copy of this entry with its sequence number assigned
+        Entry withSequence(long sequence) {
+            return new Entry(type, sequence, customerId, customerName, customerEmail, customerDob,
+                    productId, productName, newProductName, price, stock, description, quantity, date, unitPriceCents, orderId);
+        }
+
+        // The order in the given row, with its order id and the unit price it was stored with
+        public static Entry orderCreated(OrderStore orders, int row) {
+            return new Entry(Type.ORDER_CREATED, 0, orders.customerId(row), null, null, null,
+                    orders.productId(row), null, null, 0, 0, null, orders.quantity(row),
+                    LocalDate.ofEpochDay(orders.epochDay(row)), orders.unitPriceCents(row), orders.orderId(row));
+        }
+
+        // The order must have been read from the store, so the replay removes that order and no other
+        public static Entry orderRemoved(Order order) {
+            if (order.getOrderId() < 0) {
+                throw new IllegalArgumentException("Order was not read from a store: " + order);
+            }
+            return new Entry(Type.ORDER_REMOVED, 0, order.getCustomerId(), null, null, null,
+                    order.getProductId(), null, null, 0, 0, null, order.getQuantity(), order.getDate(), 0,
+                    order.getOrderId());
+        }
+
+        public static Entry stockChanged(Product product) {
+            return new Entry(Type.STOCK_CHANGED, 0, 0, null, null, null,
+                    product.getId(), product.getName(), null, 0, product.getStock(), null, 0, null, 0, 0);
+        }
+
+        public static Entry productAdded(Product product) {
+            return new Entry(Type.PRODUCT_ADDED, 0, 0, null, null, null, product.getId(), product.getName(), null,
+                    product.getPrice(), product.getStock(), product.getDescription(), 0, null, 0, 0);
+        }
+
+        // oldName is the name the product had before the edit
+        public static Entry productEdited(String oldName, Product product) {
+            return new Entry(Type.PRODUCT_EDITED, 0, 0, null, null, null, product.getId(), oldName, product.getName(),
+                    product.getPrice(), product.getStock(), product.getDescription(), 0, null, 0, 0);
+        }
+
+        public static Entry productRemoved(Product product) {
+            return new Entry(Type.PRODUCT_REMOVED, 0, 0, null, null, null,
+                    product.getId(), product.getName(), null, 0, 0, null, 0, null, 0, 0);
+        }
+
+        public static Entry customerAdded(Customer customer) {
+            return new Entry(Type.CUSTOMER_ADDED, 0, customer.getId(), customer.getName(), customer.getEmail(),
+                    customer.getDob(), 0, null, null, 0, 0, null, 0, null, 0, 0);
+        }
+
+        public static Entry customerRemoved(Customer customer) {
+            return new Entry(Type.CUSTOMER_REMOVED, 0, customer.getId(), customer.getName(), null, null,
+                    0, null, null, 0, 0, null, 0, null, 0, 0);
+        }
+    }
+
+    private final Path file;
+
+    public StoreJournal(Path file) {
+        this.file = file;
+    }
+
+    // Appends a group of entries and forces them to disk with a single fsync. Returns the bytes written.
+    public long append(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(HEADER_SIZE + entries.size() * 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        if (size() < HEADER_SIZE) {
+            // new journal, nothing has been snapshotted yet
+            Files.deleteIfExists(file);
+            out.writeInt(MAGIC);
+            out.writeLong(0);
+        }
+        for (Entry entry : entries) {
+            byte[] payload = encode(entry);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeInt((int) crc.getValue());
+        }
+        out.flush();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        return buffer.size();
+    }
+
+    // Reads every intact entry with a sequence number above afterSequence, stopping at a torn or corrupt record
+    public List<Entry> read(long afterSequence) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        scan(afterSequence, entries);
+        return entries;
+    }
+
+    // Called once at startup: cuts off a record torn by a crash so new appends stay readable,
+    // and returns the highest sequence number in the journal (or its base sequence if it holds no entries)
+    public long recover() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long[] base = new long[1];
+        long validLength = scan(Long.MIN_VALUE, entries, base);
+        if (validLength < size()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(false);
+            }
+        }
+        long last = base[0];
+        for (Entry entry : entries) {
+            last = Math.max(last, entry.sequence());
+        }
+        return last;
+    }
+
+    private long scan(long afterSequence, List<Entry> entries) throws IOException {
+        return scan(afterSequence, entries, new long[1]);
+    }
+
+    // Collects intact entries and returns the length of the intact prefix of the file
+    private long scan(long afterSequence, List<Entry> entries, long[] baseSequence) throws IOException {
+        if (size() < HEADER_SIZE) {
+            return 0;
+        }
+        long validLength;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a store journal: " + file);
+            }
+            baseSequence[0] = in.readLong();
+            validLength = HEADER_SIZE;
+            while (true) {
+                byte[] payload;
+                int storedCrc;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > 1 << 20) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                    if (payload.length < length) {
+                        break;
+                    }
+                    storedCrc = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != storedCrc) {
+                    break;
+                }
+                validLength += Integer.BYTES + payload.length + Integer.BYTES;
+                Entry entry = decode(payload);
+                if (entry.sequence() > afterSequence) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return validLength;
+    }
+
+    // Drops every entry already covered by a snapshot taken at the given sequence number
+    public void truncate(long throughSequence) throws IOException {
+        List<Entry> remaining = read(throughSequence);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(throughSequence);
+        }
+        StoreJournal rewritten = new StoreJournal(temp);
+        if (!remaining.isEmpty()) {
+            rewritten.append(remaining);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Sequence the journal was last truncated through; entries up to it are no longer in the journal
+    public long baseSequence() throws IOException {
+        if (size() < HEADER_SIZE) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            in.readInt(); // magic
+            return in.readLong();
+        }
+    }
+
+    // Size of the journal file in bytes
+    public long size() throws IOException {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+    // Applies a journaled change to a store loaded from a snapshot. A change to a customer, product or
+    // order the store doesn't have means the snapshot and the journal don't belong together, so rather than
+    // skipping it and loading a store that silently lacks changes, the load fails.
+    public static void apply(StoreData storeData, Entry entry) throws IOException {
+        switch (entry.type()) {
+            case ORDER_CREATED -> {
+                Customer customer = findCustomer(storeData, entry);
+                Product product = findProduct(storeData, entry);
+                storeData.getOrders().appendWithId(entry.orderId(), customer.getId(), product.getId(),
+                        entry.quantity(), Math.toIntExact(entry.date().toEpochDay()), entry.unitPriceCents());
+            }
+            case ORDER_REMOVED -> {
+                int row = storeData.getOrders().rowOf(entry.orderId());
+                if (row < 0) {
+                    throw unresolved(entry, "order " + entry.orderId());
+                }
+                storeData.getOrders().remove(row);
+            }
+            case STOCK_CHANGED -> findProduct(storeData, entry).setStock(entry.stock());
+            case PRODUCT_ADDED -> {
+                Product product = new Product(entry.productId(),
+                        entry.productName(), entry.price(), entry.stock(), entry.description());
+                storeData.addProduct(product);
+            }
+            case PRODUCT_EDITED -> {
+                Product product = findProduct(storeData, entry);
+                product.setName(entry.newProductName());
+                product.setPrice(entry.price());
+                product.setStock(entry.stock());
+                product.setDescription(entry.description());
+            }
+            case PRODUCT_REMOVED -> storeData.getProducts().remove(findProduct(storeData, entry));
+            case CUSTOMER_ADDED -> {
+                Customer customer = new Customer.Builder()
+                        .setId(entry.customerId())
+                        .setName(entry.customerName())
+                        .setEmail(entry.customerEmail())
+                        .setDob(entry.customerDob())
+                        .build();
+                storeData.addCustomer(customer);
+            }
+            case CUSTOMER_REMOVED -> storeData.getCustomers().remove(findCustomer(storeData, entry));
+        }
+    }
+
+    private static Customer findCustomer(StoreData storeData, Entry entry) throws IOException {
+        Customer customer = storeData.getCustomer(entry.customerId());
+        if (customer == null) {
+            throw unresolved(entry, "customer " + entry.customerId());
+        }
+        return customer;
+    }
+
+    private static Product findProduct(StoreData storeData, Entry entry) throws IOException {
+        Product product = storeData.getProduct(entry.productId());
+        if (product == null) {
+            throw unresolved(entry, "product " + entry.productId());
+        }
+        return product;
+    }
+
+    private static IOException unresolved(Entry entry, String what) {
+        return new IOException("Journal entry " + entry.sequence() + " (" + entry.type() + ") refers to "
+                + what + ", which is not in the store.");
+    }
+
+    // Encodes only the fields each type uses, with customers and products written as their id
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entry.sequence());
+        out.writeByte(entry.type().ordinal());
+        switch (entry.type()) {
+            case ORDER_CREATED, ORDER_REMOVED -> {
+                out.writeLong(entry.customerId());
+                out.writeLong(entry.productId());
+                out.writeInt(entry.quantity());
+                out.writeLong(entry.date().toEpochDay());
+                if (entry.type() == Type.ORDER_CREATED) {
+                    out.writeLong(entry.unitPriceCents());
+                }
+                out.writeInt(entry.orderId());
+            }
+            case STOCK_CHANGED -> {
+                out.writeLong(entry.productId());
+                out.writeInt(entry.stock());
+            }
+            case PRODUCT_ADDED, PRODUCT_EDITED -> {
+                out.writeLong(entry.productId());
+                out.writeUTF(entry.newProductName() == null ? entry.productName() : entry.newProductName());
+                out.writeDouble(entry.price());
+                out.writeInt(entry.stock());
+                out.writeUTF(entry.description() == null ? "" : entry.description());
+            }
+            case PRODUCT_REMOVED -> out.writeLong(entry.productId());
+            case CUSTOMER_ADDED -> {
+                out.writeLong(entry.customerId());
+                out.writeUTF(entry.customerName());
+                out.writeUTF(entry.customerEmail());
+                out.writeLong(entry.customerDob().toEpochDay());
+            }
+            case CUSTOMER_REMOVED -> out.writeLong(entry.customerId());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        Type type = Type.values()[in.readByte()];
+        switch (type) {
+            case ORDER_CREATED, ORDER_REMOVED -> {
+                long customerId = in.readLong();
+                long productId = in.readLong();
+                int quantity = in.readInt();
+                LocalDate date = LocalDate.ofEpochDay(in.readLong());
+                long unitPriceCents = type == Type.ORDER_CREATED ? in.readLong() : 0;
+                return new Entry(type, sequence, customerId, null, null, null, productId, null, null,
+                        0, 0, null, quantity, date, unitPriceCents, in.readInt());
+            }
+            case STOCK_CHANGED, PRODUCT_REMOVED -> {
+                long productId = in.readLong();
+                int stock = type == Type.STOCK_CHANGED ? in.readInt() : 0;
+                return new Entry(type, sequence, 0, null, null, null, productId, null, null,
+                        0, stock, null, 0, null, 0, 0);
+            }
+            case PRODUCT_ADDED, PRODUCT_EDITED -> {
+                long productId = in.readLong();
+                String newName = in.readUTF();
+                return new Entry(type, sequence, 0, null, null, null, productId, newName, newName,
+                        in.readDouble(), in.readInt(), in.readUTF(), 0, null, 0, 0);
+            }
+            case CUSTOMER_ADDED -> {
+                return new Entry(type, sequence, in.readLong(), in.readUTF(), in.readUTF(),
+                        LocalDate.ofEpochDay(in.readLong()), 0, null, null, 0, 0, null, 0, null, 0, 0);
+            }
+            default -> {
+                return new Entry(type, sequence, in.readLong(), null, null, null,
+                        0, null, null, 0, 0, null, 0, null, 0, 0);
+            }
+        }
+    }
+}
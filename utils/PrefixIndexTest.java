@@ -0,0 +1,66 @@
+package com.example.storegui.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+// Test class for PrefixIndex
+class PrefixIndexTest {
+
+    private record Person(String name, String email) {
+    }
+
+    private final Person john = new Person("John Doe", "john@example.com");
+    private final Person jane = new Person("Jane Johnson", "jane@example.com");
+    private final Person bob = new Person("Bob Smith", "bsmith@example.com");
+
+    private PrefixIndex<Person> index;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() {
+        index = new PrefixIndex<>(List.of(john, jane, bob), person -> List.of(person.name(), person.email()));
+    }
+
+    // Any key or word in it should match its start, ignoring case
+    @Test
+    void testSearch() {
+        assertEquals(List.of(john), index.search("doe", 50));
+        assertEquals(List.of(bob), index.search("BSMI", 50));
+        assertEquals(List.of(jane), index.search("ja", 50), "Jane matches by name and email but is listed once.");
+        assertTrue(index.search("x", 50).isEmpty());
+    }
+
+    // No more matches than the limit, and an empty prefix lists the first items
+    @Test
+    void testSearchLimit() {
+        assertEquals(2, index.search("jo", 50).size(), "John matches by name and email, Jane by a word.");
+        assertEquals(1, index.search("j", 1).size());
+        assertEquals(List.of(john, jane), index.search("", 2));
+    }
+
+    // Items added later should be found like the others
+    @Test
+    void testPlus() {
+        Person joan = new Person("Joan Doe", "joan@example.com");
+        PrefixIndex<Person> grown = index.plus(List.of(joan));
+        assertEquals(4, grown.size());
+        assertEquals(3, index.size(), "The old index should not change.");
+        assertEquals(List.of(john, joan), grown.search("doe", 50));
+        assertEquals(List.of(joan), grown.search("joa", 50));
+    }
+
+    // Items taken out should no longer be found, and the others still should
+    @Test
+    void testMinus() {
+        PrefixIndex<Person> shrunk = index.minus(List.of(jane));
+        assertEquals(2, shrunk.size());
+        assertEquals(3, index.size(), "The old index should not change.");
+        assertTrue(shrunk.search("ja", 50).isEmpty());
+        assertEquals(List.of(john), shrunk.search("jo", 50));
+        assertEquals(List.of(john, bob), shrunk.search("", 50));
+        assertEquals(List.of(bob), shrunk.search("smith", 50));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.Order;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+// Test class for StoreCodec
+class StoreCodecTest {
+    @TempDir
+    Path tempDir;
+
+    private StoreData storeData;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer.Builder()
+                .setName("John Doe")
+                .setEmail("john@example.com")
+                .setDob(LocalDate.of(1990, 1, 1))
+                .build();
+        Customer removedCustomer = new Customer.Builder()
+                .setName("Jane Smith")
+                .setEmail("jane@example.com")
+                .setDob(LocalDate.of(1985, 5, 15))
+                .build();
+        Product product = new Product("Product A", 10.5, 100, "Amazing Product");
+
+        storeData = new StoreData();
+        storeData.getCustomers().add(customer);
+        storeData.getProducts().add(product);
+        storeData.getOrders().add(new Order(customer, product, 2, LocalDate.of(2023, 1, 1)));
+        // order whose customer is no longer in the customer list
+        storeData.getOrders().add(new Order(removedCustomer, product, 3, LocalDate.of(2023, 2, 1)));
+        storeData.setJournalSequence(42);
+    }
+
+    // Encoding then decoding should give back the same store
+    @Test
+    void testRoundTrip() throws IOException {
+        StoreData decoded = StoreCodec.decode(ByteBuffer.wrap(StoreCodec.encode(storeData)));
+
+        assertEquals(42, decoded.getJournalSequence());
+        assertEquals(1, decoded.getCustomers().size(), "Only listed customers should be restored.");
+        assertEquals(1, decoded.getProducts().size());
+        assertEquals(10.5, decoded.getProducts().get(0).getPrice());
+        assertEquals(2, decoded.getOrders().size());
+        assertEquals("Jane Smith", decoded.getOrders().get(1).getCustomer().getName(),
+                "Orders should keep customers that were removed from the list.");
+        assertSame(decoded.getProducts().get(0), decoded.getOrders().get(0).getProduct(),
+                "Orders should share the decoded product.");
+        assertEquals(LocalDate.of(2023, 2, 1), decoded.getOrders().get(1).getDate());
+    }
+
+    // Ids should survive a round trip, and orders should see edits made to their product
+    @Test
+    void testOrdersReferToEntitiesById() throws IOException {
+        StoreData decoded = StoreCodec.decode(ByteBuffer.wrap(StoreCodec.encode(storeData)));
+
+        Product product = decoded.getProducts().get(0);
+        assertEquals(storeData.getProducts().get(0).getId(), product.getId(), "Product ids should be kept.");
+        assertEquals(product.getId(), decoded.getOrders().get(0).getProductId());
+
+        product.setPrice(12.0);
+        assertEquals(12.0, decoded.getOrders().get(0).getProduct().getPrice(), "Orders should see the edited product.");
+        assertSame(decoded.getCustomers().get(0), decoded.getCustomer(decoded.getOrders().get(0).getCustomerId()));
+    }
+
+    // Every decoded store should bring its own id tables, so two loads of a file don't see each other's objects
+    @Test
+    void testDecodedStoresResolveInTheirOwnTables() throws IOException {
+        byte[] encoded = StoreCodec.encode(storeData);
+        StoreData first = StoreCodec.decode(ByteBuffer.wrap(encoded));
+        StoreData second = StoreCodec.decode(ByteBuffer.wrap(encoded));
+
+        first.getProducts().get(0).setName("Renamed");
+        assertSame(first.getProducts().get(0), first.getOrders().get(0).getProduct());
+        assertEquals("Product A", second.getOrders().get(0).getProduct().getName());
+        assertSame(second.getCustomers().get(0), second.getCustomer(second.getOrders().get(0).getCustomerId()));
+    }
+
+    // Orders should keep the unit price they were stored with, not take the product's current one
+    @Test
+    void testOrdersKeepTheirUnitPrice() throws IOException {
+        storeData.getProducts().get(0).setPrice(99.0);
+        byte[] encoded = StoreCodec.encode(storeData);
+
+        StoreData decoded = StoreCodec.decode(ByteBuffer.wrap(encoded));
+        assertEquals(1050, decoded.getOrders().unitPriceCents(0));
+        assertEquals(1050, new MappedStore(ByteBuffer.wrap(encoded)).orderStore().unitPriceCents(1));
+    }
+
+    // Files written with Java serialization should still be readable
+    @Test
+    void testReadsLegacyFile() throws Exception {
+        Path legacy = tempDir.resolve("storeData.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(legacy))) {
+            out.writeObject(storeData);
+        }
+
+        StoreData read = StoreCodec.read(legacy);
+        assertEquals(2, read.getOrders().size(), "Legacy orders should be read.");
+    }
+
+    // A truncated file should be reported as corrupt rather than partially loaded
+    @Test
+    void testTruncatedFileFails() {
+        byte[] encoded = StoreCodec.encode(storeData);
+        ByteBuffer truncated = ByteBuffer.wrap(encoded, 0, encoded.length - 3);
+        assertThrows(IOException.class, () -> StoreCodec.decode(truncated));
+    }
+
+    // A mapped store should find records by id and share them with its lists and its orders
+    @Test
+    void testMappedStoreReadsRecordsOnDemand() throws IOException {
+        Path file = tempDir.resolve("storeData.bin");
+        SnapshotFile.write(file, storeData, 0);
+
+        MappedStore store = MappedStore.open(file);
+        assertEquals(2, store.getOrderCount(), "Counts should come from the header.");
+        assertEquals(1, store.getCustomerCount());
+
+        OrderStore orders = store.orderStore();
+        assertEquals(3, orders.quantity(1));
+        Customer removed = orders.get(1).getCustomer();
+        assertEquals("Jane Smith", removed.getName(), "Customers only orders refer to should be found by id.");
+        assertSame(removed, store.findCustomer(removed.getId()), "Decoded records should be shared.");
+        assertSame(store.getCustomer(0), orders.get(0).getCustomer());
+        assertNull(store.findProduct(orders.productId(0) + 1000));
+
+        List<Customer> customers = store.customers();
+        customers.add(removed);
+        assertTrue(((LazyRecordList<Customer>) customers).isLazy(), "Appending should not decode the whole list.");
+        assertEquals(2, customers.size());
+    }
+
+    // A snapshot whose payload was damaged should fail its checksum instead of being decoded
+    @Test
+    void testCorruptSnapshotFailsChecksum() throws IOException {
+        Path file = tempDir.resolve("storeData.bin");
+        SnapshotFile.write(file, storeData, 0);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> MappedStore.open(file));
+        assertTrue(e.getMessage().contains("checksum"));
+    }
+
+    // Each write should keep the previous snapshot as the next generation
+    @Test
+    void testSnapshotKeepsGenerations() throws Exception {
+        Path file = tempDir.resolve("storeData.bin");
+        for (long sequence = 1; sequence <= 4; sequence++) {
+            storeData.setJournalSequence(sequence);
+            SnapshotFile.write(file, storeData, 2);
+        }
+
+        assertEquals(4, SnapshotFile.readHeader(file).journalSequence());
+        assertEquals(3, SnapshotFile.readHeader(SnapshotFile.generation(file, 1)).journalSequence());
+        assertEquals(2, StoreCodec.read(SnapshotFile.generation(file, 2)).getJournalSequence());
+        assertFalse(Files.exists(SnapshotFile.generation(file, 3)), "Only two old generations should be kept.");
+        assertFalse(Files.exists(file.resolveSibling("storeData.bin.tmp")), "The temp file should have been renamed.");
+    }
+}
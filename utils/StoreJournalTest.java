@@ -0,0 +1,140 @@
+package com.example.storegui.utils;
+
+import com.example.storegui.customer.Customer;
+import com.example.storegui.model.StoreData;
+import com.example.storegui.order.Order;
+import com.example.storegui.order.OrderStore;
+import com.example.storegui.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+// Test class for StoreJournal
+class StoreJournalTest {
+    @TempDir
+    Path tempDir;
+
+    private StoreJournal journal;
+    private Customer customer;
+    private Product product;
+
+    // This method is called before each test
+    @BeforeEach
+    void setUp() {
+        journal = new StoreJournal(tempDir.resolve("storeData.journal"));
+        customer = new Customer.Builder()
+                .setName("John Doe")
+                .setEmail("john@example.com")
+                .setDob(LocalDate.of(1990, 1, 1))
+                .build();
+        product = new Product("Product A", 10.0, 100, "Amazing Product");
+    }
+
+    // Replaying the journal onto an empty store should rebuild every change
+    @Test
+    void testReplayRebuildsStore() throws IOException {
+        OrderStore orders = new OrderStore();
+        orders.append(customer.getId(), product.getId(), 2, Math.toIntExact(LocalDate.of(2023, 1, 1).toEpochDay()), 950);
+        journal.append(List.of(
+                StoreJournal.Entry.customerAdded(customer).withSequence(1),
+                StoreJournal.Entry.productAdded(product).withSequence(2)));
+        journal.append(List.of(
+                StoreJournal.Entry.orderCreated(orders, 0).withSequence(3),
+                new StoreJournal.Entry(StoreJournal.Type.STOCK_CHANGED, 4, 0, null, null, null,
+                        product.getId(), null, null, 0, 98, null, 0, null, 0, 0)));
+
+        StoreData storeData = new StoreData();
+        for (StoreJournal.Entry entry : journal.read(0)) {
+            StoreJournal.apply(storeData, entry);
+        }
+
+        assertEquals(1, storeData.getCustomers().size(), "Replay should add the customer.");
+        assertEquals(98, storeData.getProducts().get(0).getStock(), "Replay should apply the stock change.");
+        assertEquals(1, storeData.getOrders().size(), "Replay should add the order.");
+        assertSame(storeData.getProducts().get(0), storeData.getOrders().get(0).getProduct(),
+                "Replayed order should reference the replayed product.");
+        assertEquals(950, storeData.getOrders().unitPriceCents(0),
+                "Replayed order should keep the price it was created at.");
+    }
+
+    // Of two orders with the same values, replaying a removal should remove the one that was removed
+    @Test
+    void testReplayRemovesOrderById() throws IOException {
+        OrderStore orders = new OrderStore();
+        int epochDay = Math.toIntExact(LocalDate.of(2023, 1, 1).toEpochDay());
+        orders.append(customer.getId(), product.getId(), 2, epochDay, 1000);
+        orders.append(customer.getId(), product.getId(), 2, epochDay, 950);
+        Order second = orders.get(1);
+        journal.append(List.of(
+                StoreJournal.Entry.customerAdded(customer).withSequence(1),
+                StoreJournal.Entry.productAdded(product).withSequence(2),
+                StoreJournal.Entry.orderCreated(orders, 0).withSequence(3),
+                StoreJournal.Entry.orderCreated(orders, 1).withSequence(4),
+                StoreJournal.Entry.orderRemoved(second).withSequence(5)));
+
+        StoreData storeData = new StoreData();
+        for (StoreJournal.Entry entry : journal.read(0)) {
+            StoreJournal.apply(storeData, entry);
+        }
+
+        assertEquals(1, storeData.getOrders().size());
+        assertEquals(0, storeData.getOrders().orderId(0), "The first order should be kept.");
+        assertEquals(1000, storeData.getOrders().unitPriceCents(0));
+    }
+
+    // An order of a product the store doesn't have should fail the replay instead of being dropped
+    @Test
+    void testReplayFailsOnUnknownProduct() throws IOException {
+        OrderStore orders = new OrderStore();
+        orders.append(customer.getId(), product.getId(), 2, Math.toIntExact(LocalDate.of(2023, 1, 1).toEpochDay()), 950);
+        StoreData storeData = new StoreData();
+        StoreJournal.apply(storeData, StoreJournal.Entry.customerAdded(customer).withSequence(1));
+
+        IOException e = assertThrows(IOException.class,
+                () -> StoreJournal.apply(storeData, StoreJournal.Entry.orderCreated(orders, 0).withSequence(2)));
+        assertTrue(e.getMessage().contains("product " + product.getId()));
+        assertTrue(storeData.getOrders().isEmpty());
+    }
+
+    // Truncating should keep only the entries after the snapshot
+    @Test
+    void testTruncateKeepsEntriesAfterSnapshot() throws IOException {
+        journal.append(List.of(
+                StoreJournal.Entry.customerAdded(customer).withSequence(1),
+                StoreJournal.Entry.productAdded(product).withSequence(2)));
+
+        assertEquals(0, journal.baseSequence());
+        journal.truncate(1);
+
+        assertEquals(1, journal.baseSequence(), "The journal should know it no longer holds entry 1.");
+        List<StoreJournal.Entry> remaining = journal.read(0);
+        assertEquals(1, remaining.size(), "Only the entry after the snapshot should remain.");
+        assertEquals(2, remaining.get(0).sequence());
+        assertEquals(2, journal.recover(), "Recovered sequence should be the last entry.");
+    }
+
+    // A record torn by a crash should be cut off without losing the ones before it
+    @Test
+    void testRecoverDropsTornRecord() throws IOException {
+        journal.append(List.of(StoreJournal.Entry.customerAdded(customer).withSequence(1)));
+        journal.append(List.of(StoreJournal.Entry.productAdded(product).withSequence(2)));
+
+        Path file = tempDir.resolve("storeData.journal");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        assertEquals(1, journal.recover(), "Torn entry should be ignored.");
+        journal.append(List.of(StoreJournal.Entry.productAdded(product).withSequence(2)));
+        assertEquals(2, journal.read(0).size(), "Entries appended after recovery should be readable.");
+    }
+}